@@ -0,0 +1,96 @@
+package Controller;
+
+import Model.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the pair matching and the group creation on a participant file, outside of the unit tests.
+ * Run with the path of the participant file, by default Daten/teilnehmerliste.csv.
+ */
+public class Benchmark {
+
+    public static void main(String[] args) {
+        String filepath = args.length > 0 ? args[0] : "Daten/teilnehmerliste.csv";
+        List<String> partyLocation = Main.readCsv("Daten/partylocation.csv").get(0);
+        Location location = new Location(Double.parseDouble(partyLocation.get(0)), Double.parseDouble(partyLocation.get(1)));
+        comparePairMatchingStrategies(filepath, location, 1, 2, 3);
+        benchmarkGroupCreation(filepath, location, 1L, 5, 1, 2, 3, 4, 5);
+    }
+
+    /**
+     * Creates the pairs for the participant file once with the greedy and once with the weighted matching,
+     * and prints the metrics of the pairs and the running time of both, so the strategies can be compared.
+     * @param filepath the path to the CSV file of the participants.
+     * @param partyLocation the location of the after dinner party.
+     * @param foodPreference the priority for food preference
+     * @param ageDifference the priority for age difference
+     * @param genderDiversity the priority for gender diversity
+     */
+    static void comparePairMatchingStrategies(String filepath, Location partyLocation,
+                                              int foodPreference, int ageDifference, int genderDiversity) {
+        Map<String, PairMatchingStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("Greedy", PairMatchingStrategy.GREEDY);
+        strategies.put("Weighted", PairMatchingStrategy.WEIGHTED);
+        for (Map.Entry<String, PairMatchingStrategy> strategy : strategies.entrySet()) {
+            SpinfoodEvent event = new SpinfoodEvent(partyLocation);
+            Main.importParticipants(filepath, event);
+            long start = System.nanoTime();
+            event.createPairs(foodPreference, ageDifference, genderDiversity, strategy.getValue());
+            long milliseconds = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("#### " + strategy.getKey() + " matching (" + milliseconds + " ms) ####");
+            event.showMetricsOfPairs();
+        }
+    }
+
+    /**
+     * Creates the groups for the participant file several times with the same seed and prints the running times
+     * of createGroups, whether all runs formed the same groups, and the metrics of the groups.
+     * @param filepath the path to the CSV file of the participants.
+     * @param partyLocation the location of the after dinner party.
+     * @param seed the seed for the random decisions of createGroups
+     * @param runs the number of runs, at least 1
+     * @param foodPreference the priority for food preference
+     * @param ageDifference the priority for age difference
+     * @param genderDiversity the priority for gender diversity
+     * @param pathLength the priority for path length
+     * @param numberOfElements the priority for number of elements
+     */
+    static void benchmarkGroupCreation(String filepath, Location partyLocation, long seed, int runs,
+                                       int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements) {
+        long[] milliseconds = new long[runs];
+        List<String> firstGroups = null;
+        boolean sameGroups = true;
+        SpinfoodEvent event = null;
+        for (int run = 0; run < runs; run++) {
+            event = new SpinfoodEvent(partyLocation);
+            Main.importParticipants(filepath, event);
+            event.setSeed(seed);
+            event.createPairs(foodPreference, ageDifference, genderDiversity);
+            long start = System.nanoTime();
+            event.createGroups(foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements);
+            milliseconds[run] = (System.nanoTime() - start) / 1_000_000;
+
+            List<String> groups = new ArrayList<>();
+            for (Group group : event.getGroups()) {
+                StringBuilder ids = new StringBuilder(group.getCourse().toString());
+                for (Pair pair : group.getGroupPairs())
+                    ids.append(' ').append(pair.getParticipant1().getId());
+                groups.add(ids.toString());
+            }
+            if (firstGroups == null)
+                firstGroups = groups;
+            else
+                sameGroups &= firstGroups.equals(groups);
+        }
+        Arrays.sort(milliseconds);
+        System.out.println("#### createGroups with seed " + seed + ": " + runs + " runs, minimum " + milliseconds[0]
+                + " ms, median " + milliseconds[runs / 2] + " ms, same groups in all runs: " + sameGroups + " ####");
+        if (event != null)
+            event.showMetricsOfGroups();
+    }
+}
@@ -0,0 +1,134 @@
+package Controller;
+
+import Model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistrationReaderTest {
+
+    private static final String HEADER = ",ID,Name,FoodPreference,Age,Sex,Kitchen,Kitchen_Story,Kitchen_Longitude,Kitchen_Latitude,ID_2,Name_2,Age_2,Sex_2\n";
+
+    @Test
+    public void shouldImportParticipantFileLikeReadCsv() {
+        String filepath = "Daten/teilnehmerliste.csv";
+        SpinfoodEvent expected = new SpinfoodEvent(new Location(0.0, 0.0));
+        expected.createInitialParticipantsAndPairs(Main.readCsv(filepath));
+        SpinfoodEvent event = new SpinfoodEvent(new Location(0.0, 0.0));
+
+        Main.importParticipants(filepath, event);
+
+        assertEquals(expected.getParticipants().size(), event.getParticipants().size());
+        assertEquals(expected.getPairs().size(), event.getPairs().size());
+        assertEquals(expected.getKitchens().size(), event.getKitchens().size());
+        for (int i = 0; i < event.getParticipants().size(); i++) {
+            Participant participant = event.getParticipants().get(i);
+            Participant expectedParticipant = expected.getParticipants().get(i);
+            assertEquals(expectedParticipant.getId(), participant.getId());
+            assertEquals(expectedParticipant.getAge(), participant.getAge());
+            assertEquals(expected.getKitchens().indexOf(expectedParticipant.getKitchen()), event.getKitchens().indexOf(participant.getKitchen()));
+        }
+    }
+
+    @Test
+    public void shouldReadQuotedFields() throws IOException {
+        String csv = HEADER
+                + "0,a1,\"Doe, Jane\",VEGGIE,21,female,yes,,8.5,50.5,b2,\"Joe \"\"Jr\"\"\",25.0,male\r\n";
+        SpinfoodEvent event = new SpinfoodEvent(new Location(0.0, 0.0));
+
+        int count = new RegistrationReader(new StringReader(csv)).readInto(event);
+
+        assertEquals(1, count);
+        assertEquals("Doe, Jane", event.getParticipants().get(0).getName());
+        assertEquals("Joe \"Jr\"", event.getParticipants().get(1).getName());
+        assertEquals(0, event.getKitchens().get(0).getStory());
+        assertEquals(1, event.getPairs().size());
+    }
+
+    @Test
+    public void shouldReportLineOfMalformedRow() {
+        String csv = HEADER
+                + "0,a1,Person1,veggie,21,male,no\n"
+                + "1,a2,Person2,fish,22,male,no\n";
+        SpinfoodEvent event = new SpinfoodEvent(new Location(0.0, 0.0));
+
+        CsvFormatException exception = assertThrows(CsvFormatException.class,
+                () -> new RegistrationReader(new StringReader(csv)).readInto(event));
+        assertEquals(3, exception.getLineNumber());
+    }
+
+    @Test
+    public void shouldCountLoneCarriageReturnsAsLineBreaks(@TempDir Path directory) throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER.replace('\n', '\r'));
+        csv.append("0,a0,\"Person\r0\",meat,30,male,no\r");
+        for (int i = 1; i < 100; i++)
+            csv.append(i).append(",id").append(i).append(",Person").append(i).append(",meat,30,male,no\r");
+        csv.append("100,id100,Person100,meat,thirty,male,no\r");
+        Path file = directory.resolve("participants.csv");
+        Files.writeString(file, csv);
+
+        CsvFormatException exception = assertThrows(CsvFormatException.class,
+                () -> new RegistrationReader(new StringReader(csv.toString())).readInto(new SpinfoodEvent(new Location(0.0, 0.0))));
+        assertEquals(103, exception.getLineNumber());
+        exception = assertThrows(CsvFormatException.class,
+                () -> MappedRegistrationImport.importInto(file, new SpinfoodEvent(new Location(0.0, 0.0)), 4));
+        assertEquals(103, exception.getLineNumber());
+    }
+
+    @Test
+    public void shouldKeepCauseOfUnreadableFile(@TempDir Path directory) {
+        String filepath = directory.resolve("missing.csv").toString();
+
+        UncheckedIOException exception = assertThrows(UncheckedIOException.class,
+                () -> Main.importParticipants(filepath, new SpinfoodEvent(new Location(0.0, 0.0))));
+        assertTrue(exception.getMessage().contains(filepath));
+        assertNotNull(exception.getCause());
+    }
+
+    @Test
+    public void shouldImportMappedChunksInFileOrder() throws IOException {
+        String filepath = "Daten/teilnehmerliste.csv";
+        SpinfoodEvent expected = new SpinfoodEvent(new Location(0.0, 0.0));
+        Main.importParticipants(filepath, expected);
+        SpinfoodEvent event = new SpinfoodEvent(new Location(0.0, 0.0));
+
+        MappedRegistrationImport.importInto(Path.of(filepath), event, 5);
+        SpinfoodEvent mappedByThreshold = new SpinfoodEvent(new Location(0.0, 0.0));
+        Main.importParticipants(filepath, mappedByThreshold, 0);
+        assertEquals(expected.getParticipants().size(), mappedByThreshold.getParticipants().size());
+        assertEquals(expected.getPairs().size(), mappedByThreshold.getPairs().size());
+
+        assertEquals(expected.getParticipants().size(), event.getParticipants().size());
+        assertEquals(expected.getKitchens().size(), event.getKitchens().size());
+        for (int i = 0; i < event.getParticipants().size(); i++) {
+            assertEquals(expected.getParticipants().get(i).getId(), event.getParticipants().get(i).getId());
+            assertEquals(expected.getKitchens().indexOf(expected.getParticipants().get(i).getKitchen()),
+                    event.getKitchens().indexOf(event.getParticipants().get(i).getKitchen()));
+        }
+        for (int i = 0; i < event.getPairs().size(); i++)
+            assertEquals(expected.getPairs().get(i).getParticipant2().getId(), event.getPairs().get(i).getParticipant2().getId());
+    }
+
+    @Test
+    public void shouldReportLineOfMalformedRowInMappedChunk(@TempDir Path directory) throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 100; i++)
+            csv.append(i).append(",id").append(i).append(",Person").append(i).append(",meat,30,male,no\n");
+        csv.append("100,id100,Person100,meat,thirty,male,no\n");
+        Path file = directory.resolve("participants.csv");
+        Files.writeString(file, csv);
+        SpinfoodEvent event = new SpinfoodEvent(new Location(0.0, 0.0));
+
+        CsvFormatException exception = assertThrows(CsvFormatException.class,
+                () -> MappedRegistrationImport.importInto(file, event, 4));
+        assertEquals(102, exception.getLineNumber());
+        assertEquals(100, event.getParticipants().size());
+    }
+}
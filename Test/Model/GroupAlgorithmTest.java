@@ -411,6 +411,60 @@ public class GroupAlgorithmTest {
         assertFalse(GroupAlgorithm.checkIfPairCanCook(pair1, Course.APPETIZER, pairs, groups));
     }
 
+    /**
+     * Tests that the kitchen ledger counts the cooking pairs and bookings made during a run.
+     */
+    @Test
+    public void testPairCannotCook_KitchenBookedInLedger() {
+        pair1.setHasCooked(false);
+        pair2.setHasCooked(false);
+        pair2.getParticipant1().setKitchen(pair1.getKitchen());
+        KitchenLedger ledger = new KitchenLedger(pairs, groups);
+        assertTrue(GroupAlgorithm.checkIfPairCanCook(pair1, Course.MAIN, ledger));
+
+        group1.setCourse(Course.MAIN);
+        group1.setKitchenOwner(pair2);
+        ledger.recordCooking(pair2);
+        ledger.book(group1);
+
+        assertTrue(pair2.hasCooked());
+        assertEquals(1, ledger.getCookCount(pair1.getKitchen()));
+        assertFalse(GroupAlgorithm.checkIfPairCanCook(pair1, Course.MAIN, ledger));
+        assertTrue(GroupAlgorithm.checkIfPairCanCook(pair1, Course.DESSERT, ledger));
+    }
+
+    /**
+     * Tests that the groups of a cluster which is rejected are not counted in the kitchen ledger,
+     * and that a group is counted once it is committed.
+     */
+    @Test
+    public void testCreateClusterGroups_RejectedClusterNotRecorded() {
+        List<Pair> cluster = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            Participant cook = new Participant("c" + i, "Cook", FoodPreference.MEAT, 25, Gender.FEMALE, new Kitchen(KitchenExists.YES, 0, (double) i, (double) i));
+            Participant guest = new Participant("g" + i, "Guest", FoodPreference.MEAT, 25, Gender.MALE, null);
+            cluster.add(new Pair(cook, guest, FoodPreference.MEAT, false));
+        }
+        // the pairs of the first appetizer group have all cooked already, so it gets no kitchen owner
+        cluster.get(0).setHasCooked(true);
+        cluster.get(3).setHasCooked(true);
+        cluster.get(6).setHasCooked(true);
+        KitchenLedger ledger = new KitchenLedger(cluster, List.of());
+
+        List<Group> result = GroupAlgorithm.createClusterGroups(cluster, ledger);
+        assertNull(result.get(0).getKitchenOwner());
+        for (int i : new int[]{1, 2, 4, 5, 7, 8}) {
+            assertFalse(cluster.get(i).hasCooked());
+            assertEquals(0, ledger.getCookCount(cluster.get(i).getKitchen()));
+        }
+        assertFalse(ledger.isBooked(cluster.get(7).getKitchenLocation(), Course.APPETIZER));
+
+        ledger.commit(result.get(1));
+        assertTrue(cluster.get(7).hasCooked());
+        assertEquals(1, ledger.getCookCount(cluster.get(7).getKitchen()));
+        assertTrue(ledger.isBooked(cluster.get(7).getKitchenLocation(), Course.APPETIZER));
+    }
+
     /**
      * Tests if a pair cannot cook because their kitchen is not available for the course.
      */
@@ -1000,14 +1054,199 @@ public class GroupAlgorithmTest {
         assertTrue(score < 1.0, "Score should decrease due to significant increase in path length.");
     }
 
+    /**
+     * Test that scoring with the cluster accumulator gives the same score as scoring with the cluster list,
+     * while the pairs are added one after another.
+     */
+    @Test
+    public void testCalculatePairScore_AccumulatorSameAsList() {
+        List<Pair> pairs = Arrays.asList(pair1, pair2, pair3, pair4, pair5);
+        List<Pair> clusterList = new ArrayList<>();
+        ClusterAccumulator accumulator = new ClusterAccumulator(partyLocation);
+        for (Pair pair : pairs) {
+            for (Pair candidate : pairs)
+                assertEquals(groupAlgorithm.calculatePairScore(candidate, clusterList, 1, 2, 3, 4, 5, partyLocation),
+                        GroupAlgorithm.calculatePairScore(candidate, accumulator, 1, 2, 3, 4, 5), 1e-12);
+            clusterList.add(pair);
+            accumulator.add(pair);
+        }
+        assertEquals(pairs.size(), accumulator.size());
+    }
+
+    /**
+     * Test that the candidate queue returns the candidates by descending score, with the same order for the same seed.
+     */
+    @Test
+    public void testClusterCandidateQueue_PollsBestFirst() {
+        List<Pair> candidates = Arrays.asList(pair1, pair2, pair3, pair4, pair5);
+        Map<Pair, Double> scores = Map.of(pair1, 0.2, pair2, 0.9, pair3, 0.5, pair4, 0.5, pair5, 0.1);
+        ClusterCandidateQueue queue = new ClusterCandidateQueue(candidates, new Random(7));
+        ClusterCandidateQueue sameSeed = new ClusterCandidateQueue(candidates, new Random(7));
+        queue.rescore(scores::get);
+        sameSeed.rescore(scores::get);
+
+        double lastScore = Double.POSITIVE_INFINITY;
+        while (!queue.isEmpty()) {
+            Pair pair = queue.poll();
+            assertSame(pair, sameSeed.poll());
+            assertTrue(scores.get(pair) <= lastScore);
+            lastScore = scores.get(pair);
+        }
+        assertNull(queue.poll());
+    }
+
+    /**
+     * Test that the compatibility matrix gives the same answer as checking the pairs directly, in both directions.
+     */
+    @Test
+    public void testPairCompatibility_SameAsArePairsCompatible() {
+        List<Pair> pairs = Arrays.asList(pair1, pair2, pair3, pair4, pair5, pair6, pair7, pair8, pair9, pair10);
+        PairCompatibility compatibility = new PairCompatibility(pairs.subList(0, 8));
+        for (Pair pair : pairs)
+            for (Pair other : pairs)
+                if (pair != other)
+                    assertEquals(GroupAlgorithm.arePairsCompatible(pair, other), compatibility.areCompatible(pair, other));
+    }
+
+    /**
+     * Test that the kitchen grid finds the same nearest pairs as comparing the location with every pair,
+     * also for locations outside of the grid and after pairs were removed.
+     */
+    @Test
+    public void testKitchenGrid_FindNearestSameAsAllPairs() {
+        Random random = new Random(1);
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Kitchen kitchen = new Kitchen(KitchenExists.YES, 0, 8.6 + random.nextDouble() * 0.1, 50.5 + random.nextDouble() * 0.1);
+            Participant participant1 = new Participant("a" + i, "A" + i, FoodPreference.MEAT, 20, Gender.FEMALE, kitchen);
+            Participant participant2 = new Participant("b" + i, "B" + i, FoodPreference.MEAT, 20, Gender.MALE, null);
+            pairs.add(new Pair(participant1, participant2, FoodPreference.MEAT, false));
+        }
+        KitchenGrid grid = new KitchenGrid(pairs, partyLocation);
+        List<Pair> remaining = new ArrayList<>(pairs);
+        for (int i = 0; i < 50; i++)
+            grid.remove(remaining.remove(random.nextInt(remaining.size())));
+
+        for (Location location : List.of(new Location(8.65, 50.55), new Location(8.6, 50.6), new Location(9.0, 50.0))) {
+            List<Pair> nearest = grid.findNearest(location, 20);
+            List<Pair> expected = new ArrayList<>(remaining);
+            expected.sort(Comparator.comparingDouble(pair -> SpinfoodEvent.findDistance(location, pair.getKitchenLocation())));
+            assertEquals(expected.subList(0, 20), nearest);
+        }
+        assertEquals(remaining.size(), grid.findNearest(partyLocation, 1000).size());
+        assertEquals(SpinfoodEvent.findDistance(pairs.get(0).getKitchenLocation(), partyLocation),
+                pairs.get(0).getDistanceToParty(partyLocation, DistanceModel.EUCLIDEAN));
+    }
+
+    /**
+     * Test that the kitchen grid also finds the nearest pairs if all kitchens are on one line of latitude or at one spot.
+     */
+    @Test
+    public void testKitchenGrid_KitchensOnOneLine() {
+        for (double spread : new double[]{0.1, 0.0}) {
+            List<Pair> pairs = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Kitchen kitchen = new Kitchen(KitchenExists.YES, 0, 8.6 + i * spread / 50, 50.5);
+                Participant participant1 = new Participant("a" + i, "A" + i, FoodPreference.MEAT, 20, Gender.FEMALE, kitchen);
+                Participant participant2 = new Participant("b" + i, "B" + i, FoodPreference.MEAT, 20, Gender.MALE, null);
+                pairs.add(new Pair(participant1, participant2, FoodPreference.MEAT, false));
+            }
+            DistanceModel distanceModel = DistanceModel.equirectangular(partyLocation);
+            KitchenGrid grid = new KitchenGrid(pairs, partyLocation, distanceModel);
+
+            for (Location location : List.of(new Location(8.65, 50.5), new Location(8.62, 50.51), new Location(9.0, 50.0))) {
+                // the kitchens at one spot are equally near, so the distances are compared instead of the pairs
+                List<Double> expected = new ArrayList<>();
+                for (Pair pair : pairs)
+                    expected.add(distanceModel.distance(location, pair.getKitchenLocation()));
+                Collections.sort(expected);
+                List<Double> nearest = new ArrayList<>();
+                for (Pair pair : grid.findNearest(location, 10))
+                    nearest.add(distanceModel.distance(location, pair.getKitchenLocation()));
+                assertEquals(expected.subList(0, 10), nearest);
+            }
+            assertEquals(pairs.size(), grid.findNearest(partyLocation, 1000).size());
+        }
+    }
+
+    /**
+     * Test that the route planner finds the shortest sum of the path lengths of all orders of the nine pairs,
+     * that it keeps the pairs away from the courses they cannot cook, and that it gives up if a course has too few cooks.
+     */
+    @Test
+    public void testClusterRoutePlanner_ShortestOfAllOrders() {
+        Random random = new Random(2);
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            Kitchen kitchen = new Kitchen(KitchenExists.YES, 0, 8.6 + random.nextDouble() * 0.1, 50.5 + random.nextDouble() * 0.1);
+            Participant participant1 = new Participant("a" + i, "A" + i, FoodPreference.MEAT, 20, Gender.FEMALE, kitchen);
+            Participant participant2 = new Participant("b" + i, "B" + i, FoodPreference.MEAT, 20, Gender.MALE, null);
+            pairs.add(new Pair(participant1, participant2, FoodPreference.MEAT, false));
+        }
+        Pair noDessert = pairs.get(0);
+        Pair[] arranged = ClusterRoutePlanner.arrange(pairs, (pair, course) -> pair != noDessert || course != Course.DESSERT,
+                partyLocation, DistanceModel.EUCLIDEAN);
+
+        double shortest = Double.MAX_VALUE;
+        int[] order = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        do {
+            Pair[] permuted = new Pair[9];
+            for (int i = 0; i < 9; i++)
+                permuted[i] = pairs.get(order[i]);
+            if (permuted[0] != noDessert && permuted[1] != noDessert && permuted[2] != noDessert)
+                shortest = Math.min(shortest, sumOfPathLengths(permuted));
+        } while (nextPermutation(order));
+
+        assertNotNull(arranged);
+        assertEquals(new HashSet<>(pairs), new HashSet<>(Arrays.asList(arranged)));
+        assertFalse(Arrays.asList(arranged).subList(0, 3).contains(noDessert));
+        assertEquals(shortest, sumOfPathLengths(arranged), 1e-12);
+        assertNull(ClusterRoutePlanner.arrange(pairs, (pair, course) -> pairs.indexOf(pair) > 6 || course != Course.MAIN,
+                partyLocation, DistanceModel.EUCLIDEAN));
+    }
+
+    private double sumOfPathLengths(Pair[] positions) {
+        double sum = 0;
+        for (int position = 0; position < 9; position++) {
+            Location[] hosts = new Location[3];
+            for (int i = 0; i < GroupAlgorithm.CLUSTER_GROUPS.length; i++)
+                for (int member : GroupAlgorithm.CLUSTER_GROUPS[i])
+                    if (member == position)
+                        hosts[GroupAlgorithm.CLUSTER_COURSES[i].ordinal()] = positions[GroupAlgorithm.CLUSTER_GROUPS[i][0]].getKitchenLocation();
+            sum += SpinfoodEvent.findDistance(hosts[0], hosts[1]) + SpinfoodEvent.findDistance(hosts[1], hosts[2])
+                    + SpinfoodEvent.findDistance(hosts[2], partyLocation);
+        }
+        return sum;
+    }
+
+    private static boolean nextPermutation(int[] order) {
+        int i = order.length - 2;
+        while (i >= 0 && order[i] >= order[i + 1])
+            i--;
+        if (i < 0)
+            return false;
+        int j = order.length - 1;
+        while (order[j] <= order[i])
+            j--;
+        int swap = order[i];
+        order[i] = order[j];
+        order[j] = swap;
+        for (int k = i + 1, l = order.length - 1; k < l; k++, l--) {
+            swap = order[k];
+            order[k] = order[l];
+            order[l] = swap;
+        }
+        return true;
+    }
+
     /**
      * Test the scenario when validCandidates is empty, which should not modify the cluster.
      */
     @Test
     public void testFindPairsForCluster_EmptyValidCandidates() {
-        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, eventPairs,
-                foodPreference, ageDifference, genderDiversity,
-                pathLength, numberOfElements, partyLocation);
+        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs,
+                new KitchenLedger(eventPairs, List.of()), PairCompatibility.NONE, foodPreference, ageDifference, genderDiversity,
+                pathLength, numberOfElements, partyLocation, DistanceModel.EUCLIDEAN, new Random(0));
         assertTrue(cluster.isEmpty());
     }
 
@@ -1017,9 +1256,9 @@ public class GroupAlgorithmTest {
     @Test
     public void testFindPairsForCluster_AddPairToCluster() {
         validCandidates.add(new Pair(Alice, Bob, FoodPreference.MEAT, false));
-        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, eventPairs,
-                foodPreference, ageDifference, genderDiversity,
-                pathLength, numberOfElements, partyLocation);
+        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs,
+                new KitchenLedger(eventPairs, List.of()), PairCompatibility.NONE, foodPreference, ageDifference, genderDiversity,
+                pathLength, numberOfElements, partyLocation, DistanceModel.EUCLIDEAN, new Random(0));
         assertEquals(1, cluster.size());
     }
 
@@ -1032,9 +1271,9 @@ public class GroupAlgorithmTest {
         Pair conflictingPair = new Pair(Alice, Bob, FoodPreference.VEGAN, false);
         validCandidates.add(conflictingPair);
 
-        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, eventPairs,
-                foodPreference, ageDifference, genderDiversity,
-                pathLength, numberOfElements, partyLocation);
+        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs,
+                new KitchenLedger(eventPairs, List.of()), PairCompatibility.NONE, foodPreference, ageDifference, genderDiversity,
+                pathLength, numberOfElements, partyLocation, DistanceModel.EUCLIDEAN, new Random(0));
         assertEquals(1, cluster.size());  // Only the original pair should be present
         assertFalse(cluster.contains(conflictingPair));
     }
@@ -1046,9 +1285,9 @@ public class GroupAlgorithmTest {
     public void testFindPairsForCluster_MaxSizeCluster() {
         validCandidates.addAll(Arrays.asList(pair1,pair2,pair3,pair4,pair5,pair6,pair7,pair8,pair9,pair10));
         availablePairs.addAll(Arrays.asList(pair1,pair2,pair3,pair4,pair5,pair6,pair7,pair8,pair9,pair10));
-        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, eventPairs,
-                foodPreference, ageDifference, genderDiversity,
-                pathLength, numberOfElements, partyLocation);
+        groupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs,
+                new KitchenLedger(eventPairs, List.of()), PairCompatibility.NONE, foodPreference, ageDifference, genderDiversity,
+                pathLength, numberOfElements, partyLocation, DistanceModel.EUCLIDEAN, new Random(0));
         assertEquals(9, cluster.size());
     }
 
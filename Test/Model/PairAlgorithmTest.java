@@ -1,10 +1,12 @@
 package Model;
 
+import Controller.Main;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -657,5 +659,106 @@ public class PairAlgorithmTest {
         // Verify that all sorted candidates have the same food preference as Alice, since sorting is restricted
     }
 
+    /**
+     * Test to ensure the candidate pool offers the same candidates as findValidCandidates, without matched participants
+     */
+    @Test
+    public void testCandidatePool_SameAsFindValidCandidates() {
+        Jane.setKitchen(Alice.getKitchen());
+        List<Participant> candidates = Arrays.asList(Alice, Bob, Jane, Joe, Zuhal, Eman);
+        spinfoodEvent.getParticipants().addAll(candidates);
+        spinfoodEvent.getPairs().add(new Pair(Zuhal, Numan, FoodPreference.MEAT, false));
+        CandidatePool pool = new CandidatePool(candidates, spinfoodEvent.getParticipantTable(), spinfoodEvent);
+
+        // Jane shares Alice's kitchen, Joe and Eman do not eat meat, Zuhal has a partner already
+        assertEquals(List.of(Bob), pool.findValidCandidates(Alice));
+        assertEquals(List.of(Alice, Jane), pool.findValidCandidates(Bob));
+        assertEquals(PairAlgorithm.findValidCandidates(Joe, List.of(Alice, Bob, Jane, Eman)), pool.findValidCandidates(Joe));
+
+        pool.remove(pool.positionOf(Jane));
+
+        assertEquals(List.of(Alice), pool.findValidCandidates(Bob));
+    }
+
+    /**
+     * Test to ensure the candidate ranking picks the candidates in the order of sortByBestCandidates
+     */
+    @Test
+    public void testCandidateRanking_SameOrderAsSortByBestCandidates() {
+        List<Participant> candidates = Arrays.asList(Bob, Jane, Joe, Zuhal, Numan, Dilek, Ali, Ziyan, Zoe, Eman);
+        CandidateRanking ranking = new CandidateRanking(2, 1, 3, false, Alice);
+
+        // age difference first, then food preference, then gender
+        List<Participant> sortedCandidates = PairAlgorithm.sortParticipantsByDifferentGenderFirst(Alice, candidates);
+        sortedCandidates = PairAlgorithm.sortParticipantsBySameFoodPreferenceFirst(Alice, sortedCandidates);
+        sortedCandidates = PairAlgorithm.sortParticipantsBySameAgeGroupFirst(Alice, sortedCandidates);
+
+        assertEquals(sortedCandidates, ranking.sort(candidates));
+        assertEquals(sortedCandidates.get(0), ranking.findBest(candidates));
+        assertEquals(sortedCandidates.subList(0, 4), ranking.findBest(candidates, 4));
+    }
+
+    /**
+     * Test to ensure the candidate ranking finds the same best candidate in the bitsets of the pool as in the list of valid candidates
+     */
+    @Test
+    public void testCandidateRanking_FindBestInPool() {
+        List<Participant> candidates = Arrays.asList(Alice, Bob, Jane, Joe, Zuhal, Numan, Dilek, Ali, Ziyan, Zoe, Eman);
+        spinfoodEvent.getParticipants().addAll(candidates);
+        CandidatePool pool = new CandidatePool(candidates, spinfoodEvent.getParticipantTable(), spinfoodEvent);
+        BitSet all = pool.select(KitchenExists.YES);
+        all.or(pool.select(KitchenExists.MAYBE));
+        all.or(pool.select(KitchenExists.NO));
+
+        for (Participant participant : candidates) {
+            Participant expected = new CandidateRanking(2, 1, 3, false, participant).findBest(pool.findValidCandidates(participant));
+            int best = new CandidateRanking(2, 1, 3, false, pool, pool.positionOf(participant)).findBest(all);
+            assertEquals(expected, best < 0 ? null : pool.get(best));
+        }
+    }
+
+    /**
+     * Test to ensure the weighted pair matching pairs everyone who can be paired, respecting criteria 6.1 and 6.2
+     */
+    @Test
+    public void shouldTestCreatePairs_WeightedMatching() {
+        SpinfoodEvent event = new SpinfoodEvent(new Location(0.0, 0.0));
+        List<List<String>> inputList = new ArrayList<>();
+        inputList.add(Arrays.asList("0", "004670cb-47f5-40a4-87d8-5276c18616ec", "Person1", "MEAT", "26", "male", "yes", "3.0", "8.673368271555807", "50.5941282715558"));
+        inputList.add(Arrays.asList("1", "01a099db-22e1-4fc3-bbf5-db738bc2c10b", "Person2", "MEAT", "29", "female", "no"));
+        inputList.add(Arrays.asList("2", "01be5c1f-4ba5-4a1c-a5ab-a7ef1a5b3e0e", "Person3", "VEGAN", "26", "male", "yes", "1.0", "8.718914539788807", "50.590899839788804"));
+        inputList.add(Arrays.asList("3", "01c1372d-d120-4459-9b65-39bd4c9bd6a0", "Person4", "VEGGIE", "22", "female", "no"));
+        event.createInitialParticipantsAndPairs(inputList);
+
+        event.createPairs(1, 2, 3, PairMatchingStrategy.WEIGHTED);
+
+        assertEquals(2, event.getPairs().size());
+        assertTrue(event.getSuccessorParticipants().isEmpty());
+        for (Pair pair : event.getPairs()) {
+            boolean meat1 = pair.getParticipant1().getFoodPreference() == FoodPreference.MEAT;
+            boolean meat2 = pair.getParticipant2().getFoodPreference() == FoodPreference.MEAT;
+            assertEquals(meat1, meat2);
+            assertNotNull(pair.getParticipant1().getKitchen()); // the participant with the kitchen comes first
+        }
+    }
+
+    /**
+     * Test to ensure the weighted pair matching leaves at most as many successors as the greedy pair matching
+     */
+    @Test
+    public void shouldTestCreatePairs_WeightedMatchingNoMoreSuccessorsThanGreedy() {
+        int[][] priorities = {{1, 2, 3}, {2, 1, 3}, {3, 2, 1}};
+        for (int[] priority : priorities) {
+            SpinfoodEvent greedy = new SpinfoodEvent(new Location(8.6746166676233, 50.5909317660173));
+            Main.importParticipants("Daten/teilnehmerliste.csv", greedy);
+            greedy.createPairs(priority[0], priority[1], priority[2], PairMatchingStrategy.GREEDY);
+            SpinfoodEvent weighted = new SpinfoodEvent(new Location(8.6746166676233, 50.5909317660173));
+            Main.importParticipants("Daten/teilnehmerliste.csv", weighted);
+            weighted.createPairs(priority[0], priority[1], priority[2], PairMatchingStrategy.WEIGHTED);
+
+            assertTrue(weighted.getSuccessorParticipants().size() <= greedy.getSuccessorParticipants().size());
+        }
+    }
+
     // TODO: check if the pairs in the output pair list is valid
 }
@@ -1,5 +1,6 @@
 package Model;
 
+import Controller.Main;
 import View.GUI;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,9 +11,19 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -169,6 +180,38 @@ class SpinfoodEventTest {
         assertNull(nonExistingKitchen);
     }
 
+    /**
+     * Test to verify findExistingKitchen still finds a kitchen which is in the list twice after one of them is removed
+     */
+    @Test
+    public void shouldTestFindExistingKitchen_KitchenInListTwice() {
+        Kitchen kitchen = new Kitchen(KitchenExists.YES, 1, 0.0, 0.0);
+        spinfoodEvent.getKitchens().add(kitchen);
+        spinfoodEvent.getKitchens().add(kitchen);
+
+        spinfoodEvent.getKitchens().remove(kitchen);
+        assertSame(kitchen, spinfoodEvent.findExistingKitchen(1, 0.0, 0.0));
+
+        spinfoodEvent.getKitchens().remove(kitchen);
+        assertNull(spinfoodEvent.findExistingKitchen(1, 0.0, 0.0));
+    }
+
+    /**
+     * Test to verify findExistingKitchen does not find a kitchen under its old location after it was moved
+     */
+    @Test
+    public void shouldTestFindExistingKitchen_MovedKitchen() {
+        Kitchen kitchen = new Kitchen(KitchenExists.YES, 1, 0.0, 0.0);
+        spinfoodEvent.getKitchens().add(kitchen);
+
+        kitchen.setLocation(new Location(10.0, 10.0));
+        assertNull(spinfoodEvent.findExistingKitchen(1, 0.0, 0.0));
+
+        spinfoodEvent.getKitchens().remove(kitchen);
+        spinfoodEvent.getKitchens().add(kitchen);
+        assertSame(kitchen, spinfoodEvent.findExistingKitchen(1, 10.0, 10.0));
+    }
+
     /**
      * Test to verify findExistingKitchen behaves correctly with different kitchen attributes
      */
@@ -482,6 +525,212 @@ class SpinfoodEventTest {
         assertEquals(0, spinfoodEvent.getGroups().size(), "No group should be created under certain conditions");
     }
 
+    /**
+     * Test that improving the groups keeps every group valid and does not leave more pairs without groups.
+     */
+    @Test
+    public void testOptimizeGroups_KeepsGroupsValid() {
+        spinfoodEvent.createInitialParticipantsAndPairs(Main.readCsv("Daten/teilnehmerliste.csv"));
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+        int pairsWithoutGroups = spinfoodEvent.getSuccessorPairs().size();
+
+        spinfoodEvent.optimizeGroups(1, 2, 3, 4, 5, 200);
+
+        assertTrue(spinfoodEvent.getSuccessorPairs().size() <= pairsWithoutGroups);
+        Map<Pair, Integer> groupsOfPair = new HashMap<>();
+        Set<String> bookedKitchens = new HashSet<>();
+        for (Group group : spinfoodEvent.getGroups()) {
+            assertEquals(3, group.getGroupPairs().size());
+            assertTrue(group.getGroupPairs().contains(group.getKitchenOwner()));
+            Location location = group.getKitchenOwner().getKitchenLocation();
+            assertTrue(bookedKitchens.add(location.getLongitude() + " " + location.getLatitude() + " " + group.getCourse()),
+                    "A kitchen should only be used once per course");
+            for (Pair pair : group.getGroupPairs()) {
+                groupsOfPair.merge(pair, 1, Integer::sum);
+                for (Pair other : group.getGroupPairs())
+                    assertTrue(pair == other || GroupAlgorithm.arePairsCompatible(pair, other));
+            }
+        }
+        for (int count : groupsOfPair.values())
+            assertEquals(3, count, "Every pair with groups should have one group per course");
+    }
+
+    /**
+     * Test that improving the groups for no moves keeps the groups as they are and returns at once.
+     */
+    @Test
+    public void testOptimizeGroupsForMoves_NoMoves() {
+        spinfoodEvent.setPairs(createPairsDifferentKitchens(9));
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+        List<Group> groups = new ArrayList<>(spinfoodEvent.getGroups());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> spinfoodEvent.optimizeGroupsForMoves(1, 2, 3, 4, 5, 0));
+        assertEquals(groups, spinfoodEvent.getGroups());
+    }
+
+    /**
+     * Test that two runs with the same seed form the same groups, also after improving them for a number of moves.
+     */
+    @Test
+    public void testCreateGroups_SameSeedSameGroups() {
+        List<List<String>> inputList = Main.readCsv("Daten/teilnehmerliste.csv");
+        List<List<String>> groupsOfRuns = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            SpinfoodEvent event = new SpinfoodEvent(new Location(8.6746166676654, 50.5909317660173));
+            event.createInitialParticipantsAndPairs(inputList);
+            event.setSeed(42L);
+            PairMatchingStrategy.GREEDY.matchPairs(event, event.getSuccessorParticipants(), 1, 2, 3);
+            event.createGroups(1, 2, 3, 4, 5);
+            event.optimizeGroupsForMoves(1, 2, 3, 4, 5, 2000);
+
+            List<String> groups = new ArrayList<>();
+            for (Group group : event.getGroups()) {
+                StringBuilder ids = new StringBuilder(group.getCourse() + " " + group.getKitchenOwner().getParticipant1().getId());
+                for (Pair pair : group.getGroupPairs())
+                    ids.append(' ').append(pair.getParticipant1().getId()).append(pair.getParticipant2().getId());
+                groups.add(ids.toString());
+            }
+            groupsOfRuns.add(groups);
+        }
+        assertFalse(groupsOfRuns.get(0).isEmpty());
+        assertEquals(groupsOfRuns.get(0), groupsOfRuns.get(1));
+    }
+
+    /**
+     * Test that the best of several parallel runs is at least as good as the single run with the same seed,
+     * and that the groups of the best run use the pairs of the event.
+     */
+    @Test
+    public void testCreateGroupsMultiStart_AtLeastAsGoodAsSingleRun() {
+        List<List<String>> inputList = Main.readCsv("Daten/teilnehmerliste.csv");
+        SpinfoodEvent singleRun = new SpinfoodEvent(new Location(8.6746166676654, 50.5909317660173));
+        singleRun.createInitialParticipantsAndPairs(inputList);
+        singleRun.setSeed(3L);
+        PairMatchingStrategy.GREEDY.matchPairs(singleRun, singleRun.getSuccessorParticipants(), 1, 2, 3);
+        singleRun.createGroups(1, 2, 3, 4, 5);
+
+        spinfoodEvent = new SpinfoodEvent(new Location(8.6746166676654, 50.5909317660173));
+        spinfoodEvent.createInitialParticipantsAndPairs(inputList);
+        spinfoodEvent.setSeed(3L);
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.createGroupsMultiStart(1, 2, 3, 4, 5, 4, SpinfoodEvent.FEWEST_PAIRS_WITHOUT_GROUPS);
+
+        assertTrue(SpinfoodEvent.FEWEST_PAIRS_WITHOUT_GROUPS.compare(spinfoodEvent, singleRun) <= 0);
+        assertFalse(spinfoodEvent.getGroups().isEmpty());
+        for (Group group : spinfoodEvent.getGroups()) {
+            assertTrue(spinfoodEvent.getPairs().contains(group.getKitchenOwner()));
+            assertTrue(group.getKitchenOwner().hasCooked());
+            for (Pair pair : group.getGroupPairs())
+                assertTrue(spinfoodEvent.getPairs().contains(pair));
+        }
+    }
+
+    /**
+     * Test that working copies of a snapshot can form groups at the same time without affecting each other or the event,
+     * and that they form the same groups with the same seed.
+     */
+    @Test
+    public void testSnapshot_WorkingCopiesAreIndependent() throws Exception {
+        List<List<String>> inputList = Main.readCsv("Daten/teilnehmerliste.csv");
+        spinfoodEvent = new SpinfoodEvent(new Location(8.6746166676654, 50.5909317660173));
+        spinfoodEvent.createInitialParticipantsAndPairs(inputList);
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.setSeed(7L);
+        EventSnapshot snapshot = spinfoodEvent.snapshot();
+
+        List<SpinfoodEvent> copies = List.of(snapshot.newWorkingCopy(), snapshot.newWorkingCopy());
+        Thread thread = new Thread(() -> copies.get(1).createGroups(1, 2, 3, 4, 5));
+        thread.start();
+        copies.get(0).createGroups(1, 2, 3, 4, 5);
+        thread.join();
+
+        assertTrue(spinfoodEvent.getGroups().isEmpty());
+        assertTrue(spinfoodEvent.getPairs().stream().noneMatch(Pair::hasCooked));
+        assertEquals(copies.get(0).getGroups().size(), copies.get(1).getGroups().size());
+        for (int i = 0; i < copies.get(0).getGroups().size(); i++) {
+            Group group0 = copies.get(0).getGroups().get(i);
+            Group group1 = copies.get(1).getGroups().get(i);
+            assertEquals(group0.getKitchenOwner().getNumber(), group1.getKitchenOwner().getNumber());
+            assertEquals(group0.getKitchenOwner().getParticipant1(), group1.getKitchenOwner().getParticipant1());
+            assertNotSame(group0.getKitchenOwner(), group1.getKitchenOwner());
+        }
+        for (int i = 0; i < snapshot.getPairCount(); i++) {
+            assertSame(spinfoodEvent.getPairs().get(i).getParticipant1(), copies.get(0).getPairs().get(i).getParticipant1());
+            assertNotSame(spinfoodEvent.getPairs().get(i), copies.get(0).getPairs().get(i));
+        }
+
+        SpinfoodEvent withoutGroups = copies.get(0).snapshot().newWorkingCopy(false);
+        assertTrue(withoutGroups.getGroups().isEmpty());
+        assertEquals(spinfoodEvent.getPairs().size(), withoutGroups.getSuccessorPairs().size());
+    }
+
+    /**
+     * Test that working copies can be created by several threads at the same time, and that the original event
+     * keeps all its participants in its participant table and can be changed afterwards without affecting the copies.
+     */
+    @Test
+    public void testSnapshot_WorkingCopiesCreatedConcurrently() throws Exception {
+        spinfoodEvent = new SpinfoodEvent(new Location(8.6746166676654, 50.5909317660173));
+        Main.importParticipants("Daten/teilnehmerliste.csv", spinfoodEvent);
+        EventSnapshot snapshot = spinfoodEvent.snapshot();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Callable<SpinfoodEvent>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            tasks.add(snapshot::newWorkingCopy);
+        List<SpinfoodEvent> copies = new ArrayList<>();
+        for (Future<SpinfoodEvent> copy : executor.invokeAll(tasks))
+            copies.add(copy.get());
+        executor.shutdown();
+
+        Participant changed = spinfoodEvent.getParticipants().get(0);
+        Participant removed = spinfoodEvent.getParticipants().get(1);
+        for (Participant participant : spinfoodEvent.getParticipants())
+            assertTrue(spinfoodEvent.getParticipantTable().rowOf(participant) >= 0);
+        changed.setAge(60);
+        spinfoodEvent.getParticipants().remove(removed);
+
+        ParticipantTable table = spinfoodEvent.getParticipantTable();
+        assertEquals(8, table.getAgeGroup(table.rowOf(changed)));
+        assertEquals(-1, table.rowOf(removed));
+        for (SpinfoodEvent copy : copies) {
+            assertEquals(snapshot.getParticipants().size(), copy.getParticipants().size());
+            for (Participant participant : copy.getParticipants())
+                assertTrue(copy.getParticipantTable().rowOf(participant) >= 0);
+            ParticipantTable copyTable = copy.getParticipantTable();
+            assertEquals(8, copyTable.getAgeGroup(copyTable.rowOf(changed)));
+            assertEquals(removed.getAgeGroup(), copyTable.getAgeGroup(copyTable.rowOf(removed)));
+        }
+    }
+
+    /**
+     * Test the distance models: the euclidean model is the original distance, the haversine model measures in metres,
+     * and the equirectangular model is close to it within a city. The distance to the party is kept in the pair
+     * until it is asked for with another model, or the coordinates are changed.
+     */
+    @Test
+    public void testDistanceModels() {
+        Location party = new Location(8.6746166676654, 50.5909317660173);
+        Location kitchen = new Location(8.70, 50.60);
+        assertEquals(SpinfoodEvent.findDistance(kitchen, party), DistanceModel.EUCLIDEAN.distance(kitchen, party));
+        assertEquals(111195, DistanceModel.HAVERSINE.distance(new Location(8.0, 50.0), new Location(8.0, 51.0)), 1);
+        double haversine = DistanceModel.HAVERSINE.distance(kitchen, party);
+        assertEquals(haversine, DistanceModel.equirectangular(party).distance(kitchen, party), haversine * 0.001);
+
+        Participant participant1 = new Participant("1", "A", FoodPreference.MEAT, 20, Gender.FEMALE,
+                new Kitchen(KitchenExists.YES, 0, kitchen.getLongitude(), kitchen.getLatitude()));
+        Participant participant2 = new Participant("2", "B", FoodPreference.MEAT, 20, Gender.MALE, null);
+        Pair pair = new Pair(participant1, participant2, FoodPreference.MEAT, false);
+        assertEquals(haversine, pair.getDistanceToParty(party, DistanceModel.HAVERSINE), 1e-6);
+        assertEquals(SpinfoodEvent.findDistance(kitchen, party), pair.getDistanceToParty(party, DistanceModel.EUCLIDEAN), 1e-12);
+
+        party.setLatitude(50.61);
+        assertEquals(SpinfoodEvent.findDistance(kitchen, party), pair.getDistanceToParty(party, DistanceModel.EUCLIDEAN), 1e-12);
+        pair.getKitchenLocation().setLongitude(8.71);
+        assertEquals(SpinfoodEvent.findDistance(pair.getKitchenLocation(), party), pair.getDistanceToParty(party, DistanceModel.EUCLIDEAN), 1e-12);
+        assertNotEquals(SpinfoodEvent.findDistance(kitchen, party), pair.getDistanceToParty(party, DistanceModel.EUCLIDEAN));
+    }
 
     public static List<Pair> createPairsSameKitchen(int count) {
         Participant Bob = new Participant("2", "Bob", FoodPreference.MEAT, 30, Gender.MALE, new Kitchen(KitchenExists.YES, 1, 8.718914539788807, 50.590899839788804));
@@ -614,6 +863,87 @@ class SpinfoodEventTest {
         assertTrue(output.contains(" Number of Successors(Nachrückende): 4"));
     }
 
+    @Test
+    void testMeasureAveragePathLength_KitchensInOrderOfCourses() {
+        Pair appetizerCook = pairWithKitchenAt("a", 0.0, 3.0);
+        Pair mainCook = pairWithKitchenAt("m", 4.0, 3.0);
+        Pair dessertCook = pairWithKitchenAt("d", 4.0, 0.0);
+        spinfoodEvent.setPairs(new ArrayList<>(List.of(appetizerCook, mainCook, dessertCook)));
+        Group appetizer = groupCookedBy(Course.APPETIZER, appetizerCook, appetizerCook, mainCook, dessertCook);
+        Group main = groupCookedBy(Course.MAIN, mainCook, appetizerCook, mainCook, dessertCook);
+        Group dessert = groupCookedBy(Course.DESSERT, dessertCook, appetizerCook, mainCook, dessertCook);
+
+        spinfoodEvent.setGroups(new ArrayList<>(List.of(appetizer, main, dessert)));
+        assertEquals(4.0 + 3.0 + 4.0, spinfoodEvent.measureAveragePathLength(), 1e-9);
+
+        // walked in the order of the groups, the appetizer kitchen coming last was taken for all courses (3.0)
+        spinfoodEvent.setGroups(new ArrayList<>(List.of(dessert, main, appetizer)));
+        assertEquals(4.0 + 3.0 + 4.0, spinfoodEvent.measureAveragePathLength(), 1e-9);
+    }
+
+    @Test
+    void testMeasureAveragePathLength_StaysAtKitchenOfPreviousCourse() {
+        Pair appetizerCook = pairWithKitchenAt("a", 0.0, 3.0);
+        Pair mainCook = pairWithKitchenAt("m", 4.0, 3.0);
+        Pair dessertCook = pairWithKitchenAt("d", 4.0, 0.0);
+        spinfoodEvent.setPairs(new ArrayList<>(List.of(appetizerCook, mainCook, dessertCook)));
+        Group appetizer = groupCookedBy(Course.APPETIZER, appetizerCook, appetizerCook, mainCook, dessertCook);
+        Group dessert = groupCookedBy(Course.DESSERT, dessertCook, appetizerCook, mainCook, dessertCook);
+
+        // without main course, the pairs stay at the appetizer kitchen, the same as before
+        spinfoodEvent.setGroups(new ArrayList<>(List.of(appetizer, dessert)));
+        assertEquals(0.0 + 5.0 + 4.0, spinfoodEvent.measureAveragePathLength(), 1e-9);
+
+        // without appetizer, the pairs start at the main course kitchen; before, there was no first kitchen to measure from
+        Group main = groupCookedBy(Course.MAIN, mainCook, appetizerCook, mainCook, dessertCook);
+        spinfoodEvent.setGroups(new ArrayList<>(List.of(main, dessert)));
+        assertEquals(0.0 + 3.0 + 4.0, spinfoodEvent.measureAveragePathLength(), 1e-9);
+    }
+
+    private static Pair pairWithKitchenAt(String id, double longitude, double latitude) {
+        Participant cook = new Participant(id + "1", id, FoodPreference.MEAT, 25, Gender.FEMALE, new Kitchen(KitchenExists.YES, 0, longitude, latitude));
+        Participant guest = new Participant(id + "2", id, FoodPreference.MEAT, 25, Gender.MALE, null);
+        return new Pair(cook, guest, FoodPreference.MEAT, false);
+    }
+
+    private static Group groupCookedBy(Course course, Pair cook, Pair... pairs) {
+        Group group = new Group(null, FoodPreference.MEAT, course, cook);
+        group.getGroupPairs().addAll(List.of(pairs));
+        return group;
+    }
+
+    @Test
+    void testMetricsReports_FollowEventChanges() {
+        spinfoodEvent.setPairs(Arrays.asList(pair1, pair2, pair3, pair4));
+        spinfoodEvent.setParticipants(Arrays.asList(Alice, Bob, Jane, Joe, Zuhal, Numan, Dilek, Ali));
+
+        PairMetricsReport pairReport = spinfoodEvent.getPairMetricsReport();
+        assertEquals(pairReport, spinfoodEvent.getPairMetricsReport());
+        assertEquals(4, pairReport.pairCount());
+        assertTrue(pairReport.format().contains(" Number of Successors(Nachrückende): 0"));
+
+        spinfoodEvent.getPairs().remove(pair4);
+        assertEquals(3, spinfoodEvent.getPairMetricsReport().pairCount());
+        assertEquals(2, spinfoodEvent.getPairMetricsReport().successorCount());
+        assertEquals(4, pairReport.pairCount());
+
+        // changes to a participant itself, which do not go through the lists of the event
+        double ageDifference = spinfoodEvent.getPairMetricsReport().averageAgeDifference();
+        pair1.getParticipant1().setAge(80);
+        assertNotEquals(ageDifference, spinfoodEvent.getPairMetricsReport().averageAgeDifference());
+
+        group.getGroupPairs().addAll(List.of(pair1, pair2, pair3));
+        spinfoodEvent.getGroups().add(group);
+        GroupMetricsReport groupReport = spinfoodEvent.getGroupMetricsReport();
+        assertEquals(1, groupReport.appetizerGroupCount());
+        assertEquals(0, groupReport.pairsWithoutGroupsCount());
+        assertEquals(3, groupReport.pairsWithGroupsCount());
+
+        spinfoodEvent.getPairs().add(pair4);
+        assertTrue(spinfoodEvent.getGroupMetricsReport().format().contains("Number of pairs without groups: 1"));
+        assertEquals(0, groupReport.pairsWithoutGroupsCount());
+    }
+
     /**
      * Test writing CSV for milestone 2 with invalid filepath.
      * This tests if an exception is correctly thrown when the file path is invalid.
@@ -918,6 +1248,22 @@ class SpinfoodEventTest {
         assertFalse(spinfoodEvent.getSuccessorParticipants().contains(Bob));
     }
 
+    /**
+     * Verifies that replacing a participant in a pair which is not in the event leaves the pairs of the event alone
+     */
+    @Test
+    void testReplaceParticipant_PairNotInEvent() {
+        spinfoodEvent.getPairs().add(pair1);
+        spinfoodEvent.setSuccessorParticipants(new ArrayList<>(List.of(Jane)));
+        Pair copy = new Pair(Alice, Bob, pair1.getFoodPreference(), false);
+
+        spinfoodEvent.replaceParticipant(copy, Bob);
+
+        assertEquals(Jane, copy.getParticipant2());
+        assertEquals(pair1, spinfoodEvent.findPairOf(Alice));
+        assertTrue(spinfoodEvent.getPairs().contains(pair1));
+    }
+
     /**
      * Tests the handling of cancelling a single participant when a successor is available.
      * This method verifies that after handling cancellation, the cancelled participant is replaced
@@ -955,6 +1301,8 @@ class SpinfoodEventTest {
 
         assertTrue(pair1.getParticipants().contains(Bob) && !pair1.getParticipants().contains(Joe) && !pair1.getParticipants().contains(Alice));
         assertFalse(spinfoodEvent.getPairs().contains(pair1));
+        assertNull(spinfoodEvent.findPairOf(Bob));
+        assertEquals(1, Collections.frequency(spinfoodEvent.getSuccessorParticipants(), Bob));
     }
 
     /**
@@ -1053,6 +1401,195 @@ class SpinfoodEventTest {
 
 
 
+    /**
+     * Tests that a cancelling pair of a real event is replaced by the same successor as a scan over all successors
+     * and all pairs of the event would choose, that the successor takes its place in each of its groups,
+     * and that the other groups are left as they were.
+     */
+    @Test
+    public void testHandleCancellingPair_SameSuccessorAsFullScan() {
+        spinfoodEvent.setSeed(1L);
+        spinfoodEvent.createInitialParticipantsAndPairs(Main.readCsv("Daten/teilnehmerliste.csv"));
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+        List<Pair> successors = spinfoodEvent.getSuccessorPairs();
+        KitchenLedger ledger = new KitchenLedger(spinfoodEvent.getPairs(), List.of());
+
+        Pair cancellingPair = null;
+        Pair expected = null;
+        for (Pair pair : spinfoodEvent.getPairs()) {
+            List<Pair> candidates = new ArrayList<>(successors);
+            for (Group group : spinfoodEvent.getGroups())
+                if (group.getGroupPairs().contains(pair))
+                    for (Pair other : group.getGroupPairs())
+                        if (other != pair)
+                            candidates.removeIf(candidate -> candidate == other || !GroupAlgorithm.isValidCandidateForGroup(other, candidate, ledger));
+            if (spinfoodEvent.isInGroup(pair) && !candidates.isEmpty()) {
+                cancellingPair = pair;
+                expected = candidates.getFirst();
+                break;
+            }
+        }
+        assertNotNull(cancellingPair);
+        Map<Group, List<Pair>> pairsBefore = new HashMap<>();
+        for (Group group : spinfoodEvent.getGroups())
+            pairsBefore.put(group, new ArrayList<>(group.getGroupPairs()));
+
+        spinfoodEvent.handleCancellingParticipant(cancellingPair.getParticipants());
+
+        assertFalse(spinfoodEvent.isInGroup(cancellingPair));
+        assertFalse(spinfoodEvent.getSuccessorPairs().contains(expected));
+        for (Group group : spinfoodEvent.getGroups()) {
+            List<Pair> before = pairsBefore.get(group);
+            for (int i = 0; i < before.size(); i++)
+                assertSame(before.get(i) == cancellingPair ? expected : before.get(i), group.getGroupPairs().get(i));
+        }
+        assertEquals(pairsBefore.size(), spinfoodEvent.getGroups().size());
+    }
+
+    /**
+     * Tests that the pairs whose participants all cancel are removed from the event one cancellation after the other
+     * as in a batch, and that the cancelling participants do not become successors.
+     */
+    @Test
+    public void testHandleCancellingParticipant_RemovesCancelledPairs() {
+        spinfoodEvent.setSeed(1L);
+        spinfoodEvent.createInitialParticipantsAndPairs(Main.readCsv("Daten/teilnehmerliste.csv"));
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+        Pair cancellingPair = spinfoodEvent.getPairs().get(5);
+        Pair halfCancelled = spinfoodEvent.getPairs().get(16);
+        List<Participant> cancelling = new ArrayList<>(cancellingPair.getParticipants());
+        cancelling.add(halfCancelled.getParticipant1());
+
+        spinfoodEvent.handleCancellingParticipant(cancelling);
+
+        assertFalse(spinfoodEvent.getPairs().contains(cancellingPair));
+        assertFalse(spinfoodEvent.isInGroup(cancellingPair));
+        for (Participant participant : cancelling) {
+            assertFalse(spinfoodEvent.getParticipants().contains(participant));
+            assertFalse(spinfoodEvent.getSuccessorParticipants().contains(participant));
+            assertFalse(spinfoodEvent.hasPartner(participant));
+        }
+        assertSuccessorsMatchScan();
+    }
+
+    /**
+     * Tests that a batch of cancellations leaves only valid groups without the cancelling participants,
+     * and that the successors are assigned together, so that a successor which fits several places
+     * is left to the place which has no other successor.
+     */
+    @Test
+    public void testHandleCancellationBatch_KeepsGroupsValid() {
+        assertArrayEquals(new int[]{1, 0}, SuccessorAssignment.assign(List.of(new int[]{0, 1}, new int[]{0}), 2));
+
+        spinfoodEvent.setSeed(1L);
+        spinfoodEvent.createInitialParticipantsAndPairs(Main.readCsv("Daten/teilnehmerliste.csv"));
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+        List<Participant> cancelling = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Pair pair = spinfoodEvent.getPairs().get(i * 11);
+            cancelling.addAll(i % 3 == 0 ? List.of(pair.getParticipant1()) : pair.getParticipants());
+        }
+
+        spinfoodEvent.handleCancellationBatch(cancelling);
+
+        Map<Pair, Integer> groupsOfPair = new HashMap<>();
+        for (Group group : spinfoodEvent.getGroups()) {
+            assertEquals(3, group.getGroupPairs().size());
+            assertTrue(group.getGroupPairs().contains(group.getKitchenOwner()));
+            for (Pair pair : group.getGroupPairs()) {
+                assertTrue(spinfoodEvent.getPairs().contains(pair));
+                groupsOfPair.merge(pair, 1, Integer::sum);
+                for (Pair other : group.getGroupPairs())
+                    assertTrue(pair == other || GroupAlgorithm.arePairsCompatible(pair, other));
+            }
+        }
+        for (int count : groupsOfPair.values())
+            assertEquals(3, count, "Every pair with groups should have one group per course");
+        for (Pair pair : spinfoodEvent.getPairs())
+            for (Participant participant : pair.getParticipants())
+                assertFalse(cancelling.contains(participant));
+        for (Participant participant : cancelling) {
+            assertFalse(spinfoodEvent.getParticipants().contains(participant));
+            assertFalse(spinfoodEvent.getSuccessorParticipants().contains(participant));
+        }
+    }
+
+    @Test
+    public void testSuccessorPool_FollowsPairAndGroupChanges() {
+        spinfoodEvent.setSeed(1L);
+        spinfoodEvent.createInitialParticipantsAndPairs(Main.readCsv("Daten/teilnehmerliste.csv"));
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+        assertSuccessorsMatchScan();
+
+        Pair pair = spinfoodEvent.getPairs().get(5);
+        spinfoodEvent.getPairs().remove(pair);
+        assertSuccessorsMatchScan();
+        assertTrue(spinfoodEvent.getSuccessorParticipants().containsAll(pair.getParticipants()));
+
+        Group group = spinfoodEvent.getGroups().get(0);
+        spinfoodEvent.getGroups().removeIf(other -> other.getGroupPairs().contains(group.getKitchenOwner()));
+        assertSuccessorsMatchScan();
+        assertTrue(spinfoodEvent.getSuccessorPairs().contains(group.getKitchenOwner()));
+
+        spinfoodEvent.getPairs().add(pair);
+        assertSuccessorsMatchScan();
+        assertFalse(spinfoodEvent.getSuccessorParticipants().contains(pair.getParticipant1()));
+    }
+
+    @Test
+    public void testProgress_ReportsClustersAndStopsWhenCancelled() {
+        spinfoodEvent.setSeed(1L);
+        spinfoodEvent.createInitialParticipantsAndPairs(Main.readCsv("Daten/teilnehmerliste.csv"));
+        EventSnapshot unpaired = spinfoodEvent.snapshot();
+        PairMatchingStrategy.GREEDY.matchPairs(spinfoodEvent, spinfoodEvent.getSuccessorParticipants(), 1, 2, 3);
+        List<Integer> clustersFormed = new ArrayList<>();
+        spinfoodEvent.setProgress(new AlgorithmProgress((step, done, total) -> {
+            assertEquals(AlgorithmProgress.Step.FORMING_CLUSTERS, step);
+            clustersFormed.add(done);
+        }));
+
+        spinfoodEvent.createGroups(1, 2, 3, 4, 5);
+
+        assertEquals(0, clustersFormed.getFirst());
+        assertEquals(spinfoodEvent.getGroups().size() / 9, clustersFormed.getLast());
+
+        AlgorithmProgress cancelled = new AlgorithmProgress();
+        cancelled.cancel();
+        SpinfoodEvent withoutGroups = spinfoodEvent.snapshot().newWorkingCopy(false);
+        withoutGroups.setProgress(cancelled);
+        withoutGroups.createGroupsMultiStart(1, 2, 3, 4, 5, 2, SpinfoodEvent.FEWEST_PAIRS_WITHOUT_GROUPS);
+        assertTrue(withoutGroups.getGroups().isEmpty());
+
+        SpinfoodEvent withoutPairs = unpaired.newWorkingCopy();
+        withoutPairs.setProgress(cancelled);
+        int pairCount = withoutPairs.getPairs().size();
+        PairMatchingStrategy.GREEDY.matchPairs(withoutPairs, withoutPairs.getSuccessorParticipants(), 1, 2, 3);
+        assertEquals(pairCount, withoutPairs.getPairs().size());
+    }
+
+    /**
+     * Compares the successors of the event with a walk over all participants and pairs.
+     */
+    private void assertSuccessorsMatchScan() {
+        Set<Participant> paired = new HashSet<>();
+        for (Pair pair : spinfoodEvent.getPairs())
+            paired.addAll(pair.getParticipants());
+        Set<Pair> grouped = new HashSet<>();
+        for (Group group : spinfoodEvent.getGroups())
+            grouped.addAll(group.getGroupPairs());
+        List<Participant> unpaired = spinfoodEvent.getParticipants().stream().filter(p -> !paired.contains(p)).toList();
+        List<Pair> ungrouped = spinfoodEvent.getPairs().stream().filter(p -> !grouped.contains(p)).toList();
+
+        assertEquals(unpaired, spinfoodEvent.getSuccessorParticipants());
+        assertEquals(unpaired.size(), spinfoodEvent.getSuccessorParticipantCount());
+        assertEquals(ungrouped, spinfoodEvent.getSuccessorPairs());
+        assertEquals(ungrouped.size(), spinfoodEvent.getSuccessorPairCount());
+    }
+
     /**
      * Tests the scenario where a cancelling pair is successfully replaced by a valid successor pair.
      */
@@ -1089,7 +1626,6 @@ class SpinfoodEventTest {
         spinfoodEvent.getPairs().add(pair1);
         spinfoodEvent.getPairs().add(pair2);
         spinfoodEvent.getPairs().add(pair3);
-        spinfoodEvent.getPairs().add(pair4);
         spinfoodEvent.getGroups().add(group);
 
         List<Pair> list = new ArrayList<>();
@@ -1147,6 +1683,114 @@ class SpinfoodEventTest {
         assertFalse(spinfoodEvent.getSuccessorPairs().contains(pair1), "pair1 should not be added to successorPairs");
     }
 
+    /**
+     * Tests that the participant index follows pairs which are added to and removed from the event,
+     * as it happens through the undo/redo edits of the pair screen.
+     */
+    @Test
+    public void testHasPartner_FollowsAddedAndRemovedPairs() {
+        spinfoodEvent.setParticipants(new ArrayList<>(Arrays.asList(Alice, Bob, Jane, Joe)));
+        spinfoodEvent.getPairs().add(pair1);
+
+        assertTrue(spinfoodEvent.hasPartner(Alice));
+        assertEquals(pair1, spinfoodEvent.findPairOf(Bob));
+        assertEquals(Arrays.asList(Jane, Joe), spinfoodEvent.getSuccessorParticipants());
+
+        spinfoodEvent.getPairs().remove(pair1);
+
+        assertFalse(spinfoodEvent.hasPartner(Alice));
+        assertNull(spinfoodEvent.findPairOf(Bob));
+        assertEquals(4, spinfoodEvent.getSuccessorParticipants().size());
+
+        spinfoodEvent.setPairs(Arrays.asList(pair2));
+        assertTrue(spinfoodEvent.hasPartner(Joe));
+        assertFalse(spinfoodEvent.hasPartner(Alice));
+    }
+
+    /**
+     * Tests that the pair-to-group index follows groups which are added, changed and removed,
+     * as it happens through the edits of the group screen.
+     */
+    @Test
+    public void testFindGroupOf_FollowsGroupChanges() {
+        spinfoodEvent.getPairs().add(pair1);
+        spinfoodEvent.getPairs().add(pair2);
+        spinfoodEvent.getGroups().add(group1);
+        group1.setGroupPairs(new ArrayList<>(Arrays.asList(pair1, pair2)));
+
+        assertSame(group1, spinfoodEvent.findGroupOf(pair2, Course.APPETIZER));
+        assertTrue(spinfoodEvent.getSuccessorPairs().isEmpty());
+
+        group1.getGroupPairs().remove(pair2);
+        group1.setCourse(Course.MAIN);
+
+        assertNull(spinfoodEvent.findGroupOf(pair1, Course.APPETIZER));
+        assertSame(group1, spinfoodEvent.findGroupOf(pair1, Course.MAIN));
+        assertFalse(spinfoodEvent.isInGroup(pair2));
+
+        spinfoodEvent.getGroups().remove(group1);
+
+        assertFalse(spinfoodEvent.isInGroup(pair1));
+        assertEquals(2, spinfoodEvent.getSuccessorPairs().size());
+    }
+
+    /**
+     * Tests that the participant table of the event follows changes of the participants.
+     */
+    @Test
+    public void testParticipantTable_FollowsParticipantChanges() {
+        ParticipantTable table = spinfoodEvent.getParticipantTable();
+        Jane.setKitchen(Alice.getKitchen());
+        spinfoodEvent.getParticipants().add(Alice);
+        spinfoodEvent.getParticipants().add(Jane);
+
+        assertEquals(table.getKitchenId(table.rowOf(Alice)), table.getKitchenId(table.rowOf(Jane)));
+        assertEquals(Alice.getAgeGroup(), table.getAgeGroup(table.rowOf(Alice)));
+        assertEquals(1, table.kitchenCount());
+
+        Jane.setKitchen(Bob.getKitchen());
+        Alice.setAge(60);
+        Alice.setFoodPreference(FoodPreference.VEGAN);
+
+        assertNotEquals(table.getKitchenId(table.rowOf(Alice)), table.getKitchenId(table.rowOf(Jane)));
+        assertEquals(8, table.getAgeGroup(table.rowOf(Alice)));
+        assertEquals(FoodPreference.VEGAN, table.getFoodPreference(table.rowOf(Alice)));
+        assertEquals(2, table.kitchenCount());
+
+        spinfoodEvent.getParticipants().remove(Alice);
+
+        assertEquals(-1, table.rowOf(Alice));
+        assertEquals(1, table.size());
+        assertEquals(0, table.rowOf(Jane));
+        assertEquals(Jane.getAgeGroup(), table.getAgeGroup(table.rowOf(Jane)));
+        assertEquals(1, table.kitchenCount(), "The kitchen id of a kitchen without rows should be given up");
+    }
+
+    /**
+     * Tests that the participants keep their rows in the table of the event when a working copy is created,
+     * and that the tables of the event and the copy both follow changes of the shared participants.
+     */
+    @Test
+    public void testParticipantTable_SharedWithWorkingCopy() {
+        spinfoodEvent.getParticipants().add(Alice);
+        spinfoodEvent.getParticipants().add(Jane);
+        SpinfoodEvent copy = spinfoodEvent.snapshot().newWorkingCopy();
+
+        assertTrue(spinfoodEvent.getParticipantTable().rowOf(Alice) >= 0);
+        assertTrue(copy.getParticipantTable().rowOf(Alice) >= 0);
+
+        ParticipantTable table = spinfoodEvent.getParticipantTable();
+        ParticipantTable copyTable = copy.getParticipantTable();
+        Alice.setAge(60);
+        assertEquals(8, table.getAgeGroup(table.rowOf(Alice)));
+        assertEquals(8, copyTable.getAgeGroup(copyTable.rowOf(Alice)));
+
+        Alice.getKitchen().setLocation(new Location(0.0, 0.0));
+        assertEquals(0.0, table.findKitchenDistance(table.rowOf(Alice), new Location(0.0, 0.0)));
+        Alice.getKitchen().getLocation().setLatitude(1.0);
+        assertEquals(1.0, copyTable.findKitchenDistance(copyTable.rowOf(Alice), new Location(0.0, 0.0)));
+    }
+
     /**
      * Tests the scenario where the replacing pair is the kitchen owner of the group.
      */
@@ -0,0 +1,23 @@
+package Controller;
+
+/**
+ * Thrown when a row of a participant file cannot be read.
+ * The message names the line of the file, so the row can be found and corrected.
+ */
+public class CsvFormatException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int lineNumber;
+
+    public CsvFormatException(int lineNumber, String message) {
+        super("Line " + lineNumber + ": " + message);
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return the line of the file (starting with 1 for the header) where the malformed row begins
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+}
@@ -4,6 +4,10 @@ import Model.*;
 import View.GUI;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -15,6 +19,8 @@ import java.util.List;
  * and printing summary information about participants and pairs.
  */
 public class Main {
+    // participant files larger than this are memory-mapped and parsed in parallel when the app imports them
+    private static final long MAPPED_IMPORT_THRESHOLD = 16L << 20;
 
     /**
      * Reads a CSV file from the specified file path and returns the data as a list of lists of strings.
@@ -23,20 +29,56 @@ public class Main {
      */
     public static List<List<String>> readCsv(String filepath) {
         List<List<String>> output = new ArrayList<>();
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(filepath));
+        try (BufferedReader br = new BufferedReader(new FileReader(filepath, StandardCharsets.UTF_8))) {
             String line = br.readLine();  // first line contains column headings, not the participant information
             while ((line = br.readLine()) != null) {
                 String[] participant = line.split(",");
                 output.add(Arrays.asList(participant));
             }
         } catch (FileNotFoundException e) {
-            throw new RuntimeException("File Not Found.");
+            throw new UncheckedIOException("File Not Found: " + filepath, e);
         } catch (IOException e) {
-            throw new RuntimeException("IO Exception.");
+            throw new UncheckedIOException("Cannot read " + filepath + " after line " + (output.size() + 1), e);
         }
         return output;
     }
+
+    /**
+     * Reads the participant file from the specified file path and adds all registrations directly to the event,
+     * without building the list of lists of strings which readCsv returns.
+     * Large files are memory-mapped and parsed in parallel, with the same result as reading them sequentially.
+     * @param filepath the path to the CSV file.
+     * @param event the event to add the participants, kitchens and registered pairs to.
+     * @throws CsvFormatException if a row of the file is malformed, naming the line of the row.
+     * @throws UncheckedIOException if the file cannot be read, naming the file and with the IOException as cause.
+     */
+    public static void importParticipants(String filepath, SpinfoodEvent event) {
+        importParticipants(filepath, event, MAPPED_IMPORT_THRESHOLD);
+    }
+
+    /**
+     * Same as {@link #importParticipants(String, SpinfoodEvent)}, with the size from which files are memory-mapped given.
+     * @param filepath the path to the CSV file.
+     * @param event the event to add the participants, kitchens and registered pairs to.
+     * @param mappedImportThreshold files larger than this number of bytes are memory-mapped and parsed in parallel.
+     */
+    static void importParticipants(String filepath, SpinfoodEvent event, long mappedImportThreshold) {
+        Path path = Path.of(filepath);
+        try {
+            if (Files.size(path) > mappedImportThreshold) {
+                MappedRegistrationImport.importInto(path, event);
+            } else {
+                try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+                    new RegistrationReader(reader).readInto(event);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("File Not Found: " + filepath, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + filepath, e);
+        }
+    }
+
     public static List<Group> getGroupsCluster(Group group, List<Group> eventGroups) {
         return GroupAlgorithm.findGroupsCluster(group, eventGroups);
     }
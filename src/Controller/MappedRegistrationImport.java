@@ -0,0 +1,156 @@
+package Controller;
+
+import Model.SpinfoodEvent;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports a large participant file by memory-mapping it and parsing it in parallel.
+ *
+ * The file is split into chunks which end at line breaks outside of quoted fields. Every chunk is
+ * parsed by its own RegistrationReader into registrations, and the registrations are then added to
+ * the event chunk by chunk in the order of the file. Kitchen deduplication, the order of the
+ * participants and pairs, and the reported line of a malformed row are therefore the same as
+ * with the sequential import.
+ */
+class MappedRegistrationImport {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * A line-aligned part of the mapped file.
+     */
+    private record Chunk(ByteBuffer bytes, int firstLineNumber, boolean containsHeader) {}
+
+    /**
+     * The registrations of a chunk, and the error which stopped the parsing of the chunk, if any.
+     */
+    private record ChunkResult(List<Registration> registrations, RuntimeException error) {}
+
+    private MappedRegistrationImport() {}
+
+    /**
+     * Reads all registrations of the file and adds them to the event.
+     * @param path the participant file
+     * @param event the event to add the participants, kitchens and registered pairs to
+     * @throws IOException if the file cannot be read
+     * @throws CsvFormatException if a row is malformed; all rows before it have been added to the event
+     */
+    static void importInto(Path path, SpinfoodEvent event) throws IOException {
+        long size = Files.size(path);
+        importInto(path, event, Math.max(1, (int) Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_CHUNK_SIZE)));
+    }
+
+    /**
+     * Reads all registrations of the file in about the given number of chunks and adds them to the event.
+     */
+    static void importInto(Path path, SpinfoodEvent event, int numberOfChunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                // a single mapping is limited to 2 GB, such files are read sequentially
+                new RegistrationReader(Channels.newReader(channel, StandardCharsets.UTF_8)).readInto(event);
+                return;
+            }
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            List<ChunkResult> results = split(file, numberOfChunks).parallelStream()
+                    .map(MappedRegistrationImport::parse)
+                    .toList();
+
+            for (ChunkResult result : results) {
+                for (Registration registration : result.registrations())
+                    registration.addTo(event);
+                if (result.error() instanceof UncheckedIOException e)
+                    throw e.getCause();
+                if (result.error() != null)
+                    throw result.error();
+            }
+        }
+    }
+
+    /**
+     * Splits the file into about the given number of chunks. A chunk ends after a line break which is
+     * not inside a quoted field, so that every chunk starts at the beginning of a row.
+     */
+    private static List<Chunk> split(ByteBuffer file, int numberOfChunks) {
+        List<Chunk> chunks = new ArrayList<>(numberOfChunks);
+        int size = file.limit();
+        int chunkStart = 0;
+        int chunkFirstLine = 1;
+        int line = 1;
+        boolean inQuotes = false;
+        int nextTarget = size / numberOfChunks;
+        for (int i = 0; i < size; i++) {
+            byte b = file.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' || (b == '\r' && (i + 1 >= size || file.get(i + 1) != '\n'))) {
+                // a row ends at \n, \r\n or a lone \r, like in RegistrationReader
+                line++;
+                if (!inQuotes && i + 1 >= nextTarget && i + 1 < size) {
+                    chunks.add(new Chunk(file.slice(chunkStart, i + 1 - chunkStart), chunkFirstLine, chunkStart == 0));
+                    chunkStart = i + 1;
+                    chunkFirstLine = line;
+                    nextTarget = chunkStart + size / numberOfChunks;
+                }
+            }
+        }
+        chunks.add(new Chunk(file.slice(chunkStart, size - chunkStart), chunkFirstLine, chunkStart == 0));
+        return chunks;
+    }
+
+    private static ChunkResult parse(Chunk chunk) {
+        List<Registration> registrations = new ArrayList<>();
+        Reader characters = new InputStreamReader(new ByteBufferInputStream(chunk.bytes()), StandardCharsets.UTF_8);
+        RegistrationReader reader = new RegistrationReader(characters, chunk.firstLineNumber());
+        try {
+            if (chunk.containsHeader())
+                reader.skipRow();
+            Registration registration;
+            while ((registration = reader.nextRegistration()) != null)
+                registrations.add(registration);
+        } catch (IOException e) {
+            return new ChunkResult(registrations, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            return new ChunkResult(registrations, e);
+        }
+        return new ChunkResult(registrations, null);
+    }
+
+    /**
+     * Reads the bytes of a chunk of the mapped file.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        private ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!bytes.hasRemaining())
+                return -1;
+            int n = Math.min(len, bytes.remaining());
+            bytes.get(b, off, n);
+            return n;
+        }
+    }
+}
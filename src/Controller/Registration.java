@@ -0,0 +1,18 @@
+package Controller;
+
+import Model.KitchenExists;
+import Model.Participant;
+import Model.SpinfoodEvent;
+
+/**
+ * A single parsed row of a participant file, which has not been added to an event yet.
+ * Keeping the parsed rows apart from the event allows the rows to be parsed in parallel
+ * and still be added to the event in the order of the file.
+ */
+record Registration(Participant participant1, Participant participant2, KitchenExists kitchenExists,
+                    Integer kitchenStory, Double kitchenLongitude, Double kitchenLatitude) {
+
+    void addTo(SpinfoodEvent event) {
+        event.addRegistration(participant1, participant2, kitchenExists, kitchenStory, kitchenLongitude, kitchenLatitude);
+    }
+}
@@ -0,0 +1,310 @@
+package Controller;
+
+import Model.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a participant file row by row and adds each registration directly to a SpinfoodEvent,
+ * without building the intermediate list of strings of {@link Main#readCsv(String)}.
+ *
+ * The reader reuses one character buffer for the file and one for the current row, and only creates
+ * strings for ids and names. Food preferences, genders and kitchen availability are matched against the
+ * enum constants directly, and numbers are parsed from the characters wherever this is exact.
+ * Fields may be quoted ("..."), in which case they can contain commas, line breaks and doubled quotes.
+ * The columns are interpreted the same way as in {@link SpinfoodEvent#createInitialParticipantsAndPairs(java.util.List)}.
+ */
+public class RegistrationReader {
+    private static final int COLUMNS_OF_SINGLE = 7; // up to Kitchen (yes/no/maybe)
+    private static final int COLUMNS_OF_PAIR = 14;
+    private static final FoodPreference[] FOOD_PREFERENCES = FoodPreference.values();
+    private static final Gender[] GENDERS = Gender.values();
+    private static final KitchenExists[] KITCHEN_EXISTS = KitchenExists.values();
+    // all powers of ten up to 10^22 are exact doubles, so dividing by them rounds correctly
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Reader in;
+    private final char[] buffer = new char[1 << 16];
+    private int position;
+    private int limit;
+
+    private char[] row = new char[256];
+    private int rowLength;
+    private int[] fieldStart = new int[COLUMNS_OF_PAIR];
+    private int[] fieldEnd = new int[COLUMNS_OF_PAIR];
+    private int fieldCount;
+
+    private int lineNumber;
+    private int rowLineNumber;
+
+    public RegistrationReader(Reader in) {
+        this(in, 1);
+    }
+
+    /**
+     * Creates a reader for a part of a file.
+     * @param in the characters to read
+     * @param firstLineNumber the line of the file the first character belongs to, used in error messages
+     */
+    RegistrationReader(Reader in, int firstLineNumber) {
+        this.in = in;
+        this.lineNumber = firstLineNumber;
+    }
+
+    /**
+     * Reads all registrations and adds them to the event.
+     * The first row contains the column headings and is skipped, empty rows are ignored.
+     * @param event the event to add the participants, kitchens and registered pairs to
+     * @return the number of registrations read
+     * @throws IOException if the file cannot be read
+     * @throws CsvFormatException if a row is malformed
+     */
+    public int readInto(SpinfoodEvent event) throws IOException {
+        if (!skipRow())
+            return 0;
+        int count = 0;
+        Registration registration;
+        while ((registration = nextRegistration()) != null) {
+            registration.addTo(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Skips the next row, e.g. the column headings.
+     * @return false if the end of the file has been reached
+     */
+    boolean skipRow() throws IOException {
+        return nextRow();
+    }
+
+    /**
+     * Reads the next non-empty row.
+     * @return the registration of the row, or null if the end of the file has been reached
+     * @throws CsvFormatException if the row is malformed
+     */
+    Registration nextRegistration() throws IOException {
+        while (nextRow()) {
+            if (fieldCount > 0)
+                return parseRegistration();
+        }
+        return null;
+    }
+
+    /**
+     * Parses the fields of the current row into a registration.
+     */
+    private Registration parseRegistration() {
+        if (fieldCount < COLUMNS_OF_SINGLE)
+            throw error("expected at least " + COLUMNS_OF_SINGLE + " columns, but found " + fieldCount);
+        // first column (index 0) contains only entry number, and is not needed
+        String id = text(1);
+        String name = text(2);
+        FoodPreference foodPreference = constant(3, FOOD_PREFERENCES, "food preference");
+        int age = (int) number(4, "age");
+        Gender gender = constant(5, GENDERS, "gender");
+        KitchenExists kitchenExists = constant(6, KITCHEN_EXISTS, "kitchen");
+        Integer kitchenStory = null;
+        Double kitchenLongitude = null;
+        Double kitchenLatitude = null;
+
+        if (fieldCount > 7)
+            kitchenStory = isEmpty(7) ? 0 : (int) number(7, "kitchen story");
+        if (fieldCount > 8) {
+            if (fieldCount < 10)
+                throw error("kitchen latitude is missing");
+            kitchenLongitude = number(8, "kitchen longitude");
+            kitchenLatitude = number(9, "kitchen latitude");
+        }
+
+        Participant participant1 = new Participant(id, name, foodPreference, age, gender, null);
+        Participant participant2 = null;
+        if (fieldCount == COLUMNS_OF_PAIR) {
+            int age2 = (int) number(12, "age of the second participant");
+            Gender gender2 = constant(13, GENDERS, "gender of the second participant");
+            participant2 = new Participant(text(10), text(11), foodPreference, age2, gender2, null);
+        }
+        return new Registration(participant1, participant2, kitchenExists, kitchenStory, kitchenLongitude, kitchenLatitude);
+    }
+
+    /**
+     * Reads the next row into the row buffer and records where its fields start and end.
+     * Trailing empty fields are dropped, like String.split does for the rows of readCsv.
+     * @return false if the end of the file has been reached
+     */
+    private boolean nextRow() throws IOException {
+        rowLength = 0;
+        fieldCount = 0;
+        rowLineNumber = lineNumber;
+        int c = read();
+        if (c < 0)
+            return false;
+
+        int fieldBegin = 0;
+        boolean inQuotes = false;
+        boolean afterQuotes = false;
+        while (true) {
+            if (c < 0) {
+                if (inQuotes)
+                    throw error("quoted field is not closed");
+                endField(fieldBegin);
+                break;
+            }
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        inQuotes = false;
+                        afterQuotes = true;
+                    }
+                } else {
+                    if (ch == '\n' || (ch == '\r' && peek() != '\n'))
+                        lineNumber++;
+                    append(ch);
+                }
+            } else if (ch == ',') {
+                endField(fieldBegin);
+                fieldBegin = rowLength;
+                afterQuotes = false;
+            } else if (ch == '\n' || ch == '\r') {
+                if (ch == '\r' && peek() == '\n')
+                    read();
+                lineNumber++;
+                endField(fieldBegin);
+                break;
+            } else if (afterQuotes) {
+                throw error("unexpected character '" + ch + "' after a quoted field");
+            } else if (ch == '"' && rowLength == fieldBegin) {
+                inQuotes = true;
+            } else {
+                append(ch);
+            }
+            c = read();
+        }
+
+        while (fieldCount > 0 && isEmpty(fieldCount - 1))
+            fieldCount--;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0)
+            return false;
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private void append(char ch) {
+        if (rowLength == row.length)
+            row = Arrays.copyOf(row, row.length * 2);
+        row[rowLength++] = ch;
+    }
+
+    private void endField(int begin) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = begin;
+        fieldEnd[fieldCount] = rowLength;
+        fieldCount++;
+    }
+
+    private boolean isEmpty(int field) {
+        return fieldStart[field] == fieldEnd[field];
+    }
+
+    private String text(int field) {
+        return new String(row, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    /**
+     * Finds the enum constant whose name equals the field, ignoring the case (like valueOf(toUpperCase())).
+     */
+    private <E extends Enum<E>> E constant(int field, E[] constants, String column) {
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+        for (E constant : constants) {
+            String name = constant.name();
+            if (name.length() != length)
+                continue;
+            int i = 0;
+            while (i < length && Character.toUpperCase(row[start + i]) == name.charAt(i))
+                i++;
+            if (i == length)
+                return constant;
+        }
+        throw error(column + " has an unknown value \"" + text(field) + "\"");
+    }
+
+    /**
+     * Parses a decimal number. Plain numbers with up to 17 digits are computed directly from the characters,
+     * which gives exactly the result of Double.parseDouble; everything else is handed to Double.parseDouble.
+     */
+    private double number(int field, String column) {
+        if (isEmpty(field))
+            throw error(column + " is missing");
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        int i = start;
+        boolean negative = false;
+        if (row[i] == '-' || row[i] == '+') {
+            negative = row[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean point = false;
+        boolean simple = true;
+        for (; i < end && simple; i++) {
+            char ch = row[i];
+            if (ch >= '0' && ch <= '9') {
+                mantissa = mantissa * 10 + (ch - '0');
+                digits++;
+                if (point)
+                    decimals++;
+                simple = digits <= 17;
+            } else if (ch == '.' && !point) {
+                point = true;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple && digits > 0 && mantissa <= (1L << 53) && decimals < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[decimals];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(text(field));
+        } catch (NumberFormatException e) {
+            throw error(column + " is not a number: \"" + text(field) + "\"");
+        }
+    }
+
+    private CsvFormatException error(String message) {
+        return new CsvFormatException(rowLineNumber, message);
+    }
+}
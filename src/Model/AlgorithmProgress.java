@@ -0,0 +1,90 @@
+package Model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Follows a long run of the algorithms of an event (see SpinfoodEvent.setProgress): the algorithms report how far they are,
+ * e.g. how many pairs are matched or how many clusters of groups are formed, and check whether they should stop.
+ *
+ * The cancellation is cooperative: after cancel, the algorithms stop at their next check and leave the event with the pairs
+ * and groups formed so far, so a run which may be cancelled should work on a working copy (see SpinfoodEvent.snapshot).
+ * The reports may come from several threads at once (see SpinfoodEvent.createGroupsMultiStart), so the listener must be thread-safe.
+ */
+public class AlgorithmProgress {
+    /**
+     * The steps of the algorithms which are reported.
+     */
+    public enum Step {
+        MATCHING_PAIRS, // done and total are numbers of pairs
+        FORMING_CLUSTERS, // done and total are numbers of clusters of nine pairs, over all runs of the group matching
+        IMPROVING_GROUPS // done and total are milliseconds or moves of the local search
+    }
+
+    /**
+     * Receives the reports of the algorithms.
+     */
+    public interface Listener {
+        /**
+         * @param step the step the algorithms are at
+         * @param done how much of the step is done
+         * @param total how much there is to do in the step at most; the step may also end before
+         */
+        void progressed(Step step, int done, int total);
+    }
+
+    private final Listener listener;
+    private volatile boolean cancelled;
+    private volatile Step step;
+    private volatile int total;
+    private final AtomicInteger done = new AtomicInteger();
+
+    /**
+     * Creates a progress without reports, which can only be cancelled.
+     */
+    public AlgorithmProgress() {
+        this((step, done, total) -> {});
+    }
+
+    /**
+     * @param listener receives the reports of the algorithms
+     */
+    public AlgorithmProgress(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks the algorithms to stop at their next check.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Starts a step with nothing done.
+     */
+    void begin(Step step, int total) {
+        this.step = step;
+        this.total = total;
+        done.set(0);
+        listener.progressed(step, 0, total);
+    }
+
+    /**
+     * Reports one more unit of the current step as done.
+     */
+    void advance() {
+        listener.progressed(step, done.incrementAndGet(), total);
+    }
+
+    /**
+     * Reports how much of the current step is done.
+     */
+    void advanceTo(int done) {
+        this.done.set(done);
+        listener.progressed(step, done, total);
+    }
+}
@@ -0,0 +1,204 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * The participants which can still be chosen as partners during the pair matching.
+ *
+ * When the pool is created, the row of each participant in the participant table of the event is looked up once,
+ * and the participants are classified by their position in the list: by the existence of their kitchen,
+ * by food preference, age group and gender, and which of them have no partner yet.
+ * The candidates of each pass of the matching (see PairAlgorithm.handlePairMatchingWithPreference) are then selected
+ * by combining these bitsets, and the rules of PairAlgorithm.findValidCandidates are checked for each candidate
+ * with the bitsets and the kitchen ids in the rows of the table instead of the participant objects.
+ * The rows stay valid as long as no participant leaves the event, i.e. during one matching.
+ */
+class CandidatePool {
+    private static final BitSet NONE = new BitSet();
+
+    private final List<Participant> participants;
+    private final Map<Participant, Integer> positions = new IdentityHashMap<>();
+    private final BitSet available = new BitSet();
+    private final BitSet[] kitchenExists = newBitSets(KitchenExists.values().length);
+    private final BitSet[] foodPreference = newBitSets(FoodPreference.values().length);
+    private final BitSet[] ageGroup = newBitSets(9);
+    private final BitSet[] gender = newBitSets(Gender.values().length);
+    private final BitSet meat;
+    private final BitSet vegetarian = new BitSet();
+    private final int[] rows;
+    private final ParticipantTable table;
+
+    /**
+     * @param participants the participants to match, in the order in which they should be offered
+     * @param table the participant table of the event, which must contain all participants
+     * @param event the event, whose participants with a partner are not available
+     */
+    CandidatePool(List<Participant> participants, ParticipantTable table, SpinfoodEvent event) {
+        this.participants = participants;
+        this.table = table;
+        this.rows = new int[participants.size()];
+        for (int i = 0; i < participants.size(); i++) {
+            Participant participant = participants.get(i);
+            rows[i] = table.rowOf(participant);
+            if (rows[i] < 0)
+                throw new IllegalArgumentException("Participant " + participant.getId() + " is not in the participant table");
+            if (positions.putIfAbsent(participant, i) != null) // a participant is only offered once
+                continue;
+            if (!event.hasPartner(participant))
+                available.set(i);
+            Kitchen kitchen = participant.getKitchen();
+            if (kitchen == null)
+                kitchenExists[KitchenExists.NO.ordinal()].set(i);
+            else if (kitchen.getExists() == KitchenExists.YES || kitchen.getExists() == KitchenExists.MAYBE)
+                kitchenExists[kitchen.getExists().ordinal()].set(i);
+            FoodPreference preference = table.getFoodPreference(rows[i]);
+            if (preference != null)
+                foodPreference[preference.ordinal()].set(i);
+            int group = table.getAgeGroup(rows[i]);
+            if (group >= 0 && group < ageGroup.length)
+                ageGroup[group].set(i);
+            Gender participantGender = table.getGender(rows[i]);
+            if (participantGender != null)
+                gender[participantGender.ordinal()].set(i);
+        }
+        meat = foodPreference[FoodPreference.MEAT.ordinal()];
+        vegetarian.or(foodPreference[FoodPreference.VEGGIE.ordinal()]);
+        vegetarian.or(foodPreference[FoodPreference.VEGAN.ordinal()]);
+    }
+
+    private static BitSet[] newBitSets(int length) {
+        BitSet[] bitSets = new BitSet[length];
+        for (int i = 0; i < length; i++)
+            bitSets[i] = new BitSet();
+        return bitSets;
+    }
+
+    /**
+     * @return the number of positions in the pool
+     */
+    int size() {
+        return participants.size();
+    }
+
+    /**
+     * @return the participant at the position
+     */
+    Participant get(int position) {
+        return participants.get(position);
+    }
+
+    /**
+     * @return the row of the participant at the position in the participant table
+     */
+    int row(int position) {
+        return rows[position];
+    }
+
+    /**
+     * @return the participant table the rows belong to
+     */
+    ParticipantTable table() {
+        return table;
+    }
+
+    /**
+     * @return the first position of the participant in the pool, or -1 if the participant is not in the pool
+     */
+    int positionOf(Participant participant) {
+        Integer position = positions.get(participant);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * @return how certain the kitchen of the participant at the position exists (NO if the participant has none)
+     */
+    KitchenExists kitchenExists(int position) {
+        if (kitchenExists[KitchenExists.YES.ordinal()].get(position))
+            return KitchenExists.YES;
+        return kitchenExists[KitchenExists.MAYBE.ordinal()].get(position) ? KitchenExists.MAYBE : KitchenExists.NO;
+    }
+
+    /**
+     * @return true if the participant at the position has no partner yet
+     */
+    boolean isAvailable(int position) {
+        return available.get(position);
+    }
+
+    /**
+     * Selects the participants whose kitchen exists as given, in the way of PairAlgorithm.findParticipantsWithSpecificKitchenExists.
+     * @return the positions of the participants, a new bitset which may be changed
+     */
+    BitSet select(KitchenExists exists) {
+        return (BitSet) kitchenExists[exists.ordinal()].clone();
+    }
+
+    /**
+     * @return the positions of the participants whose kitchen exists as given and who have the food preference
+     */
+    BitSet select(KitchenExists exists, FoodPreference preference) {
+        BitSet selected = select(exists);
+        selected.and(foodPreference[preference.ordinal()]);
+        return selected;
+    }
+
+    /**
+     * @return the positions of the participants whose kitchen exists as given and who are in the age group
+     */
+    BitSet select(KitchenExists exists, int group) {
+        BitSet selected = select(exists);
+        selected.and(ageGroup[group]);
+        return selected;
+    }
+
+    /**
+     * @return the positions of the participants whose kitchen exists as given and who have the gender
+     */
+    BitSet select(KitchenExists exists, Gender participantGender) {
+        BitSet selected = select(exists);
+        selected.and(gender[participantGender.ordinal()]);
+        return selected;
+    }
+
+    /**
+     * Checks the rules for the candidates of a participant: available, not the participant itself,
+     * no MEAT with VEGGIE/VEGAN (criteria 6.1) and not the same kitchen (criteria 6.5).
+     * @param position the position of the participant who is looking for a partner
+     * @return a test of the positions of the candidates, which is true for the valid candidates
+     */
+    IntPredicate validCandidatesOf(int position) {
+        int ownPosition = positionOf(participants.get(position));
+        FoodPreference preference = table.getFoodPreference(rows[position]);
+        BitSet incompatible = preference == FoodPreference.MEAT ? vegetarian
+                : preference == FoodPreference.VEGGIE || preference == FoodPreference.VEGAN ? meat : NONE;
+        int kitchen = table.getKitchenId(rows[position]);
+        return candidate -> candidate != ownPosition && available.get(candidate) && !incompatible.get(candidate)
+                && (kitchen == ParticipantTable.NO_VALUE || table.getKitchenId(rows[candidate]) != kitchen);
+    }
+
+    /**
+     * Finds the available candidates which may be matched with the participant (see validCandidatesOf).
+     * @param participant a participant of the pool who is looking for a partner
+     * @return the valid candidates, in the order of the list the pool was created with
+     */
+    List<Participant> findValidCandidates(Participant participant) {
+        IntPredicate valid = validCandidatesOf(positionOf(participant));
+        List<Participant> result = new ArrayList<>();
+        for (int i = available.nextSetBit(0); i >= 0; i = available.nextSetBit(i + 1))
+            if (valid.test(i))
+                result.add(participants.get(i));
+        return result;
+    }
+
+    /**
+     * Takes the participant at the position, who has found a partner, out of the pool.
+     */
+    void remove(int position) {
+        available.clear(position);
+    }
+}
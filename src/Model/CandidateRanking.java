@@ -0,0 +1,207 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Ranks the candidates for a participant by food preference, age group and gender in the order of the given priorities.
+ *
+ * The three criteria are combined into a single number per candidate, with the criterion of the highest priority
+ * in the most significant bits and the position of the candidate in the list in the lowest bits.
+ * Comparing these numbers gives the same order as sorting the candidates by each criterion in turn
+ * (see PairAlgorithm.sortByBestCandidates), so the best candidate can be found in a single pass.
+ * A ranking for a participant of a CandidatePool reads the participants from their rows in the participant table.
+ */
+class CandidateRanking {
+    private static final int FOOD_PREFERENCE = 0;
+    private static final int AGE_DIFFERENCE = 1;
+    private static final int GENDER_DIVERSITY = 2;
+    private static final int BITS_PER_CRITERION = 4;
+
+    private final CandidatePool pool; // null if the candidates are ranked from the participant objects
+    private final int position;
+    private final FoodPreference foodPreference;
+    private final int ageGroup;
+    private final Gender gender;
+    // the shift of each criterion in the key, or -1 if the criterion is not ranked
+    private final int[] shift = new int[3];
+
+    /**
+     * @param foodPreference the priority for food preference
+     * @param ageDifference the priority for age difference
+     * @param genderDiversity the priority for gender diversity
+     * @param restrictedToPriorityOnePreference if the candidates all fulfil the priority-1-preference already,
+     *                                          so that it is not ranked
+     * @param participant the participant to rank the candidates for
+     */
+    CandidateRanking(int foodPreference, int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference,
+                     Participant participant) {
+        this(foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, null, -1,
+                participant.getFoodPreference(), participant.getAgeGroup(), participant.getGender());
+    }
+
+    /**
+     * Ranks the candidates of the pool for the participant at the position (see findBest(BitSet...)).
+     * @param pool the pool of the matching
+     * @param position the position of the participant to rank the candidates for
+     */
+    CandidateRanking(int foodPreference, int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference,
+                     CandidatePool pool, int position) {
+        this(foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, pool, position,
+                pool.table().getFoodPreference(pool.row(position)), pool.table().getAgeGroup(pool.row(position)),
+                pool.table().getGender(pool.row(position)));
+    }
+
+    private CandidateRanking(int foodPreference, int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference,
+                             CandidatePool pool, int position, FoodPreference participantFoodPreference, int participantAgeGroup,
+                             Gender participantGender) {
+        this.pool = pool;
+        this.position = position;
+        this.foodPreference = participantFoodPreference;
+        this.ageGroup = participantAgeGroup;
+        this.gender = participantGender;
+
+        // the same order of criteria as the sorting in PairAlgorithm.sortByBestCandidates
+        int[] order;
+        if (foodPreference < ageDifference && foodPreference < genderDiversity)
+            order = ageDifference < genderDiversity
+                    ? new int[] {FOOD_PREFERENCE, AGE_DIFFERENCE, GENDER_DIVERSITY}
+                    : new int[] {FOOD_PREFERENCE, GENDER_DIVERSITY, AGE_DIFFERENCE};
+        else if (ageDifference < foodPreference && ageDifference < genderDiversity)
+            order = foodPreference < genderDiversity
+                    ? new int[] {AGE_DIFFERENCE, FOOD_PREFERENCE, GENDER_DIVERSITY}
+                    : new int[] {AGE_DIFFERENCE, GENDER_DIVERSITY, FOOD_PREFERENCE};
+        else
+            order = foodPreference < ageDifference
+                    ? new int[] {GENDER_DIVERSITY, FOOD_PREFERENCE, AGE_DIFFERENCE}
+                    : new int[] {GENDER_DIVERSITY, AGE_DIFFERENCE, FOOD_PREFERENCE};
+        for (int i = 0; i < order.length; i++)
+            shift[order[i]] = 32 + BITS_PER_CRITERION * (order.length - 1 - i);
+        if (restrictedToPriorityOnePreference)
+            shift[order[0]] = -1;
+    }
+
+    /**
+     * @param candidate a candidate
+     * @param position the position of the candidate in its list, which decides between equally good candidates
+     * @return the rank of the candidate, lower is better
+     */
+    long rank(Participant candidate, int position) {
+        return rank(candidate.getFoodPreference(), shift[AGE_DIFFERENCE] >= 0 ? candidate.getAgeGroup() : 0, candidate.getGender(), position);
+    }
+
+    private long rank(FoodPreference candidateFoodPreference, int candidateAgeGroup, Gender candidateGender, long position) {
+        long rank = position;
+        if (shift[FOOD_PREFERENCE] >= 0) // 1 to 4, or 5 if the candidate has no food preference
+            rank |= (long) Math.min(PairAlgorithm.getFoodPreferencePriority(foodPreference, candidateFoodPreference), 5)
+                    << shift[FOOD_PREFERENCE];
+        if (shift[AGE_DIFFERENCE] >= 0) // 0 to 8, or 9 if the candidate has no age
+            rank |= (long) Math.min(Math.abs(candidateAgeGroup - ageGroup), 9) << shift[AGE_DIFFERENCE];
+        if (shift[GENDER_DIVERSITY] >= 0) // different gender first
+            rank |= (gender == candidateGender ? 1L : 0L) << shift[GENDER_DIVERSITY];
+        return rank;
+    }
+
+    /**
+     * @param candidates the candidates for the participant
+     * @return the best candidate, or null if there are no candidates
+     */
+    Participant findBest(List<Participant> candidates) {
+        int best = -1;
+        long bestRank = Long.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            long rank = rank(candidates.get(i), i);
+            if (rank < bestRank) {
+                bestRank = rank;
+                best = i;
+            }
+        }
+        return best < 0 ? null : candidates.get(best);
+    }
+
+    /**
+     * Finds the best valid candidate in the pool of the ranking (see CandidatePool.validCandidatesOf) without collecting
+     * the candidates: the selected positions are read from the bitsets one by one and ranked right away
+     * from their rows in the participant table.
+     * @param selections the positions of the candidates in the pool; the candidates of a later selection come after
+     *                   those of an earlier one if they are equally good
+     * @return the position of the best candidate, or -1 if there are no valid candidates
+     */
+    int findBest(BitSet... selections) {
+        IntPredicate valid = pool.validCandidatesOf(position);
+        ParticipantTable table = pool.table();
+        int best = -1;
+        long bestRank = Long.MAX_VALUE;
+        for (int s = 0; s < selections.length; s++) {
+            long offset = (long) s * pool.size();
+            for (int i = selections[s].nextSetBit(0); i >= 0; i = selections[s].nextSetBit(i + 1)) {
+                if (!valid.test(i))
+                    continue;
+                int row = pool.row(i);
+                long rank = rank(table.getFoodPreference(row), table.getAgeGroup(row), table.getGender(row), offset + i);
+                if (rank < bestRank) {
+                    bestRank = rank;
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param candidates the candidates for the participant
+     * @param k the number of candidates to return
+     * @return the k best candidates, the best first
+     */
+    List<Participant> findBest(List<Participant> candidates, int k) {
+        // a heap of the best ranks found so far, with the worst of them at the root
+        long[] heap = new long[Math.max(0, Math.min(k, candidates.size()))];
+        int size = 0;
+        for (int i = 0; i < candidates.size() && heap.length > 0; i++) {
+            long rank = rank(candidates.get(i), i);
+            if (size < heap.length) {
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] < rank) {
+                    heap[child] = heap[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                heap[child] = rank;
+            } else if (rank < heap[0]) {
+                int parent = 0;
+                while (2 * parent + 1 < size) {
+                    int child = 2 * parent + 1;
+                    if (child + 1 < size && heap[child + 1] > heap[child])
+                        child++;
+                    if (heap[child] <= rank)
+                        break;
+                    heap[parent] = heap[child];
+                    parent = child;
+                }
+                heap[parent] = rank;
+            }
+        }
+        Arrays.sort(heap, 0, size);
+        List<Participant> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            result.add(candidates.get((int) heap[i]));
+        return result;
+    }
+
+    /**
+     * @param candidates the candidates for the participant
+     * @return all candidates, the best first
+     */
+    List<Participant> sort(List<Participant> candidates) {
+        long[] ranks = new long[candidates.size()];
+        for (int i = 0; i < ranks.length; i++)
+            ranks[i] = rank(candidates.get(i), i);
+        Arrays.sort(ranks);
+        List<Participant> result = new ArrayList<>(ranks.length);
+        for (long rank : ranks)
+            result.add(candidates.get((int) rank));
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package Model;
+
+/**
+ * The running aggregates of a cluster of pairs which GroupAlgorithm.calculatePairScore compares a candidate with:
+ * the sums of the average food preference values, average age groups and female proportions of the pairs,
+ * their number, and the largest distance of their kitchens to the after dinner party.
+ *
+ * Adding a pair updates the aggregates in place, so a candidate is scored in constant time
+ * without building the cluster with the candidate as a new list.
+ */
+class ClusterAccumulator {
+    private final Location partyLocation;
+    private final DistanceModel distanceModel;
+    private int size;
+    private double sumFoodPreferenceValue;
+    private double sumAgeGroup;
+    private double sumFemaleProportion;
+    private double maxDistance;
+
+    /**
+     * @param partyLocation the location of the after dinner party, used for the distances of the kitchens
+     */
+    ClusterAccumulator(Location partyLocation) {
+        this(partyLocation, DistanceModel.EUCLIDEAN);
+    }
+
+    /**
+     * @param partyLocation the location of the after dinner party, used for the distances of the kitchens
+     * @param distanceModel the way of measuring the distances of the kitchens
+     */
+    ClusterAccumulator(Location partyLocation, DistanceModel distanceModel) {
+        this.partyLocation = partyLocation;
+        this.distanceModel = distanceModel;
+    }
+
+    /**
+     * Adds a pair to the aggregates of the cluster.
+     */
+    void add(Pair pair) {
+        size++;
+        sumFoodPreferenceValue += pair.getAverageFoodPreferenceValue();
+        sumAgeGroup += pair.getAverageAgeGroup();
+        sumFemaleProportion += femaleProportion(pair);
+        maxDistance = Math.max(maxDistance, pair.getDistanceToParty(partyLocation, distanceModel));
+    }
+
+    /**
+     * Empties the cluster, so that the accumulator can be used for another one.
+     */
+    void clear() {
+        size = 0;
+        sumFoodPreferenceValue = 0;
+        sumAgeGroup = 0;
+        sumFemaleProportion = 0;
+        maxDistance = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the average food preference value of the cluster, 0.0 for an empty cluster
+     */
+    double getAverageFoodPreferenceValue() {
+        return size == 0 ? 0.0 : sumFoodPreferenceValue / size;
+    }
+
+    /**
+     * @return the average age group of the cluster, 0.0 for an empty cluster
+     */
+    double getAverageAgeGroup() {
+        return size == 0 ? 0.0 : sumAgeGroup / size;
+    }
+
+    /**
+     * @return the female proportion of the cluster with the candidate added
+     */
+    double getFemaleProportionWith(Pair candidate) {
+        return (sumFemaleProportion + femaleProportion(candidate)) / (size + 1);
+    }
+
+    /**
+     * @return the score of GroupAlgorithm.getPathLengthScore for adding the candidate to the cluster
+     */
+    double getPathLengthScoreWith(Pair candidate) {
+        double newDistance = Math.max(maxDistance, candidate.getDistanceToParty(partyLocation, distanceModel));
+        if (newDistance <= maxDistance) // no increase in distance
+            return 1.0;
+        else if ((newDistance - maxDistance) > maxDistance) // more than double the old distance
+            return 0.0;
+        else return 1 - (newDistance - maxDistance) / maxDistance;
+    }
+
+    /**
+     * Same as Metrics.measurePairFemaleProportion, without storing the result in the pair.
+     */
+    private static double femaleProportion(Pair pair) {
+        int countFemale = 0;
+        if (pair.getParticipant1().getGender() == Gender.FEMALE) countFemale++;
+        if (pair.getParticipant2().getGender() == Gender.FEMALE) countFemale++;
+        return (double) countFemale / 2;
+    }
+}
@@ -0,0 +1,95 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The candidates for a cluster, ordered by their score in a max-heap.
+ *
+ * The score of each candidate is computed once when the queue is rescored, i.e. whenever the cluster has changed,
+ * and is kept with the candidate until the next rescoring instead of being computed again for every comparison.
+ * Candidates with the same score are ordered by a random tie breaker, which is drawn once per candidate.
+ */
+class ClusterCandidateQueue {
+    private final Pair[] candidates;
+    private final double[] scores;
+    private final int[] tieBreakers;
+    // the positions of the remaining candidates, as a heap with the best candidate at the root
+    private final int[] heap;
+    private int size;
+
+    /**
+     * @param candidates the candidates, all of them are in the queue at first
+     * @param random the source of the tie breakers
+     */
+    ClusterCandidateQueue(List<Pair> candidates, Random random) {
+        this.candidates = candidates.toArray(new Pair[0]);
+        this.scores = new double[this.candidates.length];
+        this.tieBreakers = new int[this.candidates.length];
+        this.heap = new int[this.candidates.length];
+        for (int i = 0; i < this.candidates.length; i++) {
+            tieBreakers[i] = random.nextInt();
+            heap[i] = i;
+        }
+        this.size = this.candidates.length;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Computes the score of every remaining candidate once and restores the heap order.
+     * @param score the score of a candidate, higher is better
+     */
+    void rescore(ToDoubleFunction<Pair> score) {
+        for (int i = 0; i < size; i++)
+            scores[heap[i]] = score.applyAsDouble(candidates[heap[i]]);
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(i);
+    }
+
+    /**
+     * Takes the best remaining candidate out of the queue.
+     * @return the candidate with the highest score since the last rescoring, or null if the queue is empty
+     */
+    Pair poll() {
+        if (size == 0)
+            return null;
+        int best = heap[0];
+        heap[0] = heap[--size];
+        siftDown(0);
+        return candidates[best];
+    }
+
+    /**
+     * @return the candidates which have not been taken out of the queue yet
+     */
+    List<Pair> remaining() {
+        List<Pair> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            result.add(candidates[heap[i]]);
+        return result;
+    }
+
+    private void siftDown(int parent) {
+        int position = heap[parent];
+        while (2 * parent + 1 < size) {
+            int child = 2 * parent + 1;
+            if (child + 1 < size && isBetter(heap[child + 1], heap[child]))
+                child++;
+            if (!isBetter(heap[child], position))
+                break;
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = position;
+    }
+
+    private boolean isBetter(int candidate, int other) {
+        int compare = Double.compare(scores[candidate], scores[other]);
+        return compare > 0 || (compare == 0 && tieBreakers[candidate] < tieBreakers[other]);
+    }
+}
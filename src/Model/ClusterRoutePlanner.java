@@ -0,0 +1,140 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Chooses which pairs of a cluster of nine cook the appetizer, the main course and the dessert,
+ * so that the sum of the path lengths of the nine pairs (see Metrics.measurePathLength) is as small as possible.
+ *
+ * In the groups of CLUSTER_GROUPS, every group of a course has one cook of the course and one cook of each other course
+ * as guests, and no two pairs meet twice. So every appetizer cook goes to every main course cook exactly once
+ * (as host or guest, or with one of the other pairs of its group), every main course cook to every dessert cook,
+ * and three pairs go from each dessert cook to the party. The sum of the path lengths is therefore
+ *   sum of d(a, m) + sum of d(m, d) + 3 * sum of d(d, party)
+ * over the appetizer cooks a, main course cooks m and dessert cooks d, whichever of the arrangements of the groups
+ * is taken. The first two sums are the distances of the main course cooks to all pairs which do not cook the main course,
+ * so the sum only depends on which pairs cook the dessert and which cook the main course:
+ *   3 * sum of d(d, party) + sum of the distances of m to all other pairs - 2 * sum of d(m, m')
+ * Both parts are computed once for each of the 84 triples of pairs; the triples are then combined in the order of
+ * their parts, and the search stops as soon as no remaining combination can be shorter than the best one found.
+ */
+class ClusterRoutePlanner {
+    private static final int CLUSTER_SIZE = 9;
+    private static final int ALL = (1 << CLUSTER_SIZE) - 1;
+    private static final int[][] TRIPLES = findTriples();
+    private static final int[] TRIPLE_MASKS = new int[TRIPLES.length]; // the bits of the positions of each triple
+    private static final int[] TRIPLE_OF_MASK = new int[1 << CLUSTER_SIZE]; // the number of the triple with the given bits
+
+    static {
+        for (int t = 0; t < TRIPLES.length; t++) {
+            TRIPLE_MASKS[t] = 1 << TRIPLES[t][0] | 1 << TRIPLES[t][1] | 1 << TRIPLES[t][2];
+            TRIPLE_OF_MASK[TRIPLE_MASKS[t]] = t;
+        }
+    }
+
+    private ClusterRoutePlanner() {
+    }
+
+    /**
+     * @param cluster the nine pairs of the cluster
+     * @param canCook whether a pair may cook a course
+     * @param partyLocation the location of the after dinner party
+     * @param distanceModel the way of measuring the distances
+     * @return the pairs in the order of the positions of CLUSTER_GROUPS, i.e. the dessert cooks at the positions 0 to 2,
+     *         the main course cooks at 3 to 5 and the appetizer cooks at 6 to 8; null if no pair can cook for some group
+     */
+    static Pair[] arrange(List<Pair> cluster, BiPredicate<Pair, Course> canCook, Location partyLocation, DistanceModel distanceModel) {
+        Pair[] pairs = cluster.toArray(new Pair[0]);
+        int[] canCookMask = new int[Course.values().length]; // bit i is set if pair i may cook the course
+        for (Course course : Course.values())
+            for (int i = 0; i < CLUSTER_SIZE; i++)
+                if (canCook.test(pairs[i], course))
+                    canCookMask[course.ordinal()] |= 1 << i;
+        double[][] distance = new double[CLUSTER_SIZE][CLUSTER_SIZE];
+        double[] totalDistance = new double[CLUSTER_SIZE];
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            for (int j = i + 1; j < CLUSTER_SIZE; j++) {
+                distance[i][j] = distanceModel.distance(pairs[i].getKitchenLocation(), pairs[j].getKitchenLocation());
+                distance[j][i] = distance[i][j];
+                totalDistance[i] += distance[i][j];
+                totalDistance[j] += distance[i][j];
+            }
+        }
+        double[] dessertCost = new double[TRIPLES.length];
+        double[] mainCost = new double[TRIPLES.length];
+        for (int t = 0; t < TRIPLES.length; t++) {
+            int[] triple = TRIPLES[t];
+            for (int i : triple)
+                dessertCost[t] += 3 * pairs[i].getDistanceToParty(partyLocation, distanceModel);
+            mainCost[t] = totalDistance[triple[0]] + totalDistance[triple[1]] + totalDistance[triple[2]]
+                    - 2 * (distance[triple[0]][triple[1]] + distance[triple[0]][triple[2]] + distance[triple[1]][triple[2]]);
+        }
+        int[] desserts = sortedByCost(dessertCost, canCookMask[Course.DESSERT.ordinal()]);
+        int[] mains = sortedByCost(mainCost, canCookMask[Course.MAIN.ordinal()]);
+
+        double bestCost = Double.MAX_VALUE;
+        int best = -1;
+        for (int d : desserts) {
+            if (mains.length == 0 || dessertCost[d] + mainCost[mains[0]] >= bestCost)
+                break;
+            for (int m : mains) {
+                if (dessertCost[d] + mainCost[m] >= bestCost)
+                    break;
+                int appetizerMask = ALL ^ TRIPLE_MASKS[d] ^ TRIPLE_MASKS[m];
+                if ((TRIPLE_MASKS[d] & TRIPLE_MASKS[m]) != 0 || (appetizerMask & canCookMask[Course.APPETIZER.ordinal()]) != appetizerMask)
+                    continue;
+                // the first possible main course cooks are the best for these dessert cooks
+                bestCost = dessertCost[d] + mainCost[m];
+                best = d * TRIPLES.length + m;
+                break;
+            }
+        }
+        if (best < 0)
+            return null;
+        int[] dessert = TRIPLES[best / TRIPLES.length];
+        int[] main = TRIPLES[best % TRIPLES.length];
+        int[] appetizer = TRIPLES[TRIPLE_OF_MASK[ALL ^ TRIPLE_MASKS[best / TRIPLES.length] ^ TRIPLE_MASKS[best % TRIPLES.length]]];
+        Pair[] result = new Pair[CLUSTER_SIZE];
+        for (int i = 0; i < 3; i++) {
+            result[i] = pairs[dessert[i]];
+            result[3 + i] = pairs[main[i]];
+            result[6 + i] = pairs[appetizer[i]];
+        }
+        return result;
+    }
+
+    /**
+     * @return the numbers of the triples whose pairs may all cook the course, in the order of their costs
+     */
+    private static int[] sortedByCost(double[] cost, int canCookMask) {
+        int[] sorted = new int[TRIPLES.length];
+        int count = 0;
+        for (int t = 0; t < TRIPLES.length; t++) {
+            if ((TRIPLE_MASKS[t] & canCookMask) != TRIPLE_MASKS[t])
+                continue;
+            int position = count++;
+            while (position > 0 && cost[sorted[position - 1]] > cost[t]) {
+                sorted[position] = sorted[position - 1];
+                position--;
+            }
+            sorted[position] = t;
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * @return the 84 ways to choose three of the nine positions, in increasing order
+     */
+    private static int[][] findTriples() {
+        int[][] triples = new int[84][];
+        int count = 0;
+        for (int i = 0; i < CLUSTER_SIZE; i++)
+            for (int j = i + 1; j < CLUSTER_SIZE; j++)
+                for (int k = j + 1; k < CLUSTER_SIZE; k++)
+                    triples[count++] = new int[]{i, j, k};
+        return triples;
+    }
+
+}
@@ -0,0 +1,49 @@
+package Model;
+
+/**
+ * A way of measuring the distance between two locations, e.g. between the kitchens of a path or from a kitchen
+ * to the after dinner party. SpinfoodEvent uses the euclidean distance of the coordinates unless another model is set.
+ */
+public interface DistanceModel {
+    /**
+     * The mean radius of the earth in metres.
+     */
+    double EARTH_RADIUS = 6_371_000.0;
+
+    /**
+     * The euclidean distance of the longitudes and latitudes in degrees, like SpinfoodEvent.findDistance (the original model).
+     */
+    DistanceModel EUCLIDEAN = SpinfoodEvent::findDistance;
+
+    /**
+     * The great-circle distance in metres.
+     */
+    DistanceModel HAVERSINE = DistanceModel::findHaversineDistance;
+
+    /**
+     * The distance in metres in an equirectangular projection around the latitude of the reference location,
+     * which is close to the great-circle distance within a city. Every location is projected once,
+     * so that a distance is computed from the projected coordinates by plain arithmetic.
+     * @param reference the location whose latitude the projection is true at, e.g. the after dinner party
+     * @return the new distance model
+     */
+    static DistanceModel equirectangular(Location reference) {
+        return new EquirectangularDistance(reference.getLatitude());
+    }
+
+    /**
+     * @param location1 first given location
+     * @param location2 second given location
+     * @return the distance between the two locations
+     */
+    double distance(Location location1, Location location2);
+
+    private static double findHaversineDistance(Location location1, Location location2) {
+        double latitude1 = Math.toRadians(location1.getLatitude());
+        double latitude2 = Math.toRadians(location2.getLatitude());
+        double sinLatitude = Math.sin((latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(location2.getLongitude() - location1.getLongitude()) / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(latitude1) * Math.cos(latitude2) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,33 @@
+package Model;
+
+/**
+ * The distance in metres in an equirectangular projection, see DistanceModel.equirectangular.
+ * The projected coordinates are kept in the locations, so each location is projected once per projection.
+ */
+class EquirectangularDistance implements DistanceModel {
+    private final double metresPerDegreeLongitude;
+    private final double metresPerDegreeLatitude;
+
+    /**
+     * @param referenceLatitude the latitude in degrees at which the projection keeps the distances true
+     */
+    EquirectangularDistance(double referenceLatitude) {
+        this.metresPerDegreeLatitude = Math.toRadians(1) * EARTH_RADIUS;
+        this.metresPerDegreeLongitude = metresPerDegreeLatitude * Math.cos(Math.toRadians(referenceLatitude));
+    }
+
+    @Override
+    public double distance(Location location1, Location location2) {
+        double dx = location1.getProjectedX(this) - location2.getProjectedX(this);
+        double dy = location1.getProjectedY(this) - location2.getProjectedY(this);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    double projectX(Location location) {
+        return location.getLongitude() * metresPerDegreeLongitude;
+    }
+
+    double projectY(Location location) {
+        return location.getLatitude() * metresPerDegreeLatitude;
+    }
+}
@@ -0,0 +1,156 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An unchangeable state of a SpinfoodEvent: its participants, kitchens, pairs and groups at the time of the snapshot.
+ *
+ * The algorithms and metrics change the pairs and groups they work on (e.g. Pair.setHasCooked, Pair.setPathLength,
+ * Group.setAgeDifference), so they must not run on the same event at the same time. Instead, every run gets its own
+ * working copy from newWorkingCopy: the copy has new pairs and groups, which are created from the values kept
+ * in the snapshot, while the participants, kitchens and locations of the import are shared by all copies.
+ * The snapshot itself is never changed, and creating a working copy only reads the shared participants and kitchens
+ * (each copy keeps its own participant table, see ParticipantTable), so any number of threads can create working copies
+ * from it at the same time. The participants and kitchens are not copied, so a change of them while a copy is in use,
+ * e.g. of the age of a participant, is seen by the event and all copies alike.
+ */
+public final class EventSnapshot {
+    private final Location afterDinnerPartyLocation;
+    private final Long seed;
+    private final DistanceModel distanceModel;
+    private final List<Participant> participants;
+    private final List<Kitchen> kitchens;
+    // the pairs of the event in their order, then the pairs which are only in groups
+    private final List<PairState> pairs;
+    private final int eventPairCount;
+    private final List<GroupState> groups;
+
+    private record PairState(Participant participant1, Participant participant2, FoodPreference foodPreference,
+                             boolean participant2IsKitchenOwner, boolean registeredAsPair, boolean hasCooked, Integer number) {
+        PairState(Pair pair) {
+            this(pair.getParticipant1(), pair.getParticipant2(), pair.getFoodPreference(), pair.getPariticipant2IsKitchenOwner(),
+                    pair.isRegisteredAsPair(), pair.hasCooked(), pair.getNumber());
+        }
+
+        Pair toPair() {
+            Pair pair = new Pair(participant1, participant2, foodPreference, participant2IsKitchenOwner);
+            pair.setRegisteredAsPair(registeredAsPair);
+            pair.setHasCooked(hasCooked);
+            pair.setNumber(number);
+            return pair;
+        }
+    }
+
+    // kitchenOwner and pairs are positions in the pairs of the snapshot, -1 if there is no kitchen owner
+    private record GroupState(Course course, FoodPreference foodPreference, Integer number, int kitchenOwner, int[] pairs) {
+    }
+
+    /**
+     * @param event the event whose current state is kept
+     */
+    EventSnapshot(SpinfoodEvent event) {
+        this.afterDinnerPartyLocation = event.getAfterDinnerPartyLocation();
+        this.seed = event.getSeed();
+        this.distanceModel = event.getDistanceModel();
+        this.participants = unmodifiableCopy(event.getParticipants());
+        this.kitchens = unmodifiableCopy(event.getKitchens());
+
+        Map<Pair, Integer> positions = new IdentityHashMap<>();
+        List<PairState> pairStates = new ArrayList<>();
+        for (Pair pair : event.getPairs() == null ? List.<Pair>of() : event.getPairs())
+            position(pair, positions, pairStates);
+        this.eventPairCount = pairStates.size();
+
+        List<GroupState> groupStates = new ArrayList<>();
+        for (Group group : event.getGroups() == null ? List.<Group>of() : event.getGroups()) {
+            int[] groupPairs = new int[group.getGroupPairs().size()];
+            for (int i = 0; i < groupPairs.length; i++)
+                groupPairs[i] = position(group.getGroupPairs().get(i), positions, pairStates);
+            int kitchenOwner = group.getKitchenOwner() == null ? -1 : position(group.getKitchenOwner(), positions, pairStates);
+            groupStates.add(new GroupState(group.getCourse(), group.getFoodPreference(), group.getNumber(), kitchenOwner, groupPairs));
+        }
+        this.pairs = Collections.unmodifiableList(pairStates);
+        this.groups = Collections.unmodifiableList(groupStates);
+    }
+
+    public Location getAfterDinnerPartyLocation() {
+        return afterDinnerPartyLocation;
+    }
+
+    /**
+     * @return the participants of the event, shared by all working copies
+     */
+    public List<Participant> getParticipants() {
+        return participants;
+    }
+
+    /**
+     * @return the number of pairs of the event; the pair at a position of the event is at the same position in every working copy
+     */
+    public int getPairCount() {
+        return eventPairCount;
+    }
+
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * Creates an event in the state of the snapshot, which can be changed without affecting the snapshot,
+     * other working copies or the event of the snapshot. It has new pairs and groups, in the same order as in the event,
+     * and the same participants, kitchens, after dinner party location, seed and distance model.
+     * @return the new event
+     */
+    public SpinfoodEvent newWorkingCopy() {
+        return newWorkingCopy(true);
+    }
+
+    /**
+     * Same as newWorkingCopy(), but the groups can be left out, so that the groups of the copy are formed anew.
+     * @param withGroups false if the copy should have no groups and none of its pairs should have cooked
+     * @return the new event
+     */
+    public SpinfoodEvent newWorkingCopy(boolean withGroups) {
+        SpinfoodEvent copy = new SpinfoodEvent(afterDinnerPartyLocation);
+        copy.setSeed(seed);
+        copy.setDistanceModel(distanceModel);
+        copy.setParticipants(participants);
+        copy.setKitchens(kitchens);
+
+        Pair[] copiedPairs = new Pair[pairs.size()];
+        for (int i = 0; i < copiedPairs.length; i++) {
+            copiedPairs[i] = pairs.get(i).toPair();
+            if (!withGroups)
+                copiedPairs[i].setHasCooked(false);
+        }
+        List<Group> copiedGroups = new ArrayList<>(groups.size());
+        for (GroupState state : withGroups ? groups : List.<GroupState>of()) {
+            Group group = new Group(null, state.foodPreference(), state.course(), state.kitchenOwner() < 0 ? null : copiedPairs[state.kitchenOwner()]);
+            group.setNumber(state.number());
+            for (int position : state.pairs())
+                group.getGroupPairs().add(copiedPairs[position]);
+            copiedGroups.add(group);
+        }
+        copy.setPairs(new ArrayList<>(List.of(copiedPairs).subList(0, eventPairCount)));
+        copy.setGroups(copiedGroups);
+        return copy;
+    }
+
+    private static int position(Pair pair, Map<Pair, Integer> positions, List<PairState> pairStates) {
+        Integer position = positions.get(pair);
+        if (position == null) {
+            position = pairStates.size();
+            positions.put(pair, position);
+            pairStates.add(new PairState(pair));
+        }
+        return position;
+    }
+
+    private static <T> List<T> unmodifiableCopy(List<T> list) {
+        return list == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+}
@@ -0,0 +1,32 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * The original pair matching: participants are classified by the existence of their kitchen, and
+ * PairAlgorithm.handlePairMatchingWithPreference gives each participant the best candidate which is left,
+ * first strictly by the priority-1-preference and then relaxed.
+ */
+class GreedyPairMatching implements PairMatchingStrategy {
+
+    @Override
+    public void matchPairs(SpinfoodEvent event, List<Participant> participantsWithoutPartner,
+                           int foodPreference, int ageDifference, int genderDiversity) {
+        // since a kitchen is essential for a pair, we start with classifying participants with/has maybe/without kitchen;
+        // the participants are classified once, each pass then selects its candidates from the pool
+        CandidatePool pool = new CandidatePool(participantsWithoutPartner, event.getParticipantTable(), event);
+
+        // criteria 6.3: avoid waste of kitchens => we match those who have kitchen with those who do not have kitchen, if possible
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.YES, KitchenExists.NO, foodPreference, ageDifference, genderDiversity, true, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.YES, KitchenExists.MAYBE, foodPreference, ageDifference, genderDiversity, true, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.YES, KitchenExists.YES, foodPreference, ageDifference, genderDiversity, true, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.MAYBE, KitchenExists.NO, foodPreference, ageDifference, genderDiversity, true, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.MAYBE, KitchenExists.MAYBE, foodPreference, ageDifference, genderDiversity, true, event);
+
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.YES, KitchenExists.NO, foodPreference, ageDifference, genderDiversity, false, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.YES, KitchenExists.MAYBE, foodPreference, ageDifference, genderDiversity, false, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.YES, KitchenExists.YES, foodPreference, ageDifference, genderDiversity, false, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.MAYBE, KitchenExists.NO, foodPreference, ageDifference, genderDiversity, false, event);
+        PairAlgorithm.handlePairMatchingWithPreference(pool, KitchenExists.MAYBE, KitchenExists.MAYBE, foodPreference, ageDifference, genderDiversity, false, event);
+    }
+}
@@ -1,6 +1,5 @@
 package Model;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -16,16 +15,64 @@ public class Group {
     private double ageDifference;
     private double preferenceDeviation;
     private double genderDiversity;
+    private final MemberListener members = new MemberListener();
+    private PairGroupIndex index;
 
     public Group(List<Pair> groupPairs, FoodPreference foodPreference, Course course, Pair kitchenOwner) {
-        this.groupPairs = new ArrayList<>(3);
+        this.groupPairs = new TrackedList<>(members);
         this.foodPreference = foodPreference;
         this.course = course;
         this.kitchenOwner = kitchenOwner;
     }
 
+    /**
+     * Forwards the pairs entering or leaving this group to the index of the event the group belongs to.
+     */
+    private class MemberListener implements TrackedList.Listener<Pair> {
+        @Override
+        public void added(Pair pair) {
+            if (index != null)
+                index.link(pair, Group.this);
+        }
+
+        @Override
+        public void removed(Pair pair) {
+            if (index != null)
+                index.unlink(pair, Group.this);
+        }
+    }
+
+    /**
+     * Called by the index of an event when the group is added to the groups of the event.
+     * A group belongs to at most one event at a time.
+     */
+    void attachTo(PairGroupIndex index) {
+        this.index = index;
+    }
+
+    void detachFrom(PairGroupIndex index) {
+        if (this.index == index)
+            this.index = null;
+    }
+
     public List<Pair> getGroupPairs() {return groupPairs;}
-    public void setGroupPairs(List<Pair> groupPairs) {this.groupPairs = groupPairs;}
+
+    /**
+     * Replaces the pairs of the group. The given pairs are copied into a list which keeps
+     * the pair-to-group index of the event up to date.
+     * @param groupPairs the new pairs of the group
+     */
+    public void setGroupPairs(List<Pair> groupPairs) {
+        if (groupPairs == this.groupPairs)
+            return;
+        if (index != null)
+            index.unlinkAll(this);
+        if (this.groupPairs instanceof TrackedList<Pair> oldPairs)
+            oldPairs.detach();
+        this.groupPairs = (groupPairs == null) ? null : new TrackedList<>(groupPairs, members);
+        if (index != null)
+            index.linkAll(this);
+    }
 
     public Integer getNumber() {
         return number;
@@ -43,10 +90,22 @@ public class Group {
     }
 
     public Course getCourse() {return course;}
-    public void setCourse(Course course) {this.course = course;}
+    public void setCourse(Course course) {
+        if (index != null)
+            index.unlinkAll(this);
+        this.course = course;
+        if (index != null)
+            index.linkAll(this);
+    }
 
     public Pair getKitchenOwner() { return kitchenOwner; }
-    public void setKitchenOwner(Pair kitchenOwner) { this.kitchenOwner = kitchenOwner; }
+    public void setKitchenOwner(Pair kitchenOwner) {
+        if (index != null)
+            index.unlinkAll(this);
+        this.kitchenOwner = kitchenOwner;
+        if (index != null)
+            index.linkAll(this);
+    }
 
     public double getAgeDifference() { return ageDifference; }
     public void setAgeDifference(double ageDifference) { this.ageDifference = ageDifference; }
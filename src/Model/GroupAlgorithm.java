@@ -1,12 +1,20 @@
 package Model;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import static Model.SpinfoodEvent.findDistance;
 
 public class GroupAlgorithm {
+    /**
+     * The positions of the pairs in each of the nine groups of a cluster, see createClusterGroups.
+     */
+    static final int[][] CLUSTER_GROUPS = {
+            {6, 0, 3}, {7, 1, 4}, {8, 2, 5},
+            {3, 1, 8}, {4, 2, 6}, {5, 0, 7},
+            {0, 4, 8}, {1, 6, 5}, {2, 3, 7}};
+    static final Course[] CLUSTER_COURSES = {
+            Course.APPETIZER, Course.APPETIZER, Course.APPETIZER,
+            Course.MAIN, Course.MAIN, Course.MAIN,
+            Course.DESSERT, Course.DESSERT, Course.DESSERT};
 
     /**
      * Calculates the number of times a specific kitchen is used by pairs.
@@ -31,15 +39,10 @@ public class GroupAlgorithm {
      * @return A list of pairs that are not in any group but are taking the specified course.
      */
     protected static List<Pair> findPairsWithoutGroups(List<Pair> eventPairs, List<Group> eventGroups) {
+        Set<Pair> pairsInGroups = collectPairsInGroups(eventGroups);
         List<Pair> pairsWithoutGroups = new ArrayList<>();
         for (Pair pair : eventPairs) {
-            boolean found = false;
-            for (Group group : eventGroups) {
-                if (group.getGroupPairs() != null && group.getGroupPairs().contains(pair)){
-                    found = true;
-                }
-            }
-            if (!found) pairsWithoutGroups.add(pair);
+            if (!pairsInGroups.contains(pair)) pairsWithoutGroups.add(pair);
         }
         return pairsWithoutGroups;
     }
@@ -50,17 +53,28 @@ public class GroupAlgorithm {
      * @return A list of pairs that are in a group and taking the specified course.
      */
     protected static List<Pair> findPairsWithGroups(List<Pair> eventPairs, List<Group> eventGroups) {
-        List<Pair> pairsWithoutGroups = new ArrayList<>();
+        Set<Pair> pairsInGroups = collectPairsInGroups(eventGroups);
+        List<Pair> pairsWithGroups = new ArrayList<>();
         for (Pair pair : eventPairs) {
-            boolean found = false;
-            for (Group group : eventGroups) {
-                if ((group.getGroupPairs().contains(pair))){
-                    found = true;
-                }
-            }
-            if (found) pairsWithoutGroups.add(pair);
+            if (pairsInGroups.contains(pair)) pairsWithGroups.add(pair);
         }
-        return pairsWithoutGroups;
+        return pairsWithGroups;
+    }
+
+    /**
+     * Collects the pairs of all given groups into a set, so that the membership of a pair
+     * can be checked without scanning every group again.
+     *
+     * @param eventGroups the groups to collect the pairs from
+     * @return a set (by identity) of all pairs which are part of at least one group
+     */
+    private static Set<Pair> collectPairsInGroups(List<Group> eventGroups) {
+        Set<Pair> pairsInGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Group group : eventGroups) {
+            if (group.getGroupPairs() != null)
+                pairsInGroups.addAll(group.getGroupPairs());
+        }
+        return pairsInGroups;
     }
 
     /**
@@ -71,58 +85,89 @@ public class GroupAlgorithm {
      * @return A list of pairs that are valid candidates to form a group with the specified pair.
      */
     protected static List<Pair> findValidCandidatesForGroups(Pair pair, List<Pair> listOfPairs, List<Pair> eventPairs) {
+        return findValidCandidatesForGroups(pair, listOfPairs, new KitchenLedger(eventPairs, List.of()));
+    }
+
+    /**
+     * Finds valid candidates for forming groups, reading the kitchen usage from the given ledger.
+     *
+     * @param pair The pair to find candidates for.
+     * @param listOfPairs A list of other pairs to consider as candidates.
+     * @param ledger The kitchen counters of the current run.
+     * @return A list of pairs that are valid candidates to form a group with the specified pair.
+     */
+    protected static List<Pair> findValidCandidatesForGroups(Pair pair, List<Pair> listOfPairs, KitchenLedger ledger) {
+        return findValidCandidatesForGroups(pair, listOfPairs, ledger, PairCompatibility.NONE);
+    }
+
+    /**
+     * Finds valid candidates for forming groups, reading the kitchen usage from the given ledger
+     * and the compatibility of the pairs from the given matrix.
+     *
+     * @param pair The pair to find candidates for.
+     * @param listOfPairs A list of other pairs to consider as candidates.
+     * @param ledger The kitchen counters of the current run.
+     * @param compatibility The precomputed compatibility of the pairs.
+     * @return A list of pairs that are valid candidates to form a group with the specified pair.
+     */
+    protected static List<Pair> findValidCandidatesForGroups(Pair pair, List<Pair> listOfPairs, KitchenLedger ledger,
+                                                             PairCompatibility compatibility) {
         List<Pair> result = new ArrayList<>();
         for (Pair p : listOfPairs) {
             if (pair.equals(p))
                 continue;
-            boolean valid = true;
-
-            if (((pair.getFoodPreference().equals(FoodPreference.MEAT)) // criteria 6.1
-                    && ((p.getFoodPreference().equals(FoodPreference.VEGAN)) || (p.getFoodPreference().equals(FoodPreference.VEGGIE))))
-                    || ((p.getFoodPreference().equals(FoodPreference.MEAT))
-                    && ((pair.getFoodPreference().equals(FoodPreference.VEGAN)) || (pair.getFoodPreference().equals(FoodPreference.VEGGIE)))))
-                valid = false;
-            if (pair.getKitchen().equals(p.getKitchen())) {
-                valid = false;
-            }
-            if (pair.getKitchenLocation().equals(p.getKitchenLocation())) {
-                valid = false;
-            }
-            if (getKitchenUsage(p.getKitchen(), eventPairs) > 2) {
-                valid = false;
-            }
-            if (kitchenCount(p.getKitchen(), eventPairs) > 2) {
-                valid = false;
-            }
-            if (valid)
+            if (compatibility.areCompatible(pair, p) && canJoinGroup(p, ledger))
                 result.add(p);
         }
         return result;
     }
 
+    /**
+     * Checks whether a candidate may join a group together with the given pair: the food preferences
+     * must not clash, the two pairs must not share a kitchen or a kitchen location, and the kitchen
+     * of the candidate must neither have been cooked in nor be shared by more than two pairs.
+     *
+     * @param pair The pair the candidate is checked against.
+     * @param candidate The candidate pair.
+     * @param ledger The kitchen counters of the current run.
+     * @return true if the candidate is valid for the pair, false otherwise.
+     */
+    protected static boolean isValidCandidateForGroup(Pair pair, Pair candidate, KitchenLedger ledger) {
+        return arePairsCompatible(pair, candidate) && canJoinGroup(candidate, ledger);
+    }
 
     /**
-     * Calculates the number of pairs using a specific kitchen based on its location.
-     * This method iterates through a list of pairs and increments a count for each pair
-     * that uses a kitchen located at the same place as the specified kitchen.
+     * Checks the rules for a candidate which depend on the kitchen usage: the kitchen of the candidate
+     * must neither have been cooked in nor be shared by more than two pairs.
      *
-     * @param kitchen The kitchen for which the count is to be performed. This parameter
-     *                should not be {@code null} and is expected to have a valid location.
-     * @param eventPairs A list of pairs, each potentially using a kitchen. This list
-     *                   should not be {@code null} but may be empty, in which case the
-     *                   result will be zero.
-     * @return The number of pairs that use the specified kitchen based on its location.
-     *         Returns zero if no pairs match the specified kitchen's location or if the
-     *         list of pairs is empty.
+     * @param candidate The candidate pair.
+     * @param ledger The kitchen counters of the current run.
+     * @return true if the kitchen usage allows the candidate to join a group, false otherwise.
      */
-    private static int kitchenCount(Kitchen kitchen, List<Pair> eventPairs) {
-        int result = 0;
-        for(Pair pair : eventPairs) {
-            if(pair.getKitchen().getLocation().equals(kitchen.getLocation())) {
-                result++;
-            }
-        }
-        return result;
+    protected static boolean canJoinGroup(Pair candidate, KitchenLedger ledger) {
+        if (ledger.getCookCount(candidate.getKitchen()) > 2)
+            return false;
+        return ledger.getPairsAtLocation(candidate.getKitchenLocation()) <= 2;
+    }
+
+
+    /**
+     * Checks the rules for two pairs in the same group which do not depend on the kitchen usage:
+     * the food preferences must not clash and the two pairs must not share a kitchen or a kitchen location.
+     *
+     * @param pair The first pair.
+     * @param candidate The second pair.
+     * @return true if the two pairs may be in a group together, false otherwise.
+     */
+    protected static boolean arePairsCompatible(Pair pair, Pair candidate) {
+        if (((pair.getFoodPreference().equals(FoodPreference.MEAT)) // criteria 6.1
+                && ((candidate.getFoodPreference().equals(FoodPreference.VEGAN)) || (candidate.getFoodPreference().equals(FoodPreference.VEGGIE))))
+                || ((candidate.getFoodPreference().equals(FoodPreference.MEAT))
+                && ((pair.getFoodPreference().equals(FoodPreference.VEGAN)) || (pair.getFoodPreference().equals(FoodPreference.VEGGIE)))))
+            return false;
+        if (pair.getKitchen().equals(candidate.getKitchen()))
+            return false;
+        return !pair.getKitchenLocation().equals(candidate.getKitchenLocation());
     }
 
     /**
@@ -165,11 +210,21 @@ public class GroupAlgorithm {
      */
 
     protected static boolean checkIfPairCanCook(Pair pair, Course course, List<Pair> eventPairs, List<Group> eventGroups) {
-        if(!pair.hasCooked() && !(GroupAlgorithm.getKitchenUsage(pair.getKitchen(), eventPairs) >= 3)
-                && checkIfPairsKitchenAvailable(pair, course, eventGroups)) {
-            return true;
-        }
-        return false;
+        return checkIfPairCanCook(pair, course, new KitchenLedger(eventPairs, eventGroups));
+    }
+
+    /**
+     * Determines if a specific pair is eligible to cook for a given course, reading the kitchen usage
+     * and the bookings of the kitchens from the given ledger.
+     *
+     * @param pair The pair to check for cooking eligibility.
+     * @param course The course for which cooking eligibility needs to be checked.
+     * @param ledger The kitchen counters of the current run.
+     * @return true if the pair can cook for the specified course, false otherwise.
+     */
+    protected static boolean checkIfPairCanCook(Pair pair, Course course, KitchenLedger ledger) {
+        return !pair.hasCooked() && ledger.getCookCount(pair.getKitchen()) < 3
+                && checkIfPairsKitchenAvailable(pair, course, ledger);
     }
 
     /**
@@ -192,6 +247,18 @@ public class GroupAlgorithm {
         return true;
     }
 
+    /**
+     * Checks if the kitchen of the pair is still free for the specified course, according to the given ledger.
+     *
+     * @param pair the pair whose kitchen is checked
+     * @param course the course to check for available kitchen
+     * @param ledger the kitchen counters of the current run
+     * @return true if no group cooks the course at the location of the pair's kitchen, false otherwise
+     */
+    protected static boolean checkIfPairsKitchenAvailable(Pair pair, Course course, KitchenLedger ledger) {
+        return !ledger.isBooked(pair.getKitchenLocation(), course);
+    }
+
     /**
      * Finds which course a specific pair is responsible for.
      *
@@ -208,21 +275,30 @@ public class GroupAlgorithm {
             Pair kitchenOwner = group.getKitchenOwner();
             if (kitchenOwner != null) {
                 if(kitchenOwner.equals(pair)) {
-                    Course course = group.getCourse();
-                    switch (course) {
-                        case APPETIZER:
-                            return 1;
-                        case MAIN:
-                            return 2;
-                        case DESSERT:
-                            return 3;
-                    }
+                    return getCourseNumber(group.getCourse());
                 }
             }
         }
         return 0;
     }
 
+    /**
+     * Converts a course into the number used in the exported files.
+     *
+     * @param course the course to convert
+     * @return 1 for APPETIZER, 2 for MAIN, 3 for DESSERT
+     */
+    protected static int getCourseNumber(Course course) {
+        switch (course) {
+            case APPETIZER:
+                return 1;
+            case MAIN:
+                return 2;
+            default: // DESSERT
+                return 3;
+        }
+    }
+
     /**
      * Handles the creation of a new group with specified pairs and assigns a kitchen owner if eligible.
      * This method first creates a group with specified pairs and a course, then attempts to assign
@@ -241,6 +317,28 @@ public class GroupAlgorithm {
      */
 
     public static void handleCreateGroup(List<Group> result, Map<Pair, Course> pairCourseMap, Pair p1, Pair p2, Pair p3, Course course, List<Pair> eventPairs, List<Group> eventGroups) {
+        List<Group> created = new ArrayList<>(1);
+        KitchenLedger ledger = new KitchenLedger(eventPairs, eventGroups);
+        handleCreateGroup(created, pairCourseMap, p1, p2, p3, course, ledger);
+        ledger.commit(created.getFirst());
+        result.addAll(created);
+    }
+
+    /**
+     * Handles the creation of a new group like {@link #handleCreateGroup(List, Map, Pair, Pair, Pair, Course, List, List)},
+     * but checks the kitchens against the given ledger and the kitchen owners of the groups already in the result.
+     * The new group is not entered in the ledger and its kitchen owner is not marked as cooked,
+     * this is left to the caller once the group is kept (see KitchenLedger.commit).
+     *
+     * @param result The list where the newly created group will be added.
+     * @param pairCourseMap A map linking pairs to courses, potentially useful for extended logic.
+     * @param p1 The first pair to include in the group.
+     * @param p2 The second pair to include in the group.
+     * @param p3 The third pair to include in the group.
+     * @param course The course that the group will be preparing.
+     * @param ledger The kitchen counters of the current run.
+     */
+    public static void handleCreateGroup(List<Group> result, Map<Pair, Course> pairCourseMap, Pair p1, Pair p2, Pair p3, Course course, KitchenLedger ledger) {
         Group group = new Group(null, null, course, null);
         group.getGroupPairs().add(p1);
         group.getGroupPairs().add(p2);
@@ -248,20 +346,71 @@ public class GroupAlgorithm {
 
         findGroupFoodPreference(p1, p2, p3);
 
-        if (checkIfPairCanCook(p1, course, eventPairs, eventGroups)) {
+        if (checkIfPairCanCook(p1, course, ledger, result)) {
             group.setKitchenOwner(p1);
-            p1.setHasCooked(true);
-        } else if (checkIfPairCanCook(p2, course, eventPairs, eventGroups)) {
+        } else if (checkIfPairCanCook(p2, course, ledger, result)) {
             group.setKitchenOwner(p2);
-            p2.setHasCooked(true);
-        } else if (checkIfPairCanCook(p3, course, eventPairs, eventGroups)) {
+        } else if (checkIfPairCanCook(p3, course, ledger, result)) {
             group.setKitchenOwner(p3);
-            p3.setHasCooked(true);
         }
 
         result.add(group);
     }
 
+    /**
+     * Checks if the pair can cook like {@link #checkIfPairCanCook(Pair, Course, KitchenLedger)},
+     * counting the kitchen owners of the given groups, which are not committed to the ledger yet, as cooked.
+     */
+    private static boolean checkIfPairCanCook(Pair pair, Course course, KitchenLedger ledger, List<Group> uncommittedGroups) {
+        if (!checkIfPairCanCook(pair, course, ledger))
+            return false;
+        int cookCount = ledger.getCookCount(pair.getKitchen());
+        for (Group group : uncommittedGroups) {
+            Pair owner = group.getKitchenOwner();
+            if (owner == pair)
+                return false;
+            if (owner != null && Objects.equals(owner.getKitchen(), pair.getKitchen()))
+                cookCount++;
+        }
+        return cookCount < 3;
+    }
+
+    /**
+     * Creates the nine groups of a cluster of nine pairs, which are sorted by the distance of their kitchen
+     * to the after dinner party: for each entry of CLUSTER_GROUPS, the pairs at the given positions form a group
+     * for the course of CLUSTER_COURSES. Every pair meets six other pairs of the cluster this way,
+     * and the first pair of each group is preferred as its kitchen owner.
+     *
+     * @param sortedPairs The nine pairs of the cluster, sorted by the distance of their kitchen to the party.
+     * @param ledger The kitchen counters of the current run.
+     * @return The nine groups, some of which may have no kitchen owner.
+     */
+    public static List<Group> createClusterGroups(List<Pair> sortedPairs, KitchenLedger ledger) {
+        Map<Pair, Course> pairCourseMap = assignCourses(sortedPairs);
+        List<Group> result = new ArrayList<>();
+        for (int i = 0; i < CLUSTER_GROUPS.length; i++)
+            handleCreateGroup(result, pairCourseMap, sortedPairs.get(CLUSTER_GROUPS[i][0]), sortedPairs.get(CLUSTER_GROUPS[i][1]),
+                    sortedPairs.get(CLUSTER_GROUPS[i][2]), CLUSTER_COURSES[i], ledger);
+        return result;
+    }
+
+    /**
+     * Creates the nine groups of a cluster of nine pairs like {@link #createClusterGroups(List, KitchenLedger)},
+     * with the pairs which cook each course chosen so that the sum of the path lengths of the nine pairs is minimal
+     * (see ClusterRoutePlanner), instead of by the distance of their kitchen to the party.
+     *
+     * @param cluster The nine pairs of the cluster, in any order.
+     * @param ledger The kitchen counters of the current run.
+     * @param partyLocation The location of the after dinner party.
+     * @param distanceModel The way of measuring the distances.
+     * @return The nine groups, all with a kitchen owner, or null if the pairs cannot cook all groups of the cluster.
+     */
+    public static List<Group> createClusterGroups(List<Pair> cluster, KitchenLedger ledger, Location partyLocation, DistanceModel distanceModel) {
+        Pair[] arranged = ClusterRoutePlanner.arrange(cluster, (pair, course) -> checkIfPairCanCook(pair, course, ledger),
+                partyLocation, distanceModel);
+        return arranged == null ? null : createClusterGroups(Arrays.asList(arranged), ledger);
+    }
+
     /**
      * Assigns courses to pairs based on their order in the list, assuming the list is already sorted
      * by some criteria like food preferences or age. The method is designed to work with at least nine
@@ -410,9 +559,22 @@ public class GroupAlgorithm {
      * @return The maximum distance from the party location to the farthest pair's kitchen in the cluster.
      */
     protected static double clusterMaxDistance(List<Pair> cluster, Location partyLocation) {
+        return clusterMaxDistance(cluster, partyLocation, DistanceModel.EUCLIDEAN);
+    }
+
+    /**
+     * Same as {@link #clusterMaxDistance(List, Location)}, with the distances measured by the given model
+     * and kept in the pairs (see Pair.getDistanceToParty).
+     *
+     * @param cluster The cluster of pairs to evaluate.
+     * @param partyLocation The central party location to measure distance from.
+     * @param distanceModel The way of measuring the distances.
+     * @return The maximum distance from the party location to the farthest pair's kitchen in the cluster.
+     */
+    protected static double clusterMaxDistance(List<Pair> cluster, Location partyLocation, DistanceModel distanceModel) {
         double maxDistance = 0.0;
         for (Pair pair : cluster) {
-            double pairDistance = findDistance(pair.getKitchenLocation(), partyLocation);
+            double pairDistance = pair.getDistanceToParty(partyLocation, distanceModel);
             if (pairDistance > maxDistance)
                 maxDistance = pairDistance;
         }
@@ -433,8 +595,22 @@ public class GroupAlgorithm {
      */
 
     protected static double getPathLengthScore(List<Pair> oldCluster, List<Pair> newCluster, Location partyLocation) {
-        double newDistance = clusterMaxDistance(newCluster, partyLocation);
-        double oldDistance = clusterMaxDistance(oldCluster, partyLocation);
+        return getPathLengthScore(oldCluster, newCluster, partyLocation, DistanceModel.EUCLIDEAN);
+    }
+
+    /**
+     * Same as {@link #getPathLengthScore(List, List, Location)}, with the distances measured by the given model.
+     *
+     * @param oldCluster The previous cluster configuration.
+     * @param newCluster The new cluster configuration including additional pairs.
+     * @param partyLocation The central location of the event.
+     * @param distanceModel The way of measuring the distances.
+     * @return A score indicating the effect on path length.
+     */
+    protected static double getPathLengthScore(List<Pair> oldCluster, List<Pair> newCluster, Location partyLocation,
+                                               DistanceModel distanceModel) {
+        double newDistance = clusterMaxDistance(newCluster, partyLocation, distanceModel);
+        double oldDistance = clusterMaxDistance(oldCluster, partyLocation, distanceModel);
         if (newDistance <= oldDistance) // no increase in distance
             return 1.0;
         else if ((newDistance - oldDistance) > oldDistance) // more than double the old distance
@@ -482,13 +658,33 @@ public class GroupAlgorithm {
 
     protected static double calculatePairScore(Pair newPairCandidate, List<Pair> cluster,
                                              int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements, Location partyLocation) {
+        ClusterAccumulator accumulator = new ClusterAccumulator(partyLocation);
+        for (Pair pair : cluster)
+            accumulator.add(pair);
+        return calculatePairScore(newPairCandidate, accumulator, foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements);
+    }
+
+    /**
+     * Calculates the score of {@link #calculatePairScore(Pair, List, int, int, int, int, int, Location)}
+     * from the running aggregates of the cluster, in constant time.
+     *
+     * @param newPairCandidate The new pair being considered for addition to the cluster.
+     * @param cluster The aggregates of the current cluster of pairs.
+     * @param foodPreference The priority weighting for food preference.
+     * @param ageDifference The priority weighting for age difference.
+     * @param genderDiversity The priority weighting for gender diversity.
+     * @param pathLength The priority weighting for path length.
+     * @param numberOfElements The priority weighting for the number of elements in the cluster.
+     * @return A composite score representing the suitability of the new pair for addition to the cluster.
+     */
+    static double calculatePairScore(Pair newPairCandidate, ClusterAccumulator cluster,
+                                     int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements) {
 
         // calculate point between 0 and 1 for each criteria (We take 4 criteria: foodPreference, ageDifference, genderDiversity, pathLength)
-        double foodPreferenceScore = 1 - Math.abs(clusterAverageFoodPreferenceValue(cluster) - newPairCandidate.getAverageFoodPreferenceValue()) / 3; // maximum deviation is 3
-        double ageDifferenceScore = 1 - Math.abs(clusterAverageAgeGroup(cluster) - newPairCandidate.getAverageAgeGroup()) / 8; // maximum deviation is 8
-        List<Pair> newCluster = Stream.concat(cluster.stream(), Stream.of(newPairCandidate)).collect(Collectors.toList());
-        double genderDiversityScore = 1 - 2 * Math.abs(0.5 - clusterFemaleProportion(newCluster)); // maximum deviation is 0.5
-        double pathLengthScore = getPathLengthScore(cluster, newCluster, partyLocation);
+        double foodPreferenceScore = 1 - Math.abs(cluster.getAverageFoodPreferenceValue() - newPairCandidate.getAverageFoodPreferenceValue()) / 3; // maximum deviation is 3
+        double ageDifferenceScore = 1 - Math.abs(cluster.getAverageAgeGroup() - newPairCandidate.getAverageAgeGroup()) / 8; // maximum deviation is 8
+        double genderDiversityScore = 1 - 2 * Math.abs(0.5 - cluster.getFemaleProportionWith(newPairCandidate)); // maximum deviation is 0.5
+        double pathLengthScore = cluster.getPathLengthScoreWith(newPairCandidate);
         double numberOfElementsScore = 1.0;
 
         return getWeighting(foodPreference) * foodPreferenceScore
@@ -502,42 +698,49 @@ public class GroupAlgorithm {
 
     /**
      * Iteratively finds and adds pairs to a cluster based on a composite score calculated from several criteria.
-     * The method shuffles and sorts the valid candidate pairs to find the best match based on calculated
-     * scores and existing constraints within the cluster.
+     * The method repeatedly takes the best scored valid candidate pair which fits the existing constraints
+     * within the cluster.
+     *
+     * After each added pair, the score of every remaining candidate is computed once and the candidates are
+     * ordered in a heap (see ClusterCandidateQueue). The best candidate is then taken out of the heap;
+     * if it cannot join the cluster, it is dropped and the next best is taken.
+     * Candidates which are dropped or added are removed from validCandidates.
      *
      * @param validCandidates A list of pairs that are valid candidates for adding to the cluster.
      * @param cluster The current cluster of pairs to which new pairs are being added.
      * @param availablePairs A list of pairs available for clustering, used in validation checks.
-     * @param eventPairs A list of all pairs present at the event.
+     * @param ledger The kitchen counters of the current run.
+     * @param compatibility The precomputed compatibility of the pairs.
      * @param foodPreference Weighting factor for the food preference criteria.
      * @param ageDifference Weighting factor for the age difference criteria.
      * @param genderDiversity Weighting factor for the gender diversity criteria.
      * @param pathLength Weighting factor for the path length criteria.
      * @param numberOfElements Weighting factor for the number of elements criteria.
      * @param partyLocation The central location of the event, used in distance calculations.
+     * @param distanceModel The way of measuring the distances of the kitchens to the after dinner party.
+     * @param random The source of the tie breakers between equally scored candidates.
      */
-
-    protected static void findPairsForCluster(List<Pair> validCandidates, List<Pair> cluster, List<Pair> availablePairs, List<Pair> eventPairs,
+    protected static void findPairsForCluster(List<Pair> validCandidates, List<Pair> cluster, List<Pair> availablePairs,
+                                              KitchenLedger ledger, PairCompatibility compatibility,
                                               int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements,
-                                              Location partyLocation) {
-        while (cluster.size() < 9 && !validCandidates.isEmpty()) {
-            // shuffle the list to allow more flexibility in finding possible pairs
-            Collections.shuffle(validCandidates);
-
-            // Sort validCandidates based on the scoring method
-            validCandidates.sort(Comparator.comparingDouble((Pair pair)
-                    -> calculatePairScore(pair, cluster, foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements, partyLocation)).reversed());
-
-            // Use an iterator to safely remove elements during iteration
-            Iterator<Pair> iterator = validCandidates.iterator();
-
-            while (cluster.size() < 9 && iterator.hasNext()) {
-                Pair bestPair = iterator.next();
-                boolean canAdd = true;
-
-                // Check if the best pair can be added to the cluster
+                                              Location partyLocation, DistanceModel distanceModel, Random random) {
+        ClusterAccumulator accumulator = new ClusterAccumulator(partyLocation, distanceModel);
+        for (Pair pair : cluster)
+            accumulator.add(pair);
+        Set<Pair> available = new HashSet<>(availablePairs);
+        ClusterCandidateQueue queue = new ClusterCandidateQueue(validCandidates, random);
+
+        while (cluster.size() < 9 && !queue.isEmpty()) {
+            // the scores only change when the cluster changes
+            queue.rescore(pair -> calculatePairScore(pair, accumulator, foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements));
+
+            Pair bestPair;
+            while ((bestPair = queue.poll()) != null) {
+                boolean canAdd = cluster.isEmpty() || (available.contains(bestPair) && canJoinGroup(bestPair, ledger));
+
+                // Check if the best pair can be added to the cluster: one lookup per pair of the cluster
                 for (Pair existingPair : cluster) {
-                    if (!GroupAlgorithm.findValidCandidatesForGroups(existingPair, availablePairs, eventPairs).contains(bestPair)) {
+                    if (!canAdd || existingPair.equals(bestPair) || !compatibility.areCompatible(existingPair, bestPair)) {
                         canAdd = false;
                         break;
                     }
@@ -545,14 +748,14 @@ public class GroupAlgorithm {
 
                 if (canAdd) {
                     cluster.add(bestPair);
-                    iterator.remove();
-                    break; // Exit the while loop to sort and iterate again
-                } else {
-                    // If the pair cannot be added, just remove it from the iterator
-                    iterator.remove();
+                    accumulator.add(bestPair);
+                    break; // score the remaining candidates again
                 }
+                // If the pair cannot be added, it is dropped
             }
         }
+        validCandidates.clear();
+        validCandidates.addAll(queue.remaining());
     }
 
     public static List<Group> findGroupsCluster(Group group, List<Group> eventGroups) {
@@ -0,0 +1,50 @@
+package Model;
+
+/**
+ * The metrics of the groups of an event, computed in one pass over the groups and the pairs with groups
+ * by SpinfoodEvent.getGroupMetricsReport. The report does not change, so it can be kept and shown by any thread.
+ * The averages are NaN if there are no groups or pairs with groups to average over.
+ *
+ * @param appetizerGroupCount the number of groups for the appetizer
+ * @param mainGroupCount the number of groups for the main course
+ * @param dessertGroupCount the number of groups for the dessert
+ * @param groupCount the number of groups
+ * @param pairsWithoutGroupsCount the number of pairs without groups
+ * @param pairsWithGroupsCount the number of pairs with groups
+ * @param totalPathLength the sum of the path lengths of the pairs with groups
+ * @param averagePathLength the average path length of the pairs with groups
+ * @param pathLengthStandardDeviation the standard deviation of the path lengths of the pairs with groups
+ * @param averageAgeDifference the average age group difference of the groups
+ * @param averagePreferenceDeviation the average food preference deviation of the groups
+ * @param averageGenderDiversity the average gender diversity of the groups
+ */
+public record GroupMetricsReport(int appetizerGroupCount, int mainGroupCount, int dessertGroupCount, int groupCount,
+                                 int pairsWithoutGroupsCount, int pairsWithGroupsCount,
+                                 double totalPathLength, double averagePathLength, double pathLengthStandardDeviation,
+                                 double averageAgeDifference, double averagePreferenceDeviation, double averageGenderDiversity) {
+
+    /**
+     * @return the text of the report, as printed by SpinfoodEvent.showMetricsOfGroups
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        line(text, "====================Metrics of Groups=====================");
+        line(text, "Number of groups for appetizer: " + appetizerGroupCount);
+        line(text, "Number of groups for main: " + mainGroupCount);
+        line(text, "Number of groups for dessert: " + dessertGroupCount);
+        line(text, "Number of groups: " + groupCount);
+        line(text, "Number of pairs without groups: " + pairsWithoutGroupsCount);
+        line(text, "Path length of all groups: " + totalPathLength);
+        line(text, "Average Path Length: " + averagePathLength);
+        line(text, "Standard Deviation Of Path Length: " + pathLengthStandardDeviation);
+        line(text, "Average Age Difference: " + averageAgeDifference);
+        line(text, "Average Food Preference Deviation: " + averagePreferenceDeviation);
+        line(text, "Average Gender Diversity: " + averageGenderDiversity);
+        line(text, "==========================================================");
+        return text.toString();
+    }
+
+    private static void line(StringBuilder text, String line) {
+        text.append(line).append(System.lineSeparator());
+    }
+}
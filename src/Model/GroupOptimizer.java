@@ -0,0 +1,441 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Improves the groups of an event by local search, starting from the clusters formed by SpinfoodEvent.createGroups.
+ *
+ * The solution consists of the clusters of nine pairs (see GroupAlgorithm.createClusterGroups) and the pool of
+ * pairs without groups. Three kinds of moves are tried at random:
+ * - swapping two pairs of different clusters,
+ * - swapping a pair of a cluster with a pair of the pool,
+ * - forming a new cluster from the pool.
+ * A move is only possible if the pairs of the changed clusters are compatible and every group still finds a
+ * kitchen owner whose kitchen is free for the course. The moves are accepted by simulated annealing, where the cost
+ * of a solution is the sum of the costs of its clusters (the scores of GroupAlgorithm.calculatePairScore and the
+ * path lengths of the pairs) plus a high cost for every pair in the pool. Only the changed clusters are scored again.
+ *
+ * Clusters which were not formed by createGroups (e.g. groups changed by hand) are kept as they are.
+ */
+class GroupOptimizer {
+    private static final int CLUSTER_SIZE = 9;
+    // higher than the cost of any cluster per pair, so that grouping more pairs always comes first
+    private static final double UNGROUPED_PAIR_COST = 10.0;
+    private static final double START_TEMPERATURE = 0.1;
+    private static final double END_TEMPERATURE = 0.001;
+    private static final int MOVES_PER_TIME_CHECK = 64;
+
+    private final SpinfoodEvent event;
+    private final int foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements;
+    private final Location partyLocation;
+    private final DistanceModel distanceModel;
+    private final Random random;
+
+    private final ClusterAccumulator accumulator;
+    private final List<Cluster> clusters = new ArrayList<>();
+    private final List<Pair> pool = new ArrayList<>();
+    private KitchenLedger ledger; // the kitchen usage of the groups which are not optimized
+    private PairCompatibility compatibility;
+    // the kitchen usage of the clusters
+    private final Map<Kitchen, Integer> cookCount = new HashMap<>();
+    private final Map<Location, int[]> bookings = new HashMap<>();
+    private double referencePathLength;
+
+    /**
+     * A cluster of nine pairs in the positions of GroupAlgorithm.CLUSTER_GROUPS, with the kitchen owner of each of its groups.
+     */
+    private static class Cluster {
+        final Pair[] pairs;
+        final Pair[] kitchenOwners;
+        final double cost;
+
+        Cluster(Pair[] pairs, Pair[] kitchenOwners, double cost) {
+            this.pairs = pairs;
+            this.kitchenOwners = kitchenOwners;
+            this.cost = cost;
+        }
+    }
+
+    GroupOptimizer(SpinfoodEvent event, int foodPreference, int ageDifference, int genderDiversity, int pathLength,
+                   int numberOfElements, Random random) {
+        this.event = event;
+        this.foodPreference = foodPreference;
+        this.ageDifference = ageDifference;
+        this.genderDiversity = genderDiversity;
+        this.pathLength = pathLength;
+        this.numberOfElements = numberOfElements;
+        this.partyLocation = event.getAfterDinnerPartyLocation();
+        this.distanceModel = event.getDistanceModel();
+        this.random = random;
+        this.accumulator = new ClusterAccumulator(partyLocation, distanceModel);
+    }
+
+    /**
+     * Takes the clusters and the pairs without groups out of the event, improves them for the given time
+     * or number of moves and puts the groups of the best solution found back into the event.
+     * If a number of moves is given, the temperature follows the moves instead of the time, so that the result
+     * only depends on the source of randomness. The search also stops when the progress of the event is cancelled.
+     *
+     * @param timeBudgetMillis the time for the search in milliseconds
+     * @param maxMoves the number of moves for the search, or 0 to search until the time is over
+     */
+    void optimize(long timeBudgetMillis, int maxMoves) {
+        takeClustersFromEvent();
+
+        double cost = UNGROUPED_PAIR_COST * pool.size();
+        for (Cluster cluster : clusters)
+            cost += cluster.cost;
+        double bestCost = cost;
+        List<Cluster> bestClusters = new ArrayList<>(clusters);
+
+        long start = System.nanoTime();
+        long budget = timeBudgetMillis * 1_000_000;
+        double temperature = START_TEMPERATURE;
+        AlgorithmProgress eventProgress = event.getProgress();
+        eventProgress.begin(AlgorithmProgress.Step.IMPROVING_GROUPS, maxMoves > 0 ? maxMoves : (int) Math.min(timeBudgetMillis, Integer.MAX_VALUE));
+        for (int move = 0; maxMoves <= 0 || move < maxMoves; move++) {
+            if (move % MOVES_PER_TIME_CHECK == 0) {
+                long elapsed = System.nanoTime() - start;
+                if (elapsed >= budget || eventProgress.isCancelled())
+                    break;
+                eventProgress.advanceTo(maxMoves > 0 ? move : (int) Math.min(elapsed / 1_000_000, Integer.MAX_VALUE));
+                double progress = maxMoves > 0 ? (double) move / maxMoves : (double) elapsed / budget;
+                temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+            }
+            double delta;
+            int kind = random.nextInt(10);
+            if (kind == 0 && pool.size() >= CLUSTER_SIZE)
+                delta = formCluster();
+            else if (kind < 4 && !pool.isEmpty() && !clusters.isEmpty())
+                delta = swapWithPool(temperature);
+            else if (clusters.size() >= 2)
+                delta = swapBetweenClusters(temperature);
+            else
+                delta = 0;
+            cost += delta;
+            if (cost < bestCost - 1e-9) {
+                bestCost = cost;
+                bestClusters = new ArrayList<>(clusters);
+            }
+        }
+
+        putClustersIntoEvent(bestClusters);
+    }
+
+    /**
+     * Finds the clusters of the event (nine pairs in nine groups which are only connected to each other),
+     * removes their groups from the event and collects the pairs without groups into the pool.
+     */
+    private void takeClustersFromEvent() {
+        // the groups connected by their pairs
+        Map<Pair, List<Group>> groupsOfPair = new IdentityHashMap<>();
+        for (Group group : event.getGroups())
+            for (Pair pair : group.getGroupPairs())
+                groupsOfPair.computeIfAbsent(pair, k -> new ArrayList<>()).add(group);
+        Map<Group, Boolean> visited = new IdentityHashMap<>();
+        List<Group> removedGroups = new ArrayList<>();
+        List<Pair[]> foundClusters = new ArrayList<>();
+        for (Group group : event.getGroups()) {
+            if (visited.containsKey(group))
+                continue;
+            List<Group> component = new ArrayList<>();
+            List<Pair> pairs = new ArrayList<>();
+            visited.put(group, true);
+            component.add(group);
+            for (int i = 0; i < component.size(); i++) {
+                for (Pair pair : component.get(i).getGroupPairs()) {
+                    if (!pairs.contains(pair))
+                        pairs.add(pair);
+                    for (Group neighbour : groupsOfPair.get(pair))
+                        if (visited.put(neighbour, true) == null)
+                            component.add(neighbour);
+                }
+            }
+            boolean complete = component.size() == CLUSTER_SIZE && pairs.size() == CLUSTER_SIZE;
+            for (Group g : component)
+                complete &= g.getKitchenOwner() != null && g.getGroupPairs().size() == 3;
+            if (complete) {
+                removedGroups.addAll(component);
+                foundClusters.add(pairs.toArray(new Pair[0]));
+            }
+        }
+        event.getGroups().removeAll(removedGroups);
+
+        Map<Pair, Boolean> inClusters = new IdentityHashMap<>();
+        for (Pair[] pairs : foundClusters)
+            for (Pair pair : pairs) {
+                pair.setHasCooked(false);
+                inClusters.put(pair, true);
+            }
+        for (Pair pair : event.getSuccessorPairs()) {
+            if (pair.getKitchen() == null || inClusters.containsKey(pair))
+                continue;
+            pair.setHasCooked(false);
+            pool.add(pair);
+        }
+        ledger = new KitchenLedger(event.getPairs(), event.getGroups());
+        pool.removeIf(pair -> ledger.getPairsAtLocation(pair.getKitchenLocation()) > 2);
+
+        List<Pair> allPairs = new ArrayList<>(pool);
+        for (Pair[] pairs : foundClusters)
+            allPairs.addAll(Arrays.asList(pairs));
+        compatibility = new PairCompatibility(allPairs);
+
+        for (Pair[] pairs : foundClusters) {
+            Cluster cluster = schedule(pairs);
+            if (cluster == null) // cannot happen for a cluster taken from the event, but keeps the pairs in that case
+                pool.addAll(Arrays.asList(pairs));
+            else {
+                book(cluster, 1);
+                clusters.add(cluster);
+            }
+        }
+        referencePathLength = 0;
+        for (Cluster cluster : clusters)
+            for (int i = 0; i < CLUSTER_SIZE; i++)
+                referencePathLength += findPathLength(cluster.pairs, cluster.kitchenOwners, i);
+        referencePathLength = clusters.isEmpty() || referencePathLength == 0 ? 1.0 : referencePathLength / (CLUSTER_SIZE * clusters.size());
+        // the costs depend on the reference path length, which is only known now
+        for (int i = 0; i < clusters.size(); i++)
+            clusters.set(i, new Cluster(clusters.get(i).pairs, clusters.get(i).kitchenOwners, findCost(clusters.get(i).pairs, clusters.get(i).kitchenOwners)));
+    }
+
+    /**
+     * Adds the groups of the given clusters to the event and records their kitchen owners in the pairs.
+     */
+    private void putClustersIntoEvent(List<Cluster> result) {
+        List<Group> groups = new ArrayList<>();
+        for (Cluster cluster : result) {
+            for (int i = 0; i < CLUSTER_SIZE; i++) {
+                Group group = new Group(null, null, GroupAlgorithm.CLUSTER_COURSES[i], cluster.kitchenOwners[i]);
+                for (int position : GroupAlgorithm.CLUSTER_GROUPS[i])
+                    group.getGroupPairs().add(cluster.pairs[position]);
+                cluster.kitchenOwners[i].setHasCooked(true);
+                groups.add(group);
+            }
+        }
+        event.getGroups().addAll(groups);
+    }
+
+    /**
+     * Swaps a random pair of one cluster with a random pair of another cluster.
+     * @return the change of the cost, 0 if the move is not made
+     */
+    private double swapBetweenClusters(double temperature) {
+        int a = random.nextInt(clusters.size());
+        int b = random.nextInt(clusters.size() - 1);
+        if (b >= a)
+            b++;
+        Cluster clusterA = clusters.get(a);
+        Cluster clusterB = clusters.get(b);
+        int i = random.nextInt(CLUSTER_SIZE);
+        int j = random.nextInt(CLUSTER_SIZE);
+        Pair[] pairsA = replace(clusterA.pairs, i, clusterB.pairs[j]);
+        Pair[] pairsB = replace(clusterB.pairs, j, clusterA.pairs[i]);
+        if (pairsA == null || pairsB == null)
+            return 0;
+
+        book(clusterA, -1);
+        book(clusterB, -1);
+        Cluster newA = schedule(pairsA);
+        if (newA != null)
+            book(newA, 1);
+        Cluster newB = newA == null ? null : schedule(pairsB);
+        if (newB == null) {
+            if (newA != null)
+                book(newA, -1);
+            book(clusterA, 1);
+            book(clusterB, 1);
+            return 0;
+        }
+        newA = new Cluster(newA.pairs, newA.kitchenOwners, findCost(newA.pairs, newA.kitchenOwners));
+        newB = new Cluster(newB.pairs, newB.kitchenOwners, findCost(newB.pairs, newB.kitchenOwners));
+        book(newB, 1);
+        double delta = newA.cost + newB.cost - clusterA.cost - clusterB.cost;
+        if (!accept(delta, temperature)) {
+            book(newA, -1);
+            book(newB, -1);
+            book(clusterA, 1);
+            book(clusterB, 1);
+            return 0;
+        }
+        clusters.set(a, newA);
+        clusters.set(b, newB);
+        return delta;
+    }
+
+    /**
+     * Swaps a random pair of a cluster with a random pair of the pool.
+     * @return the change of the cost, 0 if the move is not made
+     */
+    private double swapWithPool(double temperature) {
+        int a = random.nextInt(clusters.size());
+        int p = random.nextInt(pool.size());
+        Cluster cluster = clusters.get(a);
+        int i = random.nextInt(CLUSTER_SIZE);
+        Pair[] pairs = replace(cluster.pairs, i, pool.get(p));
+        if (pairs == null)
+            return 0;
+
+        book(cluster, -1);
+        Cluster newCluster = schedule(pairs);
+        if (newCluster == null) {
+            book(cluster, 1);
+            return 0;
+        }
+        newCluster = new Cluster(newCluster.pairs, newCluster.kitchenOwners, findCost(newCluster.pairs, newCluster.kitchenOwners));
+        double delta = newCluster.cost - cluster.cost;
+        if (!accept(delta, temperature)) {
+            book(cluster, 1);
+            return 0;
+        }
+        book(newCluster, 1);
+        clusters.set(a, newCluster);
+        pool.set(p, cluster.pairs[i]);
+        return delta;
+    }
+
+    /**
+     * Forms a new cluster around a random pair of the pool, adding the best compatible pairs one after another
+     * like GroupAlgorithm.findPairsForCluster.
+     * @return the change of the cost, 0 if no cluster could be formed
+     */
+    private double formCluster() {
+        List<Pair> cluster = new ArrayList<>();
+        cluster.add(pool.get(random.nextInt(pool.size())));
+        accumulator.clear();
+        accumulator.add(cluster.get(0));
+        List<Pair> candidates = new ArrayList<>();
+        for (Pair pair : pool)
+            if (pair != cluster.get(0) && compatibility.areCompatible(cluster.get(0), pair))
+                candidates.add(pair);
+        Collections.shuffle(candidates, random);
+        while (cluster.size() < CLUSTER_SIZE && !candidates.isEmpty()) {
+            Pair best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Pair candidate : candidates) {
+                double score = GroupAlgorithm.calculatePairScore(candidate, accumulator,
+                        foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = candidate;
+                }
+            }
+            cluster.add(best);
+            accumulator.add(best);
+            candidates.remove(best);
+            Pair added = best;
+            candidates.removeIf(candidate -> !compatibility.areCompatible(added, candidate));
+        }
+        if (cluster.size() < CLUSTER_SIZE)
+            return 0;
+
+        Cluster newCluster = schedule(cluster.toArray(new Pair[0]));
+        if (newCluster == null)
+            return 0;
+        newCluster = new Cluster(newCluster.pairs, newCluster.kitchenOwners, findCost(newCluster.pairs, newCluster.kitchenOwners));
+        book(newCluster, 1);
+        clusters.add(newCluster);
+        pool.removeAll(cluster);
+        return newCluster.cost - UNGROUPED_PAIR_COST * CLUSTER_SIZE;
+    }
+
+    private boolean accept(double delta, double temperature) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    /**
+     * @return a copy of the pairs with the pair at the given position replaced,
+     *         or null if the new pair is not compatible with the others
+     */
+    private Pair[] replace(Pair[] pairs, int position, Pair pair) {
+        Pair[] result = pairs.clone();
+        result[position] = pair;
+        for (int i = 0; i < result.length; i++)
+            if (i != position && !compatibility.areCompatible(result[i], pair))
+                return null;
+        return result;
+    }
+
+    /**
+     * Chooses the pairs which cook each course like GroupAlgorithm.createClusterGroups, so that the paths of the pairs
+     * are as short as possible (see ClusterRoutePlanner); the kitchen owner of each group is the pair of the group
+     * which cooks its course.
+     * @return the cluster with cost 0, or null if the pairs cannot cook all groups
+     */
+    private Cluster schedule(Pair[] pairs) {
+        Pair[] arranged = ClusterRoutePlanner.arrange(Arrays.asList(pairs), this::canCook, partyLocation, distanceModel);
+        if (arranged == null)
+            return null;
+        Pair[] kitchenOwners = new Pair[CLUSTER_SIZE];
+        for (int i = 0; i < CLUSTER_SIZE; i++)
+            kitchenOwners[i] = arranged[GroupAlgorithm.CLUSTER_GROUPS[i][0]];
+        return new Cluster(arranged, kitchenOwners, 0);
+    }
+
+    private boolean canCook(Pair pair, Course course) {
+        if (ledger.getCookCount(pair.getKitchen()) + cookCount.getOrDefault(pair.getKitchen(), 0) >= 3)
+            return false;
+        if (ledger.isBooked(pair.getKitchenLocation(), course))
+            return false;
+        int[] courses = bookings.get(pair.getKitchenLocation());
+        return courses == null || courses[course.ordinal()] == 0;
+    }
+
+    /**
+     * Adds (count 1) or removes (count -1) the kitchen usage of the cluster.
+     */
+    private void book(Cluster cluster, int count) {
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            Pair kitchenOwner = cluster.kitchenOwners[i];
+            cookCount.merge(kitchenOwner.getKitchen(), count, Integer::sum);
+            bookings.computeIfAbsent(kitchenOwner.getKitchenLocation(), k -> new int[Course.values().length])
+                    [GroupAlgorithm.CLUSTER_COURSES[i].ordinal()] += count;
+        }
+    }
+
+    /**
+     * The cost of a cluster: for each pair, how badly it fits the other pairs by GroupAlgorithm.calculatePairScore,
+     * plus its path length relative to the average path length of the start solution, weighted by its priority.
+     */
+    private double findCost(Pair[] pairs, Pair[] kitchenOwners) {
+        double cost = 0;
+        for (int i = 0; i < CLUSTER_SIZE; i++) {
+            accumulator.clear();
+            for (int j = 0; j < CLUSTER_SIZE; j++)
+                if (j != i)
+                    accumulator.add(pairs[j]);
+            cost += 1 - GroupAlgorithm.calculatePairScore(pairs[i], accumulator,
+                    foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements);
+            cost += GroupAlgorithm.getWeighting(pathLength) * findPathLength(pairs, kitchenOwners, i) / referencePathLength;
+        }
+        return cost;
+    }
+
+    /**
+     * @return the path length of the pair at the given position from the appetizer over the main course
+     *         and the dessert to the after dinner party, like Metrics.measurePathLength
+     */
+    private double findPathLength(Pair[] pairs, Pair[] kitchenOwners, int position) {
+        Pair[] owners = new Pair[3];
+        for (int i = 0; i < CLUSTER_SIZE; i++)
+            for (int member : GroupAlgorithm.CLUSTER_GROUPS[i])
+                if (member == position)
+                    owners[GroupAlgorithm.CLUSTER_COURSES[i].ordinal()] = kitchenOwners[i];
+        return distanceModel.distance(owners[0].getKitchenLocation(), owners[1].getKitchenLocation())
+                + distanceModel.distance(owners[1].getKitchenLocation(), owners[2].getKitchenLocation())
+                + distanceToParty(owners[2]);
+    }
+
+    private double distanceToParty(Pair pair) {
+        return pair.getDistanceToParty(partyLocation, distanceModel);
+    }
+}
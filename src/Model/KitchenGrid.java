@@ -0,0 +1,161 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The kitchens of pairs in a grid over their locations, for finding the pairs whose kitchens are closest to a location
+ * without comparing the location with every pair.
+ *
+ * The grid has about two pairs per cell. The nearest pairs are searched in rings of cells around the cell of the location,
+ * until no cell outside the rings can contain a closer kitchen. The grid is laid over the longitudes and latitudes
+ * for the euclidean distance model, and over an equirectangular projection in metres for the other models
+ * (for the haversine distance, the projection is close enough within a city to choose the nearest kitchens).
+ */
+class KitchenGrid {
+    private record Neighbour(Pair pair, double distance) {
+    }
+
+    private final EquirectangularDistance projection; // null for the euclidean distance of the coordinates
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final List<List<Pair>> cells;
+    private final Map<Pair, Integer> cellOf = new IdentityHashMap<>();
+
+    /**
+     * @param pairs the pairs to put into the grid, pairs without a kitchen location are left out
+     * @param partyLocation the location of the after dinner party
+     */
+    KitchenGrid(List<Pair> pairs, Location partyLocation) {
+        this(pairs, partyLocation, DistanceModel.EUCLIDEAN);
+    }
+
+    /**
+     * @param pairs the pairs to put into the grid, pairs without a kitchen location are left out
+     * @param partyLocation the location of the after dinner party, around which the kitchens are projected
+     * @param distanceModel the way of measuring the distances
+     */
+    KitchenGrid(List<Pair> pairs, Location partyLocation, DistanceModel distanceModel) {
+        if (distanceModel == DistanceModel.EUCLIDEAN)
+            this.projection = null;
+        else if (distanceModel instanceof EquirectangularDistance equirectangular)
+            this.projection = equirectangular;
+        else
+            this.projection = new EquirectangularDistance(partyLocation.getLatitude());
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        List<Pair> located = new ArrayList<>();
+        for (Pair pair : pairs) {
+            Location location = pair.getKitchenLocation();
+            if (location == null || cellOf.containsKey(pair))
+                continue;
+            cellOf.put(pair, -1);
+            located.add(pair);
+            minX = Math.min(minX, x(location));
+            maxX = Math.max(maxX, x(location));
+            minY = Math.min(minY, y(location));
+            maxY = Math.max(maxY, y(location));
+        }
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(located.size() / 2.0)));
+        this.columns = side;
+        this.rows = side;
+        this.minX = located.isEmpty() ? 0 : minX;
+        this.minY = located.isEmpty() ? 0 : minY;
+        double width = located.isEmpty() ? 0 : (maxX - minX) / side;
+        double height = located.isEmpty() ? 0 : (maxY - minY) / side;
+        // kitchens on one line get square cells; kitchens at one spot all fall into the first cell, whatever its size
+        this.cellWidth = width > 0 ? width : height > 0 ? height : Double.MAX_VALUE;
+        this.cellHeight = height > 0 ? height : this.cellWidth;
+        this.cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++)
+            cells.add(new ArrayList<>());
+        for (Pair pair : located) {
+            int cell = cell(column(pair.getKitchenLocation()), row(pair.getKitchenLocation()));
+            cells.get(cell).add(pair);
+            cellOf.put(pair, cell);
+        }
+    }
+
+    /**
+     * Takes the pair out of the grid, so that it is not found by findNearest anymore.
+     */
+    void remove(Pair pair) {
+        Integer cell = cellOf.remove(pair);
+        if (cell != null)
+            cells.get(cell).removeIf(other -> other == pair);
+    }
+
+    /**
+     * @param location the location to search around
+     * @param count the maximal number of pairs
+     * @return the pairs of the grid whose kitchens are closest to the location, the closest first
+     */
+    List<Pair> findNearest(Location location, int count) {
+        // the farthest of the nearest pairs found so far at the top
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(Comparator.comparingDouble(Neighbour::distance).reversed());
+        int column = Math.min(columns - 1, Math.max(0, column(location)));
+        int row = Math.min(rows - 1, Math.max(0, row(location)));
+        int maxRing = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+        for (int ring = 0; ring <= maxRing && count > 0; ring++) {
+            for (int c = column - ring; c <= column + ring; c++) {
+                for (int r = row - ring; r <= row + ring; r++) {
+                    boolean onRing = c == column - ring || c == column + ring || r == row - ring || r == row + ring;
+                    if (!onRing || c < 0 || c >= columns || r < 0 || r >= rows)
+                        continue;
+                    for (Pair pair : cells.get(cell(c, r))) {
+                        double distance = planeDistance(location, pair.getKitchenLocation());
+                        if (nearest.size() < count)
+                            nearest.add(new Neighbour(pair, distance));
+                        else if (distance < nearest.peek().distance()) {
+                            nearest.poll();
+                            nearest.add(new Neighbour(pair, distance));
+                        }
+                    }
+                }
+            }
+            // every kitchen outside the rings is at least this far away from the location
+            if (nearest.size() == count && nearest.peek().distance() <= ring * Math.min(cellWidth, cellHeight))
+                break;
+        }
+        List<Neighbour> result = new ArrayList<>(nearest);
+        result.sort(Comparator.comparingDouble(Neighbour::distance));
+        List<Pair> pairs = new ArrayList<>(result.size());
+        for (Neighbour neighbour : result)
+            pairs.add(neighbour.pair());
+        return pairs;
+    }
+
+    private int column(Location location) {
+        return Math.min(columns - 1, (int) Math.floor((x(location) - minX) / cellWidth));
+    }
+
+    private int row(Location location) {
+        return Math.min(rows - 1, (int) Math.floor((y(location) - minY) / cellHeight));
+    }
+
+    private double x(Location location) {
+        return projection == null ? location.getLongitude() : location.getProjectedX(projection);
+    }
+
+    private double y(Location location) {
+        return projection == null ? location.getLatitude() : location.getProjectedY(projection);
+    }
+
+    private double planeDistance(Location location1, Location location2) {
+        double dx = x(location1) - x(location2);
+        double dy = y(location1) - y(location2);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int cell(int column, int row) {
+        return row * columns + column;
+    }
+}
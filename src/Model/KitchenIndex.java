@@ -0,0 +1,78 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the kitchens of the event by story and location.
+ * The index is informed by the kitchens list of the SpinfoodEvent whenever a kitchen is added or removed,
+ * so recognizing a kitchen which is shared by several registrations takes constant time during the import.
+ *
+ * The kitchens are filed under their story and coordinates at the time they are added. A kitchen which is moved
+ * afterwards (see Kitchen.setLocation) is not found under its new values and no longer under its old ones.
+ */
+class KitchenIndex implements TrackedList.Listener<Kitchen> {
+    private record Key(Integer story, Double longitude, Double latitude) {
+    }
+
+    // one entry for each time a kitchen is in the list, in the order they were added
+    private final Map<Key, List<Kitchen>> kitchens = new HashMap<>();
+
+    @Override
+    public void added(Kitchen kitchen) {
+        kitchens.computeIfAbsent(keyOf(kitchen), k -> new ArrayList<>(1)).add(kitchen);
+    }
+
+    @Override
+    public void removed(Kitchen kitchen) {
+        Key key = keyOf(kitchen);
+        if (!removeFrom(key, kitchen))
+            for (Key movedKey : List.copyOf(kitchens.keySet()))
+                if (removeFrom(movedKey, kitchen))
+                    return;
+    }
+
+    void clear() {
+        kitchens.clear();
+    }
+
+    /**
+     * @param story story of the kitchen
+     * @param longitude longitude of the kitchen
+     * @param latitude latitude of the kitchen
+     * @return the kitchen of the event with the given story and coordinates which was added last, or null if there is none
+     */
+    Kitchen find(Integer story, Double longitude, Double latitude) {
+        Key key = new Key(story, longitude, latitude);
+        List<Kitchen> found = kitchens.get(key);
+        if (found == null)
+            return null;
+        for (int i = found.size() - 1; i >= 0; i--)
+            if (key.equals(keyOf(found.get(i))))
+                return found.get(i);
+        return null;
+    }
+
+    private boolean removeFrom(Key key, Kitchen kitchen) {
+        List<Kitchen> found = kitchens.get(key);
+        if (found == null)
+            return false;
+        for (int i = found.size() - 1; i >= 0; i--) {
+            if (found.get(i) == kitchen) {
+                found.remove(i);
+                if (found.isEmpty())
+                    kitchens.remove(key);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Key keyOf(Kitchen kitchen) {
+        Location location = kitchen.getLocation();
+        return location == null ? new Key(kitchen.getStory(), null, null)
+                : new Key(kitchen.getStory(), location.getLongitude(), location.getLatitude());
+    }
+}
@@ -0,0 +1,104 @@
+package Model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the kitchen related counters which are needed while groups are formed:
+ * how often each kitchen has been cooked in, how many pairs use a kitchen at each location,
+ * and for which courses the kitchen at a location is already booked by a group.
+ *
+ * A ledger is created from the current pairs and groups of the event at the start of a run
+ * and is then kept up to date by the group algorithm, so that every check is a single lookup
+ * instead of a walk over all pairs or groups. The counters only follow the groups which are kept:
+ * groups which are still tried out are not entered until they are committed.
+ */
+public final class KitchenLedger {
+    private final Map<Kitchen, Integer> cookCount = new HashMap<>();
+    private final Map<Location, Integer> pairsAtLocation = new HashMap<>();
+    private final Map<Location, int[]> bookings = new HashMap<>();
+
+    /**
+     * Creates a ledger with the counters of the given pairs and groups.
+     *
+     * @param eventPairs all pairs of the event
+     * @param eventGroups all groups of the event
+     */
+    public KitchenLedger(List<Pair> eventPairs, List<Group> eventGroups) {
+        for (Pair pair : eventPairs) {
+            Kitchen kitchen = pair.getKitchen();
+            if (kitchen == null)
+                continue;
+            pairsAtLocation.merge(kitchen.getLocation(), 1, Integer::sum);
+            if (pair.hasCooked())
+                cookCount.merge(kitchen, 1, Integer::sum);
+        }
+        for (Group group : eventGroups)
+            book(group);
+    }
+
+    /**
+     * @param kitchen the kitchen to look up
+     * @return the number of pairs which have already cooked in the kitchen
+     */
+    public int getCookCount(Kitchen kitchen) {
+        return cookCount.getOrDefault(kitchen, 0);
+    }
+
+    /**
+     * @param location the location to look up
+     * @return the number of pairs whose kitchen is at the given location
+     */
+    public int getPairsAtLocation(Location location) {
+        return pairsAtLocation.getOrDefault(location, 0);
+    }
+
+    /**
+     * @param location the kitchen location to look up
+     * @param course the course to look up
+     * @return true if a group already cooks the given course in a kitchen at the given location
+     */
+    public boolean isBooked(Location location, Course course) {
+        int[] courses = bookings.get(location);
+        return courses != null && courses[course.ordinal()] > 0;
+    }
+
+    /**
+     * Marks the pair as cooked and counts it for its kitchen.
+     *
+     * @param pair the pair which becomes the kitchen owner of a group
+     */
+    public void recordCooking(Pair pair) {
+        if (pair.hasCooked())
+            return;
+        pair.setHasCooked(true);
+        if (pair.getKitchen() != null)
+            cookCount.merge(pair.getKitchen(), 1, Integer::sum);
+    }
+
+    /**
+     * Enters a group which is kept: its kitchen owner is recorded as cooked (see recordCooking)
+     * and its kitchen is booked for the course of the group (see book).
+     *
+     * @param group a group which has become part of the event
+     */
+    public void commit(Group group) {
+        if (group.getKitchenOwner() != null)
+            recordCooking(group.getKitchenOwner());
+        book(group);
+    }
+
+    /**
+     * Books the kitchen of the group's kitchen owner for the course of the group.
+     * Groups without kitchen owner or course do not book anything.
+     *
+     * @param group a group which has become part of the event
+     */
+    public void book(Group group) {
+        if (group.getKitchenOwner() == null || group.getCourse() == null)
+            return;
+        int[] courses = bookings.computeIfAbsent(group.getKitchenOwner().getKitchenLocation(), k -> new int[Course.values().length]);
+        courses[group.getCourse().ordinal()]++;
+    }
+}
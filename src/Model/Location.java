@@ -1,8 +1,18 @@
 package Model;
 
+/**
+ * Represents the coordinates of a kitchen or of the after dinner party.
+ */
 public class Location {
     private Double longitude;
     private Double latitude;
+    private int changeCount; // see getChangeCount
+    // the coordinates in the last equirectangular projection the location was used with, see EquirectangularDistance;
+    // kept together in one object, because the locations are shared by runs in different threads
+    private volatile Projected projected;
+
+    private record Projected(EquirectangularDistance projection, double x, double y) {
+    }
 
     public Location(Double longitude, Double latitude) {
         this.longitude = longitude;
@@ -15,6 +25,8 @@ public class Location {
 
     public void setLongitude(Double longitude) {
         this.longitude = longitude;
+        this.projected = null;
+        changeCount++;
     }
 
     public Double getLatitude() {
@@ -23,6 +35,32 @@ public class Location {
 
     public void setLatitude(Double latitude) {
         this.latitude = latitude;
+        this.projected = null;
+        changeCount++;
     }
 
+    /**
+     * @return how often the coordinates have been changed, so the pairs can tell whether their distance to the party
+     * is still up to date (see Pair.getDistanceToParty)
+     */
+    int getChangeCount() {
+        return changeCount;
+    }
+
+    double getProjectedX(EquirectangularDistance projection) {
+        return project(projection).x();
+    }
+
+    double getProjectedY(EquirectangularDistance projection) {
+        return project(projection).y();
+    }
+
+    private Projected project(EquirectangularDistance projection) {
+        Projected result = projected;
+        if (result == null || result.projection() != projection) {
+            result = new Projected(projection, projection.projectX(this), projection.projectY(this));
+            projected = result;
+        }
+        return result;
+    }
 }
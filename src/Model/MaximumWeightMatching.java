@@ -0,0 +1,575 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes a matching of maximum weight in a general (not necessarily bipartite) graph with integer edge weights,
+ * using Edmonds' blossom algorithm with dual variables (primal-dual method) in O(n^3).
+ *
+ * The structure follows the well known implementation by Joris van Rantwijk: each stage grows alternating trees
+ * from all single vertices, shrinks odd cycles into blossoms, and changes the dual variables until an augmenting path
+ * is found or no further improvement is possible. Integer weights keep all dual variables integral.
+ */
+class MaximumWeightMatching {
+    private final int numberOfVertices;
+    private final int numberOfEdges;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final long[] edgeWeight;
+
+    // endpoint[p] is the vertex at endpoint p of the edges, edge k has the endpoints 2k and 2k+1
+    private final int[] endpoint;
+    // the endpoints of the edges at each vertex, pointing to the remote vertex
+    private final int[][] neighbourEndpoints;
+
+    // mate[v] is the remote endpoint of the matched edge of v, or -1 if v is single
+    private final int[] mate;
+    // 0 = unlabeled, 1 = S, 2 = T (for vertices and top-level blossoms); 5 marks a blossom during scanBlossom
+    private final int[] label;
+    // the endpoint through which a vertex or blossom got its label, or -1
+    private final int[] labelEnd;
+    private final int[] inBlossom;
+    private final int[] blossomParent;
+    private final int[][] blossomChildren;
+    private final int[] blossomBase;
+    private final int[][] blossomEndpoints;
+    private final int[] bestEdge;
+    private final int[][] blossomBestEdges;
+    private final int[] unusedBlossoms;
+    private int numberOfUnusedBlossoms;
+    private final long[] dualVariable;
+    private final boolean[] allowEdge;
+    private int[] queue;
+    private int queueSize;
+
+    /**
+     * @param numberOfVertices the vertices are numbered 0 to numberOfVertices - 1
+     * @param edgeFrom the first vertex of each edge
+     * @param edgeTo the second vertex of each edge
+     * @param edgeWeight the weight of each edge
+     */
+    MaximumWeightMatching(int numberOfVertices, int[] edgeFrom, int[] edgeTo, long[] edgeWeight) {
+        this.numberOfVertices = numberOfVertices;
+        this.numberOfEdges = edgeFrom.length;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeWeight = edgeWeight;
+
+        int n = numberOfVertices;
+        endpoint = new int[2 * numberOfEdges];
+        int[] degree = new int[n];
+        for (int k = 0; k < numberOfEdges; k++) {
+            endpoint[2 * k] = edgeFrom[k];
+            endpoint[2 * k + 1] = edgeTo[k];
+            degree[edgeFrom[k]]++;
+            degree[edgeTo[k]]++;
+        }
+        neighbourEndpoints = new int[n][];
+        for (int v = 0; v < n; v++)
+            neighbourEndpoints[v] = new int[degree[v]];
+        Arrays.fill(degree, 0);
+        for (int k = 0; k < numberOfEdges; k++) {
+            neighbourEndpoints[edgeFrom[k]][degree[edgeFrom[k]]++] = 2 * k + 1;
+            neighbourEndpoints[edgeTo[k]][degree[edgeTo[k]]++] = 2 * k;
+        }
+
+        long maxWeight = 0;
+        for (long weight : edgeWeight)
+            maxWeight = Math.max(maxWeight, weight);
+
+        mate = new int[n];
+        Arrays.fill(mate, -1);
+        label = new int[2 * n];
+        labelEnd = new int[2 * n];
+        Arrays.fill(labelEnd, -1);
+        inBlossom = new int[n];
+        for (int v = 0; v < n; v++)
+            inBlossom[v] = v;
+        blossomParent = new int[2 * n];
+        Arrays.fill(blossomParent, -1);
+        blossomChildren = new int[2 * n][];
+        blossomBase = new int[2 * n];
+        for (int v = 0; v < n; v++)
+            blossomBase[v] = v;
+        Arrays.fill(blossomBase, n, 2 * n, -1);
+        blossomEndpoints = new int[2 * n][];
+        bestEdge = new int[2 * n];
+        Arrays.fill(bestEdge, -1);
+        blossomBestEdges = new int[2 * n][];
+        unusedBlossoms = new int[n];
+        for (int b = 0; b < n; b++)
+            unusedBlossoms[b] = n + b;
+        numberOfUnusedBlossoms = n;
+        dualVariable = new long[2 * n];
+        Arrays.fill(dualVariable, 0, n, maxWeight);
+        allowEdge = new boolean[numberOfEdges];
+        queue = new int[Math.max(16, n)];
+    }
+
+    /**
+     * @return for each vertex the vertex it is matched with, or -1 if it stays single
+     */
+    int[] solve() {
+        int n = numberOfVertices;
+        for (int stage = 0; stage < n; stage++) {
+            Arrays.fill(label, 0);
+            Arrays.fill(bestEdge, -1);
+            Arrays.fill(blossomBestEdges, n, 2 * n, null);
+            Arrays.fill(allowEdge, false);
+            queueSize = 0;
+            for (int v = 0; v < n; v++)
+                if (mate[v] == -1 && label[inBlossom[v]] == 0)
+                    assignLabel(v, 1, -1);
+
+            boolean augmented = false;
+            while (true) {
+                while (queueSize > 0 && !augmented) {
+                    int v = queue[--queueSize];
+                    for (int p : neighbourEndpoints[v]) {
+                        int k = p / 2;
+                        int w = endpoint[p];
+                        if (inBlossom[v] == inBlossom[w])
+                            continue;
+                        long kSlack = 0;
+                        if (!allowEdge[k]) {
+                            kSlack = slack(k);
+                            if (kSlack <= 0)
+                                allowEdge[k] = true;
+                        }
+                        if (allowEdge[k]) {
+                            if (label[inBlossom[w]] == 0) {
+                                assignLabel(w, 2, p ^ 1);
+                            } else if (label[inBlossom[w]] == 1) {
+                                int base = scanBlossom(v, w);
+                                if (base >= 0) {
+                                    addBlossom(base, k);
+                                } else {
+                                    augmentMatching(k);
+                                    augmented = true;
+                                    break;
+                                }
+                            } else if (label[w] == 0) {
+                                label[w] = 2;
+                                labelEnd[w] = p ^ 1;
+                            }
+                        } else if (label[inBlossom[w]] == 1) {
+                            int b = inBlossom[v];
+                            if (bestEdge[b] == -1 || kSlack < slack(bestEdge[b]))
+                                bestEdge[b] = k;
+                        } else if (label[w] == 0) {
+                            if (bestEdge[w] == -1 || kSlack < slack(bestEdge[w]))
+                                bestEdge[w] = k;
+                        }
+                    }
+                }
+                if (augmented)
+                    break;
+
+                // no augmenting path with the current duals: find the largest possible change of the duals
+                int deltaType = 1;
+                long delta = Long.MAX_VALUE;
+                int deltaEdge = -1;
+                int deltaBlossom = -1;
+                for (int v = 0; v < n; v++)
+                    delta = Math.min(delta, dualVariable[v]);
+                for (int v = 0; v < n; v++) {
+                    if (label[inBlossom[v]] == 0 && bestEdge[v] != -1) {
+                        long d = slack(bestEdge[v]);
+                        if (d < delta) {
+                            delta = d;
+                            deltaType = 2;
+                            deltaEdge = bestEdge[v];
+                        }
+                    }
+                }
+                for (int b = 0; b < 2 * n; b++) {
+                    if (blossomParent[b] == -1 && label[b] == 1 && bestEdge[b] != -1) {
+                        long d = slack(bestEdge[b]) / 2;
+                        if (d < delta) {
+                            delta = d;
+                            deltaType = 3;
+                            deltaEdge = bestEdge[b];
+                        }
+                    }
+                }
+                for (int b = n; b < 2 * n; b++) {
+                    if (blossomBase[b] >= 0 && blossomParent[b] == -1 && label[b] == 2 && dualVariable[b] < delta) {
+                        delta = dualVariable[b];
+                        deltaType = 4;
+                        deltaBlossom = b;
+                    }
+                }
+
+                for (int v = 0; v < n; v++) {
+                    if (label[inBlossom[v]] == 1)
+                        dualVariable[v] -= delta;
+                    else if (label[inBlossom[v]] == 2)
+                        dualVariable[v] += delta;
+                }
+                for (int b = n; b < 2 * n; b++) {
+                    if (blossomBase[b] >= 0 && blossomParent[b] == -1) {
+                        if (label[b] == 1)
+                            dualVariable[b] += delta;
+                        else if (label[b] == 2)
+                            dualVariable[b] -= delta;
+                    }
+                }
+
+                if (deltaType == 1) {
+                    break; // the matching is optimal
+                } else if (deltaType == 2) {
+                    allowEdge[deltaEdge] = true;
+                    int i = edgeFrom[deltaEdge];
+                    if (label[inBlossom[i]] == 0)
+                        i = edgeTo[deltaEdge];
+                    push(i);
+                } else if (deltaType == 3) {
+                    allowEdge[deltaEdge] = true;
+                    push(edgeFrom[deltaEdge]);
+                } else {
+                    expandBlossom(deltaBlossom, false);
+                }
+            }
+            if (!augmented)
+                break;
+
+            for (int b = n; b < 2 * n; b++)
+                if (blossomParent[b] == -1 && blossomBase[b] >= 0 && label[b] == 1 && dualVariable[b] == 0)
+                    expandBlossom(b, true);
+        }
+
+        int[] result = new int[n];
+        for (int v = 0; v < n; v++)
+            result[v] = mate[v] >= 0 ? endpoint[mate[v]] : -1;
+        return result;
+    }
+
+    private long slack(int k) {
+        return dualVariable[edgeFrom[k]] + dualVariable[edgeTo[k]] - 2 * edgeWeight[k];
+    }
+
+    private void push(int v) {
+        if (queueSize == queue.length)
+            queue = Arrays.copyOf(queue, queueSize * 2);
+        queue[queueSize++] = v;
+    }
+
+    /**
+     * @return the vertices of the blossom (or the vertex itself)
+     */
+    private int[] blossomLeaves(int b) {
+        if (b < numberOfVertices)
+            return new int[] {b};
+        List<Integer> leaves = new ArrayList<>();
+        collectLeaves(b, leaves);
+        int[] result = new int[leaves.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = leaves.get(i);
+        return result;
+    }
+
+    private void collectLeaves(int b, List<Integer> leaves) {
+        if (b < numberOfVertices) {
+            leaves.add(b);
+            return;
+        }
+        for (int child : blossomChildren[b])
+            collectLeaves(child, leaves);
+    }
+
+    /**
+     * Labels the vertex w and its top-level blossom with t (S or T), reached through endpoint p.
+     */
+    private void assignLabel(int w, int t, int p) {
+        int b = inBlossom[w];
+        label[w] = label[b] = t;
+        labelEnd[w] = labelEnd[b] = p;
+        bestEdge[w] = bestEdge[b] = -1;
+        if (t == 1) {
+            for (int v : blossomLeaves(b))
+                push(v);
+        } else {
+            int base = blossomBase[b];
+            assignLabel(endpoint[mate[base]], 1, mate[base] ^ 1);
+        }
+    }
+
+    /**
+     * Traces back from the S-vertices v and w to find a new blossom or an augmenting path.
+     * @return the base of the new blossom, or -1 if an augmenting path was found
+     */
+    private int scanBlossom(int v, int w) {
+        List<Integer> path = new ArrayList<>();
+        int base = -1;
+        while (v != -1 || w != -1) {
+            int b = inBlossom[v];
+            if ((label[b] & 4) != 0) {
+                base = blossomBase[b];
+                break;
+            }
+            path.add(b);
+            label[b] = 5;
+            if (labelEnd[b] == -1) {
+                v = -1;
+            } else {
+                v = endpoint[labelEnd[b]];
+                b = inBlossom[v];
+                v = endpoint[labelEnd[b]];
+            }
+            if (w != -1) {
+                int swap = v;
+                v = w;
+                w = swap;
+            }
+        }
+        for (int b : path)
+            label[b] = 1;
+        return base;
+    }
+
+    /**
+     * Shrinks the odd cycle through edge k and the alternating trees to the base into a new blossom.
+     */
+    private void addBlossom(int base, int k) {
+        int v = edgeFrom[k];
+        int w = edgeTo[k];
+        int bb = inBlossom[base];
+        int bv = inBlossom[v];
+        int bw = inBlossom[w];
+        int b = unusedBlossoms[--numberOfUnusedBlossoms];
+        blossomBase[b] = base;
+        blossomParent[b] = -1;
+        blossomParent[bb] = b;
+
+        List<Integer> path = new ArrayList<>();
+        List<Integer> endpoints = new ArrayList<>();
+        while (bv != bb) {
+            blossomParent[bv] = b;
+            path.add(bv);
+            endpoints.add(labelEnd[bv]);
+            v = endpoint[labelEnd[bv]];
+            bv = inBlossom[v];
+        }
+        path.add(bb);
+        java.util.Collections.reverse(path);
+        java.util.Collections.reverse(endpoints);
+        endpoints.add(2 * k);
+        while (bw != bb) {
+            blossomParent[bw] = b;
+            path.add(bw);
+            endpoints.add(labelEnd[bw] ^ 1);
+            w = endpoint[labelEnd[bw]];
+            bw = inBlossom[w];
+        }
+        blossomChildren[b] = path.stream().mapToInt(Integer::intValue).toArray();
+        blossomEndpoints[b] = endpoints.stream().mapToInt(Integer::intValue).toArray();
+
+        label[b] = 1;
+        labelEnd[b] = labelEnd[bb];
+        dualVariable[b] = 0;
+        for (int leaf : blossomLeaves(b)) {
+            if (label[inBlossom[leaf]] == 2)
+                push(leaf);
+            inBlossom[leaf] = b;
+        }
+
+        // compute the least-slack edges from the new blossom to the neighbouring S-blossoms
+        int[] bestEdgeTo = new int[2 * numberOfVertices];
+        Arrays.fill(bestEdgeTo, -1);
+        for (int child : blossomChildren[b]) {
+            if (blossomBestEdges[child] == null) {
+                for (int leaf : blossomLeaves(child))
+                    for (int p : neighbourEndpoints[leaf])
+                        considerBestEdge(b, p / 2, bestEdgeTo);
+            } else {
+                for (int edge : blossomBestEdges[child])
+                    considerBestEdge(b, edge, bestEdgeTo);
+            }
+            blossomBestEdges[child] = null;
+            bestEdge[child] = -1;
+        }
+        blossomBestEdges[b] = Arrays.stream(bestEdgeTo).filter(edge -> edge != -1).toArray();
+        bestEdge[b] = -1;
+        for (int edge : blossomBestEdges[b])
+            if (bestEdge[b] == -1 || slack(edge) < slack(bestEdge[b]))
+                bestEdge[b] = edge;
+    }
+
+    private void considerBestEdge(int b, int k, int[] bestEdgeTo) {
+        int j = inBlossom[edgeTo[k]] == b ? edgeFrom[k] : edgeTo[k];
+        int bj = inBlossom[j];
+        if (bj != b && label[bj] == 1 && (bestEdgeTo[bj] == -1 || slack(k) < slack(bestEdgeTo[bj])))
+            bestEdgeTo[bj] = k;
+    }
+
+    /**
+     * Expands the blossom b into its sub-blossoms.
+     * @param endStage true at the end of a stage, when blossoms with a dual variable of zero are expanded recursively
+     */
+    private void expandBlossom(int b, boolean endStage) {
+        for (int s : blossomChildren[b]) {
+            blossomParent[s] = -1;
+            if (s < numberOfVertices)
+                inBlossom[s] = s;
+            else if (endStage && dualVariable[s] == 0)
+                expandBlossom(s, endStage);
+            else
+                for (int leaf : blossomLeaves(s))
+                    inBlossom[leaf] = s;
+        }
+
+        if (!endStage && label[b] == 2) {
+            // relabel the sub-blossoms on the even path from the entry child to the base
+            int[] children = blossomChildren[b];
+            int[] endpoints = blossomEndpoints[b];
+            int length = children.length;
+            int entryChild = inBlossom[endpoint[labelEnd[b] ^ 1]];
+            int j = indexOf(children, entryChild);
+            int jStep;
+            int endpointTrick;
+            if ((j & 1) != 0) {
+                j -= length;
+                jStep = 1;
+                endpointTrick = 0;
+            } else {
+                jStep = -1;
+                endpointTrick = 1;
+            }
+            int p = labelEnd[b];
+            while (j != 0) {
+                label[endpoint[p ^ 1]] = 0;
+                label[endpoint[at(endpoints, j - endpointTrick) ^ endpointTrick ^ 1]] = 0;
+                assignLabel(endpoint[p ^ 1], 2, p);
+                allowEdge[at(endpoints, j - endpointTrick) / 2] = true;
+                j += jStep;
+                p = at(endpoints, j - endpointTrick) ^ endpointTrick;
+                allowEdge[p / 2] = true;
+                j += jStep;
+            }
+            int bv = at(children, j);
+            label[endpoint[p ^ 1]] = label[bv] = 2;
+            labelEnd[endpoint[p ^ 1]] = labelEnd[bv] = p;
+            bestEdge[bv] = -1;
+            j += jStep;
+            while (at(children, j) != entryChild) {
+                bv = at(children, j);
+                if (label[bv] == 1) {
+                    j += jStep;
+                    continue;
+                }
+                int labeledLeaf = -1;
+                for (int leaf : blossomLeaves(bv)) {
+                    if (label[leaf] != 0) {
+                        labeledLeaf = leaf;
+                        break;
+                    }
+                }
+                if (labeledLeaf >= 0) {
+                    label[labeledLeaf] = 0;
+                    label[endpoint[mate[blossomBase[bv]]]] = 0;
+                    assignLabel(labeledLeaf, 2, labelEnd[labeledLeaf]);
+                }
+                j += jStep;
+            }
+        }
+
+        label[b] = labelEnd[b] = -1;
+        blossomChildren[b] = blossomEndpoints[b] = null;
+        blossomBase[b] = -1;
+        blossomBestEdges[b] = null;
+        bestEdge[b] = -1;
+        unusedBlossoms[numberOfUnusedBlossoms++] = b;
+    }
+
+    /**
+     * Swaps the matched and unmatched edges on the even path from the vertex v to the base of the blossom b,
+     * so that v becomes the new base.
+     */
+    private void augmentBlossom(int b, int v) {
+        int t = v;
+        while (blossomParent[t] != b)
+            t = blossomParent[t];
+        if (t >= numberOfVertices)
+            augmentBlossom(t, v);
+        int[] children = blossomChildren[b];
+        int[] endpoints = blossomEndpoints[b];
+        int i = indexOf(children, t);
+        int j = i;
+        int jStep;
+        int endpointTrick;
+        if ((i & 1) != 0) {
+            j -= children.length;
+            jStep = 1;
+            endpointTrick = 0;
+        } else {
+            jStep = -1;
+            endpointTrick = 1;
+        }
+        while (j != 0) {
+            j += jStep;
+            t = at(children, j);
+            int p = at(endpoints, j - endpointTrick) ^ endpointTrick;
+            if (t >= numberOfVertices)
+                augmentBlossom(t, endpoint[p]);
+            j += jStep;
+            t = at(children, j);
+            if (t >= numberOfVertices)
+                augmentBlossom(t, endpoint[p ^ 1]);
+            mate[endpoint[p]] = p ^ 1;
+            mate[endpoint[p ^ 1]] = p;
+        }
+        blossomChildren[b] = rotate(children, i);
+        blossomEndpoints[b] = rotate(endpoints, i);
+        blossomBase[b] = blossomBase[blossomChildren[b][0]];
+    }
+
+    /**
+     * Swaps the matched and unmatched edges along the augmenting path through edge k.
+     */
+    private void augmentMatching(int k) {
+        int[][] starts = {{edgeFrom[k], 2 * k + 1}, {edgeTo[k], 2 * k}};
+        for (int[] start : starts) {
+            int s = start[0];
+            int p = start[1];
+            while (true) {
+                int bs = inBlossom[s];
+                if (bs >= numberOfVertices)
+                    augmentBlossom(bs, s);
+                mate[s] = p;
+                if (labelEnd[bs] == -1)
+                    break;
+                int t = endpoint[labelEnd[bs]];
+                int bt = inBlossom[t];
+                s = endpoint[labelEnd[bt]];
+                int j = endpoint[labelEnd[bt] ^ 1];
+                if (bt >= numberOfVertices)
+                    augmentBlossom(bt, j);
+                mate[j] = labelEnd[bt];
+                p = labelEnd[bt] ^ 1;
+            }
+        }
+    }
+
+    /**
+     * Accesses an array with Python-like negative indices, which count from the end.
+     */
+    private static int at(int[] array, int index) {
+        return array[index < 0 ? index + array.length : index];
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++)
+            if (array[i] == value)
+                return i;
+        return -1;
+    }
+
+    private static int[] rotate(int[] array, int start) {
+        int[] rotated = new int[array.length];
+        System.arraycopy(array, start, rotated, 0, array.length - start);
+        System.arraycopy(array, 0, rotated, array.length - start, start);
+        return rotated;
+    }
+}
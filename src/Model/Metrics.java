@@ -2,7 +2,6 @@ package Model;
 
 import java.util.List;
 
-import static Model.SpinfoodEvent.findDistance;
 
 public class Metrics {
 
@@ -63,38 +62,67 @@ public class Metrics {
     }
 
     protected static void measurePathLength(Pair pair, List<Group> eventGroups, Location afterDinnerPartyLocation) {
-        double pathLength = 0.0;
-
-        double length1 = 0.0;
-        double length2 = 0.0;
-        double length3 = 0.0;
-
-        Location loc1 = null;
-        Location loc2 = null;
-        Location loc3 = null;
+        Group appetizerGroup = null;
+        Group mainGroup = null;
+        Group dessertGroup = null;
 
         for(Group group : eventGroups) {
             if(group.getGroupPairs().contains(pair)) {
-                Course course = group.getCourse();
-                switch (course) {
+                switch (group.getCourse()) {
                     case APPETIZER:
-                        loc1 = group.getKitchenOwner().getKitchenLocation();
-
+                        appetizerGroup = group;
+                        break;
                     case MAIN:
-                        loc2 = group.getKitchenOwner().getKitchenLocation();
-
+                        mainGroup = group;
+                        break;
                     case DESSERT:
-                        loc3 = group.getKitchenOwner().getKitchenLocation();
-
+                        dessertGroup = group;
+                        break;
                 }
             }
         }
-        length1 = findDistance(loc1, loc2);
-        length2 = findDistance(loc2, loc3);
-        length3 = findDistance(loc3, afterDinnerPartyLocation);
+        measurePathLength(pair, appetizerGroup, mainGroup, dessertGroup, afterDinnerPartyLocation);
+    }
 
-        pathLength = length1 + length2 + length3;
+    /**
+     * Measures the path length of a pair from the appetizer over the main course and the dessert to the after dinner party.
+     * The groups of the pair are given directly, e.g. from the pair-to-group index of the event.
+     * If the pair has no group for a course, it stays at the kitchen of the previous course.
+     *
+     * @param pair the pair to measure
+     * @param appetizerGroup the appetizer group of the pair
+     * @param mainGroup the main course group of the pair
+     * @param dessertGroup the dessert group of the pair
+     * @param afterDinnerPartyLocation the location of the after dinner party
+     */
+    protected static void measurePathLength(Pair pair, Group appetizerGroup, Group mainGroup, Group dessertGroup, Location afterDinnerPartyLocation) {
+        measurePathLength(pair, appetizerGroup, mainGroup, dessertGroup, afterDinnerPartyLocation, DistanceModel.EUCLIDEAN);
+    }
 
-        pair.setPathLength(pathLength);
+    /**
+     * Same as {@link #measurePathLength(Pair, Group, Group, Group, Location)}, with the distances measured by the given model.
+     * The distance from the last kitchen to the after dinner party is the one kept in the pair cooking there
+     * (see Pair.getDistanceToParty).
+     *
+     * @param pair the pair to measure
+     * @param appetizerGroup the appetizer group of the pair
+     * @param mainGroup the main course group of the pair
+     * @param dessertGroup the dessert group of the pair
+     * @param afterDinnerPartyLocation the location of the after dinner party
+     * @param distanceModel the way of measuring the distances
+     */
+    protected static void measurePathLength(Pair pair, Group appetizerGroup, Group mainGroup, Group dessertGroup, Location afterDinnerPartyLocation,
+                                            DistanceModel distanceModel) {
+        Pair owner1 = appetizerGroup != null ? appetizerGroup.getKitchenOwner() : null;
+        Pair owner2 = mainGroup != null ? mainGroup.getKitchenOwner() : owner1;
+        Pair owner3 = dessertGroup != null ? dessertGroup.getKitchenOwner() : owner2;
+        if (owner1 == null)
+            owner1 = owner2;
+
+        double length1 = distanceModel.distance(owner1.getKitchenLocation(), owner2.getKitchenLocation());
+        double length2 = distanceModel.distance(owner2.getKitchenLocation(), owner3.getKitchenLocation());
+        double length3 = owner3.getDistanceToParty(afterDinnerPartyLocation, distanceModel);
+
+        pair.setPathLength(length1 + length2 + length3);
     }
 }
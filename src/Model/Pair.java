@@ -18,6 +18,14 @@ public class Pair {
     private int preferenceDeviation;
     private double femaleProportion;
     private Integer number;
+    // the distance of the kitchen to the after dinner party, for the kitchen location, party location (with the change counts
+    // of their coordinates) and model it was computed with
+    private Location distanceKitchenLocation;
+    private int distanceKitchenChangeCount;
+    private Location distancePartyLocation;
+    private int distancePartyChangeCount;
+    private DistanceModel distanceModel;
+    private double distanceToParty;
 
     public Pair(Participant participant1, Participant participant2, FoodPreference foodPreference, boolean pariticipant2IsKitchenOwner) {
         this.participant1 = participant1;
@@ -115,6 +123,29 @@ public class Pair {
         return (double) (participant1.getFoodPreferenceValue() + participant2.getFoodPreferenceValue()) / 2;
     }
 
+    /**
+     * Returns the distance of the kitchen of the pair to the after dinner party. The distance is computed on first use
+     * and kept until it is asked for with another party location or distance model, the pair uses another kitchen,
+     * or the coordinates of the kitchen or the party are changed.
+     * @param partyLocation the location of the after dinner party
+     * @param distanceModel the way of measuring the distance
+     * @return the distance from the kitchen to the after dinner party
+     */
+    public double getDistanceToParty(Location partyLocation, DistanceModel distanceModel) {
+        Location kitchenLocation = getKitchenLocation();
+        if (kitchenLocation != distanceKitchenLocation || partyLocation != distancePartyLocation || distanceModel != this.distanceModel
+                || kitchenLocation != null && kitchenLocation.getChangeCount() != distanceKitchenChangeCount
+                || partyLocation != null && partyLocation.getChangeCount() != distancePartyChangeCount) {
+            distanceToParty = distanceModel.distance(kitchenLocation, partyLocation);
+            distanceKitchenLocation = kitchenLocation;
+            distanceKitchenChangeCount = kitchenLocation == null ? 0 : kitchenLocation.getChangeCount();
+            distancePartyLocation = partyLocation;
+            distancePartyChangeCount = partyLocation == null ? 0 : partyLocation.getChangeCount();
+            this.distanceModel = distanceModel;
+        }
+        return distanceToParty;
+    }
+
     public double getFemaleProportion() {
         return femaleProportion;
     }
@@ -5,23 +5,36 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class PairAlgorithm {
+    // the priority of each candidate food preference (by ordinal) for each participant food preference (by ordinal)
+    private static final int[][] FOOD_PREFERENCE_PRIORITIES = new int[FoodPreference.values().length][];
+
+    static {
+        FOOD_PREFERENCE_PRIORITIES[FoodPreference.MEAT.ordinal()] = priorities(FoodPreference.MEAT, FoodPreference.NONE, FoodPreference.VEGGIE, FoodPreference.VEGAN);
+        FOOD_PREFERENCE_PRIORITIES[FoodPreference.NONE.ordinal()] = priorities(FoodPreference.NONE, FoodPreference.MEAT, FoodPreference.VEGGIE, FoodPreference.VEGAN);
+        FOOD_PREFERENCE_PRIORITIES[FoodPreference.VEGGIE.ordinal()] = priorities(FoodPreference.VEGGIE, FoodPreference.VEGAN, FoodPreference.NONE, FoodPreference.MEAT);
+        FOOD_PREFERENCE_PRIORITIES[FoodPreference.VEGAN.ordinal()] = priorities(FoodPreference.VEGAN, FoodPreference.VEGGIE, FoodPreference.NONE, FoodPreference.MEAT);
+    }
+
+    /**
+     * @param preferencesInOrder the food preferences from the most to the least favourable
+     * @return the priority (1/2/3/4) of each food preference, by ordinal
+     */
+    private static int[] priorities(FoodPreference... preferencesInOrder) {
+        int[] priorities = new int[preferencesInOrder.length];
+        for (int i = 0; i < preferencesInOrder.length; i++)
+            priorities[preferencesInOrder[i].ordinal()] = i + 1;
+        return priorities;
+    }
 
     /**
      * Finds participants who do not belong to any pair.
      * @return the list of all participants in the event who are not found in this.pairs yet.
      */
     protected static List<Participant> findParticipantsWithoutPartner(List<Participant> participants, List<Pair> pairs) {
+        Set<Participant> participantsInPairs = collectParticipantsInPairs(pairs);
         List<Participant> participantsWithoutPartner = new ArrayList<>();
         for (Participant participant : participants) {
-            boolean found = false;
-            for (Pair pair : pairs) {
-                if ((pair.getParticipants().get(0).equals(participant))
-                        || (pair.getParticipants().get(1).equals(participant))) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) participantsWithoutPartner.add(participant);
+            if (!participantsInPairs.contains(participant)) participantsWithoutPartner.add(participant);
         }
         return participantsWithoutPartner;
     }
@@ -31,21 +44,28 @@ public class PairAlgorithm {
      * @return the list of all participants in the event who are found in this.pairs.
      */
     protected static List<Participant> findParticipantsWithPartner(List<Participant> participants, List<Pair> pairs) {
+        Set<Participant> participantsInPairs = collectParticipantsInPairs(pairs);
         List<Participant> participantsWithPartner = new ArrayList<>();
         for (Participant participant : participants) {
-            boolean found = false;
-            for (Pair pair : pairs) {
-                if ((pair.getParticipants().get(0).equals(participant))
-                        || (pair.getParticipants().get(1).equals(participant))) {
-                    found = true;
-                    break;
-                }
-            }
-            if (found) participantsWithPartner.add(participant);
+            if (participantsInPairs.contains(participant)) participantsWithPartner.add(participant);
         }
         return participantsWithPartner;
     }
 
+    /**
+     * Collects all participants of the given pairs in one pass, so that membership can be checked in constant time.
+     * @param pairs the pairs to collect the participants from
+     * @return a set (by identity) of all participants who belong to one of the pairs
+     */
+    private static Set<Participant> collectParticipantsInPairs(List<Pair> pairs) {
+        Set<Participant> participantsInPairs = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Pair pair : pairs) {
+            participantsInPairs.add(pair.getParticipant1());
+            participantsInPairs.add(pair.getParticipant2());
+        }
+        return participantsInPairs;
+    }
+
     /**
      * Find all participants from a given list who registered in the event with specified KitchenExists.
      * @param participants an input list of participants
@@ -71,8 +91,8 @@ public class PairAlgorithm {
      * @return filtered input list, with participants who already have a partner removed.
      */
     protected static List<Participant> removeMatchedParticipants(List<Participant> inputList, List<Pair> pairs) {
-        List<Participant> participantsWithPartner = findParticipantsWithPartner(inputList, pairs);
-        inputList.removeAll(participantsWithPartner);
+        Set<Participant> participantsInPairs = collectParticipantsInPairs(pairs);
+        inputList.removeIf(participantsInPairs::contains);
         return inputList;
     }
 
@@ -88,20 +108,20 @@ public class PairAlgorithm {
      */
     protected static List<Participant> findValidCandidates(Participant participant, List<Participant> listOfParticipants) {
         List<Participant> result = new ArrayList<>();
+        FoodPreference preference = participant.getFoodPreference();
+        boolean meat = preference == FoodPreference.MEAT;
+        boolean vegetarian = preference == FoodPreference.VEGGIE || preference == FoodPreference.VEGAN;
         for (Participant p : listOfParticipants) {
-            if (participant.equals(p)) // a participant should not be paired with himself
+            if (participant == p) // a participant should not be paired with himself
+                continue;
+            FoodPreference candidatePreference = p.getFoodPreference();
+            if ((meat && (candidatePreference == FoodPreference.VEGAN || candidatePreference == FoodPreference.VEGGIE)) // criteria 6.1
+                    || (vegetarian && candidatePreference == FoodPreference.MEAT))
                 continue;
-            boolean valid = true;
-            if (((participant.getFoodPreference().equals(FoodPreference.MEAT)) // criteria 6.1
-                    && ((p.getFoodPreference().equals(FoodPreference.VEGAN)) || (p.getFoodPreference().equals(FoodPreference.VEGGIE))))
-                    || ((p.getFoodPreference().equals(FoodPreference.MEAT))
-                    && ((participant.getFoodPreference().equals(FoodPreference.VEGAN)) || (participant.getFoodPreference().equals(FoodPreference.VEGGIE)))))
-                valid = false;
             if ((participant.getKitchen() != null) && (p.getKitchen() != null)
                     && (participant.getKitchen().equals(p.getKitchen()))) // criteria 6.5 same address (kitchen) is not allowed
-                valid = false;
-            if (valid)
-                result.add(p);
+                continue;
+            result.add(p);
         }
         return result;
     }
@@ -160,14 +180,10 @@ public class PairAlgorithm {
      */
     protected static List<Participant> sortParticipantsBySameFoodPreferenceFirst(Participant participant, List<Participant> candidates) {
         FoodPreference participantPreference = participant.getFoodPreference();
-        Comparator<Participant> comparator = (p1, p2) -> {
-            int priority1 = getFoodPreferencePriority(participantPreference, p1.getFoodPreference());
-            int priority2 = getFoodPreferencePriority(participantPreference, p2.getFoodPreference());
-            return Integer.compare(priority1, priority2);
-        };
-        return candidates.stream()
-                .sorted(comparator)
-                .collect(Collectors.toList());
+        int[] priorities = new int[candidates.size()];
+        for (int i = 0; i < priorities.length; i++) // priorities 1 to 4, or 5 if the candidate has no food preference
+            priorities[i] = Math.min(getFoodPreferencePriority(participantPreference, candidates.get(i).getFoodPreference()), 5);
+        return sortByKey(candidates, priorities, 5);
     }
 
     /**
@@ -177,34 +193,8 @@ public class PairAlgorithm {
      * @return the priority of the candidate (1/2/3/4) based on the participant's and the candidate's food preference.
      */
     protected static int getFoodPreferencePriority(FoodPreference participantPreference, FoodPreference candidatePreference) {
-        Map<FoodPreference, Integer> priorityMap = new HashMap<>();
-        switch (participantPreference) {
-            case MEAT:
-                priorityMap.put(FoodPreference.MEAT, 1);
-                priorityMap.put(FoodPreference.NONE, 2);
-                priorityMap.put(FoodPreference.VEGGIE, 3);
-                priorityMap.put(FoodPreference.VEGAN, 4);
-                break;
-            case NONE:
-                priorityMap.put(FoodPreference.NONE, 1);
-                priorityMap.put(FoodPreference.MEAT, 2);
-                priorityMap.put(FoodPreference.VEGGIE, 3);
-                priorityMap.put(FoodPreference.VEGAN, 4);
-                break;
-            case VEGGIE:
-                priorityMap.put(FoodPreference.VEGGIE, 1);
-                priorityMap.put(FoodPreference.VEGAN, 2);
-                priorityMap.put(FoodPreference.NONE, 3);
-                priorityMap.put(FoodPreference.MEAT, 4);
-                break;
-            case VEGAN:
-                priorityMap.put(FoodPreference.VEGAN, 1);
-                priorityMap.put(FoodPreference.VEGGIE, 2);
-                priorityMap.put(FoodPreference.NONE, 3);
-                priorityMap.put(FoodPreference.MEAT, 4);
-                break;
-        }
-        return priorityMap.getOrDefault(candidatePreference, Integer.MAX_VALUE);
+        int[] priorities = FOOD_PREFERENCE_PRIORITIES[participantPreference.ordinal()];
+        return candidatePreference == null ? Integer.MAX_VALUE : priorities[candidatePreference.ordinal()];
     }
 
     /**
@@ -214,9 +204,34 @@ public class PairAlgorithm {
      * @return a sorted list of candidates with favourable age group first.
      */
     protected static List<Participant> sortParticipantsBySameAgeGroupFirst(Participant participant, List<Participant> listOfParticipants) {
-        List<Participant> result = new ArrayList<>(listOfParticipants);
-        result.sort(Comparator.comparingInt(p -> Math.abs(p.getAgeGroup() - participant.getAgeGroup())));
-        return result;
+        int ageGroup = participant.getAgeGroup();
+        int[] differences = new int[listOfParticipants.size()];
+        int maxDifference = 0;
+        for (int i = 0; i < differences.length; i++) {
+            differences[i] = Math.abs(listOfParticipants.get(i).getAgeGroup() - ageGroup);
+            maxDifference = Math.max(maxDifference, differences[i]);
+        }
+        return sortByKey(listOfParticipants, differences, maxDifference);
+    }
+
+    /**
+     * Sorts the participants by a small non-negative key, keeping the order of participants with the same key
+     * (like List.sort with Comparator.comparingInt, but in linear time).
+     * @param participants the participants to sort
+     * @param keys the key of each participant, by position in the list
+     * @param maxKey the largest key
+     * @return a new sorted list
+     */
+    private static List<Participant> sortByKey(List<Participant> participants, int[] keys, int maxKey) {
+        int[] start = new int[maxKey + 2];
+        for (int key : keys)
+            start[key + 1]++;
+        for (int key = 0; key <= maxKey; key++)
+            start[key + 1] += start[key];
+        Participant[] sorted = new Participant[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            sorted[start[keys[i]]++] = participants.get(i);
+        return new ArrayList<>(Arrays.asList(sorted));
     }
 
     /**
@@ -228,8 +243,9 @@ public class PairAlgorithm {
     protected static List<Participant> sortParticipantsByDifferentGenderFirst(Participant participant, List<Participant> listOfParticipants) {
         List<Participant> sameGender = new ArrayList<>();
         List<Participant> differentGender = new ArrayList<>();
+        Gender gender = participant.getGender();
         for (Participant p : listOfParticipants) {
-            if (participant.getGender().equals(p.getGender()))
+            if (gender == p.getGender())
                 sameGender.add(p);
             else
                 differentGender.add(p);
@@ -258,113 +274,83 @@ public class PairAlgorithm {
 
 
     /**
-     * An assisting method for the method createPairs, which forms pairs from participant lists 1 & 2 based on grouping and sorting.
-     * @param participantList1 the first list of participants
-     * @param participantList2 the second list of participants
+     * An assisting method for the method createPairs, which forms pairs from the participants of the pool with
+     * kitchens 1 & 2 based on grouping and sorting.
+     * @param pool the participants to match, classified once for all passes of the matching
+     * @param kitchenExists1 the kitchen of the first participants
+     * @param kitchenExists2 the kitchen of the second participants
      * @param foodPreference the priority for food preference
      * @param ageDifference the priority for age difference
      * @param genderDiversity the priority for gender diversity
      * @param restrictedToPriorityOnePreference if the matching is strictly restricted to the priority-1-preference
      */
-    protected static void handlePairMatchingWithPreference(List<Participant> participantList1, List<Participant> participantList2,
+    protected static void handlePairMatchingWithPreference(CandidatePool pool, KitchenExists kitchenExists1, KitchenExists kitchenExists2,
                                                   int foodPreference,  int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference, SpinfoodEvent event) {
-        participantList1 = PairAlgorithm.removeMatchedParticipants(participantList1, event.getPairs());
-        participantList2 = PairAlgorithm.removeMatchedParticipants(participantList2, event.getPairs());
-        List<List<Participant>> groups1 = new ArrayList<>();
-        List<List<Participant>> groups2 = new ArrayList<>();
+        ParticipantTable table = pool.table();
+        List<BitSet[]> groups1 = new ArrayList<>();
+        List<BitSet[]> groups2 = new ArrayList<>();
 
-        arrangeGroupsBasedOnPreference(participantList1, participantList2, foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, groups1, groups2);
+        arrangeGroupsBasedOnPreference(pool, kitchenExists1, kitchenExists2, foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, groups1, groups2);
 
         for (int j = 0; j < groups1.size(); j++) {
-            for (Participant participant : groups1.get(j)) {
-                if (PairAlgorithm.findParticipantsWithPartner(event.getParticipants(), event.getPairs()).contains(participant)) // skip if participant belongs to a pair already
-                    continue;
-                Integer kitchenOwner = 1;
-                List<Participant> candidates = PairAlgorithm.findValidCandidates(participant, groups2.get(j));
-                candidates = PairAlgorithm.removeMatchedParticipants(candidates, event.getPairs());
-                candidates = sortByBestCandidates(foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, participant, candidates);
-
-                Participant partner = null;
-                if (candidates.size() > 0) partner = candidates.get(0);
+            for (BitSet group : groups1.get(j)) {
+                for (int i = group.nextSetBit(0); i >= 0; i = group.nextSetBit(i + 1)) {
+                    if (event.getProgress().isCancelled())
+                        return;
+                    if (!pool.isAvailable(i)) // skip if participant belongs to a pair already
+                        continue;
+                    Integer kitchenOwner = 1;
+                    int partnerPosition = new CandidateRanking(foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, pool, i)
+                            .findBest(groups2.get(j));
 
-                if (partner != null) {
-                    if (partner.getKitchen() != null) // criteria 6.3
-                        if (SpinfoodEvent.findDistance(partner.getKitchen().getLocation(), event.getAfterDinnerPartyLocation())
-                                < SpinfoodEvent.findDistance(participant.getKitchen().getLocation(), event.getAfterDinnerPartyLocation()))
-                            kitchenOwner = 2;
-                    event.getPairs().add(new Pair(participant, partner, PairAlgorithm.findPairFoodPreference(participant, partner), kitchenOwner==2));
+                    if (partnerPosition >= 0) {
+                        Participant participant = pool.get(i);
+                        Participant partner = pool.get(partnerPosition);
+                        if (partner.getKitchen() != null) // criteria 6.3
+                            if (table.findKitchenDistance(pool.row(partnerPosition), event.getAfterDinnerPartyLocation())
+                                    < table.findKitchenDistance(pool.row(i), event.getAfterDinnerPartyLocation()))
+                                kitchenOwner = 2;
+                        event.getPairs().add(new Pair(participant, partner, PairAlgorithm.findPairFoodPreference(participant, partner), kitchenOwner==2));
+                        pool.remove(i);
+                        pool.remove(partnerPosition);
+                        event.getProgress().advance();
+                    }
                 }
-
             }
         }
 
     }
 
-    private static void arrangeGroupsBasedOnPreference(List<Participant> participantList1, List<Participant> participantList2, int foodPreference, int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference, List<List<Participant>> groups1, List<List<Participant>> groups2) {
+    /**
+     * Selects the groups of participants who are matched with each other. A group may consist of several selections,
+     * whose participants are taken in the order of the selections (e.g. MALE before OTHER).
+     */
+    private static void arrangeGroupsBasedOnPreference(CandidatePool pool, KitchenExists kitchenExists1, KitchenExists kitchenExists2, int foodPreference, int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference, List<BitSet[]> groups1, List<BitSet[]> groups2) {
         if (restrictedToPriorityOnePreference) { // strict matching which priority 1 must be fulfilled
             if (foodPreference == 1) // criteria 6.1 & 6.6: we classify the groups further with food preference
                 for (FoodPreference preference : FoodPreference.values()) {
-                    groups1.add(PairAlgorithm.findParticipantsWithSameFoodPreference(participantList1, preference));
-                    groups2.add(PairAlgorithm.findParticipantsWithSameFoodPreference(participantList2, preference));
+                    groups1.add(new BitSet[] {pool.select(kitchenExists1, preference)});
+                    groups2.add(new BitSet[] {pool.select(kitchenExists2, preference)});
                 }
             if (ageDifference == 1) // criteria 6.7
                 for (int i = 0; i < 9; i++) {
-                    groups1.add(PairAlgorithm.findParticipantsWithSameAgeGroup(participantList1, i));
-                    groups2.add(PairAlgorithm.findParticipantsWithSameAgeGroup(participantList2, i));
+                    groups1.add(new BitSet[] {pool.select(kitchenExists1, i)});
+                    groups2.add(new BitSet[] {pool.select(kitchenExists2, i)});
                 }
             if (genderDiversity == 1) {// criteria 6.8
-                groups1.add(PairAlgorithm.findParticipantsWithSameGender(participantList1, Gender.FEMALE));
-                groups2.add(Stream.concat(
-                                PairAlgorithm.findParticipantsWithSameGender(participantList2, Gender.MALE).stream(),
-                                PairAlgorithm.findParticipantsWithSameGender(participantList2, Gender.OTHER).stream())
-                        .toList());
-                groups1.add(Stream.concat(
-                                PairAlgorithm.findParticipantsWithSameGender(participantList1, Gender.MALE).stream(),
-                                PairAlgorithm.findParticipantsWithSameGender(participantList1, Gender.OTHER).stream())
-                        .toList());
-                groups2.add(PairAlgorithm.findParticipantsWithSameGender(participantList2, Gender.FEMALE));
+                groups1.add(new BitSet[] {pool.select(kitchenExists1, Gender.FEMALE)});
+                groups2.add(new BitSet[] {pool.select(kitchenExists2, Gender.MALE), pool.select(kitchenExists2, Gender.OTHER)});
+                groups1.add(new BitSet[] {pool.select(kitchenExists1, Gender.MALE), pool.select(kitchenExists1, Gender.OTHER)});
+                groups2.add(new BitSet[] {pool.select(kitchenExists2, Gender.FEMALE)});
             }
         } else { // relaxed matching which priority 1 can be violated
-            groups1.add(participantList1);
-            groups2.add(participantList2);
+            groups1.add(new BitSet[] {pool.select(kitchenExists1)});
+            groups2.add(new BitSet[] {pool.select(kitchenExists2)});
         }
     }
 
     protected static List<Participant> sortByBestCandidates(int foodPreference, int ageDifference, int genderDiversity, boolean restrictedToPriorityOnePreference, Participant participant, List<Participant> candidates) {
-        if (foodPreference < ageDifference && foodPreference < genderDiversity) {
-            if (ageDifference < genderDiversity) {
-                candidates = PairAlgorithm.sortParticipantsByDifferentGenderFirst(participant, candidates);
-                candidates = PairAlgorithm.sortParticipantsBySameAgeGroupFirst(participant, candidates);
-            } else {
-                candidates = PairAlgorithm.sortParticipantsBySameAgeGroupFirst(participant, candidates);
-                candidates = PairAlgorithm.sortParticipantsByDifferentGenderFirst(participant, candidates);
-            }
-            if (!restrictedToPriorityOnePreference) // if restricted, the candidates would already contain those with same food preference only, no need to sort
-                candidates = PairAlgorithm.sortParticipantsBySameFoodPreferenceFirst(participant, candidates);
-
-        } else if (ageDifference < foodPreference && ageDifference < genderDiversity) {
-            if (foodPreference < genderDiversity) {
-                candidates = PairAlgorithm.sortParticipantsByDifferentGenderFirst(participant, candidates);
-                candidates = PairAlgorithm.sortParticipantsBySameFoodPreferenceFirst(participant, candidates);
-            } else {
-                candidates = PairAlgorithm.sortParticipantsBySameFoodPreferenceFirst(participant, candidates);
-                candidates = PairAlgorithm.sortParticipantsByDifferentGenderFirst(participant, candidates);
-            }
-            if (!restrictedToPriorityOnePreference)
-                candidates = PairAlgorithm.sortParticipantsBySameAgeGroupFirst(participant, candidates);
-
-        } else {
-            if (foodPreference < ageDifference) {
-                candidates = PairAlgorithm.sortParticipantsBySameAgeGroupFirst(participant, candidates);
-                candidates = PairAlgorithm.sortParticipantsBySameFoodPreferenceFirst(participant, candidates);
-            } else {
-                candidates = PairAlgorithm.sortParticipantsBySameFoodPreferenceFirst(participant, candidates);
-                candidates = PairAlgorithm.sortParticipantsBySameAgeGroupFirst(participant, candidates);
-            }
-            if (!restrictedToPriorityOnePreference)
-                candidates = PairAlgorithm.sortParticipantsByDifferentGenderFirst(participant, candidates);
-        }
-        return candidates;
+        return new CandidateRanking(foodPreference, ageDifference, genderDiversity, restrictedToPriorityOnePreference, participant).sort(candidates);
     }
 
 }
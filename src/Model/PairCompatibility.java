@@ -0,0 +1,56 @@
+package Model;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which pairs of a list may be in a group together by the rules which do not change while groups are formed
+ * (see GroupAlgorithm.arePairsCompatible): no MEAT with VEGGIE/VEGAN, no shared kitchen, no shared kitchen location.
+ *
+ * The rules are checked at most once for every two pairs, the first time they are asked for, and the answer is kept
+ * in a symmetric bit matrix, so checking a candidate against the pairs of a cluster is mostly a lookup of one bit per pair.
+ * The usage of the kitchens changes while groups are formed and is checked separately against the KitchenLedger.
+ */
+class PairCompatibility {
+    /**
+     * A matrix without pairs, which checks all pairs directly.
+     */
+    static final PairCompatibility NONE = new PairCompatibility(List.of());
+
+    private final Map<Pair, Integer> positions = new IdentityHashMap<>();
+    private final BitSet[] known;
+    private final BitSet[] compatible;
+
+    /**
+     * @param pairs the pairs to compare with each other
+     */
+    PairCompatibility(List<Pair> pairs) {
+        known = new BitSet[pairs.size()];
+        compatible = new BitSet[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            positions.putIfAbsent(pairs.get(i), i);
+            known[i] = new BitSet();
+            compatible[i] = new BitSet();
+        }
+    }
+
+    /**
+     * @return true if the two pairs may be in a group together; pairs which are not part of the matrix are checked directly
+     */
+    boolean areCompatible(Pair pair1, Pair pair2) {
+        Integer position1 = positions.get(pair1);
+        Integer position2 = positions.get(pair2);
+        if (position1 == null || position2 == null)
+            return GroupAlgorithm.arePairsCompatible(pair1, pair2);
+        if (!known[position1].get(position2)) {
+            boolean result = GroupAlgorithm.arePairsCompatible(pair1, pair2);
+            known[position1].set(position2);
+            known[position2].set(position1);
+            compatible[position1].set(position2, result);
+            compatible[position2].set(position1, result);
+        }
+        return compatible[position1].get(position2);
+    }
+}
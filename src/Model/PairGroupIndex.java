@@ -0,0 +1,226 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the groups each pair of the event takes part in, with one slot per course,
+ * and of the groups each pair cooks for.
+ * The index is informed by the groups list of the SpinfoodEvent whenever a group is added or removed,
+ * and by the groups themselves whenever their pairs, their course or their kitchen owner change.
+ * Looking up the groups of a pair therefore takes constant time instead of a scan over all groups.
+ * A listener can be informed when a pair gets its first group and when it leaves its last group.
+ */
+class PairGroupIndex implements TrackedList.Listener<Group> {
+    private static final int NUMBER_OF_COURSES = Course.values().length;
+
+    /**
+     * The groups of a single pair. Normally a pair has at most one group per course,
+     * further groups (e.g. a second group of the same course, or a group without course) are kept aside.
+     */
+    private static final class Membership {
+        private final Group[] byCourse = new Group[NUMBER_OF_COURSES];
+        private final List<Group> others = new ArrayList<>(0);
+
+        private boolean contains(Group group) {
+            for (Group g : byCourse)
+                if (g == group)
+                    return true;
+            return others.contains(group);
+        }
+
+        private boolean isEmpty() {
+            for (Group g : byCourse)
+                if (g != null)
+                    return false;
+            return others.isEmpty();
+        }
+    }
+
+    private final Map<Pair, Membership> groupsOfPair = new IdentityHashMap<>();
+    private final Map<Pair, List<Group>> hostedGroups = new IdentityHashMap<>();
+    private final TrackedList.Listener<Pair> groupedPairs; // null if nobody is informed
+
+    PairGroupIndex() {
+        this(null);
+    }
+
+    /**
+     * @param groupedPairs informed when a pair gets its first group (added) and when it leaves its last group (removed)
+     */
+    PairGroupIndex(TrackedList.Listener<Pair> groupedPairs) {
+        this.groupedPairs = groupedPairs;
+    }
+
+    @Override
+    public void added(Group group) {
+        group.attachTo(this);
+        linkAll(group);
+    }
+
+    @Override
+    public void removed(Group group) {
+        unlinkAll(group);
+        group.detachFrom(this);
+    }
+
+    /**
+     * Registers all pairs and the kitchen owner of the given group.
+     * @param group a group of the event
+     */
+    void linkAll(Group group) {
+        if (group.getGroupPairs() != null)
+            for (Pair pair : group.getGroupPairs())
+                link(pair, group);
+        if (group.getKitchenOwner() != null) {
+            List<Group> hosted = hostedGroups.computeIfAbsent(group.getKitchenOwner(), k -> new ArrayList<>(1));
+            if (!hosted.contains(group))
+                hosted.add(group);
+        }
+    }
+
+    /**
+     * Removes all pairs and the kitchen owner of the given group from the index.
+     * @param group a group of the event
+     */
+    void unlinkAll(Group group) {
+        if (group.getGroupPairs() != null)
+            for (Pair pair : group.getGroupPairs())
+                unlink(pair, group);
+        if (group.getKitchenOwner() != null) {
+            List<Group> hosted = hostedGroups.get(group.getKitchenOwner());
+            if (hosted != null) {
+                hosted.remove(group);
+                if (hosted.isEmpty())
+                    hostedGroups.remove(group.getKitchenOwner());
+            }
+        }
+    }
+
+    void link(Pair pair, Group group) {
+        if (pair == null)
+            return;
+        Membership membership = groupsOfPair.get(pair);
+        if (membership == null) {
+            membership = new Membership();
+            groupsOfPair.put(pair, membership);
+            if (groupedPairs != null)
+                groupedPairs.added(pair);
+        }
+        if (membership.contains(group))
+            return;
+        Course course = group.getCourse();
+        if (course != null && membership.byCourse[course.ordinal()] == null)
+            membership.byCourse[course.ordinal()] = group;
+        else
+            membership.others.add(group);
+    }
+
+    void unlink(Pair pair, Group group) {
+        if (pair == null)
+            return;
+        Membership membership = groupsOfPair.get(pair);
+        if (membership == null)
+            return;
+        Course course = group.getCourse();
+        if (course != null && membership.byCourse[course.ordinal()] == group) {
+            // another group of the same course may have been kept aside, it takes over the slot
+            Group replacement = null;
+            for (Group other : membership.others) {
+                if (other.getCourse() == course) {
+                    replacement = other;
+                    break;
+                }
+            }
+            if (replacement != null)
+                membership.others.remove(replacement);
+            membership.byCourse[course.ordinal()] = replacement;
+        } else {
+            membership.others.remove(group);
+        }
+        if (membership.isEmpty()) {
+            groupsOfPair.remove(pair);
+            if (groupedPairs != null)
+                groupedPairs.removed(pair);
+        }
+    }
+
+    /**
+     * Empties the index, e.g. before the groups of the event are replaced.
+     */
+    void clear() {
+        List<Pair> grouped = new ArrayList<>(groupsOfPair.keySet());
+        groupsOfPair.clear();
+        hostedGroups.clear();
+        if (groupedPairs != null)
+            for (Pair pair : grouped)
+                groupedPairs.removed(pair);
+    }
+
+    boolean isGrouped(Pair pair) {
+        return groupsOfPair.containsKey(pair);
+    }
+
+    /**
+     * @param pair the pair to look up
+     * @param course the course of the group
+     * @return the group of the given course the pair takes part in, or null if there is none
+     */
+    Group findGroup(Pair pair, Course course) {
+        Membership membership = groupsOfPair.get(pair);
+        return membership == null ? null : membership.byCourse[course.ordinal()];
+    }
+
+    /**
+     * @param pair the pair to look up
+     * @return a new list with all groups the pair takes part in, ordered by course
+     */
+    List<Group> findGroups(Pair pair) {
+        List<Group> result = new ArrayList<>(NUMBER_OF_COURSES);
+        Membership membership = groupsOfPair.get(pair);
+        if (membership != null) {
+            for (Group group : membership.byCourse)
+                if (group != null)
+                    result.add(group);
+            result.addAll(membership.others);
+        }
+        return result;
+    }
+
+    /**
+     * @param pair the pair to look up
+     * @return a new list with all groups the pair is the kitchen owner of
+     */
+    List<Group> findHostedGroups(Pair pair) {
+        List<Group> hosted = hostedGroups.get(pair);
+        return hosted == null ? new ArrayList<>() : new ArrayList<>(hosted);
+    }
+
+    /**
+     * @param pairs the pairs of the event
+     * @return all pairs from the given list which take part in no group, in the order of the list
+     */
+    List<Pair> findUngrouped(List<Pair> pairs) {
+        List<Pair> result = new ArrayList<>();
+        if (pairs != null)
+            for (Pair pair : pairs)
+                if (!groupsOfPair.containsKey(pair))
+                    result.add(pair);
+        return result;
+    }
+
+    /**
+     * @param pairs the pairs of the event
+     * @return all pairs from the given list which take part in at least one group, in the order of the list
+     */
+    List<Pair> findGrouped(List<Pair> pairs) {
+        List<Pair> result = new ArrayList<>();
+        if (pairs != null)
+            for (Pair pair : pairs)
+                if (groupsOfPair.containsKey(pair))
+                    result.add(pair);
+        return result;
+    }
+}
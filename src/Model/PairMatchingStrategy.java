@@ -0,0 +1,31 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * A way of forming pairs from the participants of an event who registered alone.
+ * SpinfoodEvent.createPairs uses the greedy strategy unless another one is given.
+ */
+public interface PairMatchingStrategy {
+    /**
+     * Matches participants one after another with their best remaining candidate (the original algorithm).
+     */
+    PairMatchingStrategy GREEDY = new GreedyPairMatching();
+
+    /**
+     * Chooses all pairs together, so that the total weight of the pairs according to the criteria is maximal.
+     */
+    PairMatchingStrategy WEIGHTED = new WeightedPairMatching();
+
+    /**
+     * Forms pairs from the given participants and adds them to the pairs of the event.
+     * There should be only 1 parameter for each priority (1/2/3).
+     * @param event the event to add the pairs to
+     * @param participantsWithoutPartner the participants to match
+     * @param foodPreference the priority for food preference
+     * @param ageDifference the priority for age difference
+     * @param genderDiversity the priority for gender diversity
+     */
+    void matchPairs(SpinfoodEvent event, List<Participant> participantsWithoutPartner,
+                    int foodPreference, int ageDifference, int genderDiversity);
+}
@@ -0,0 +1,97 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of which participant belongs to which pair of the event, and of the pairs whose kitchen is at each location.
+ * The index is informed by the pairs list of the SpinfoodEvent whenever a pair is added or removed,
+ * so checking whether a participant already has a partner takes constant time.
+ */
+class PairMembershipIndex implements TrackedList.Listener<Pair> {
+    private final Map<Participant, Pair> pairOfParticipant = new IdentityHashMap<>();
+    // the location each pair was filed under, as the kitchen of a pair may change while it is in the index
+    private final Map<Pair, Location> locationOfPair = new IdentityHashMap<>();
+    private final Map<Location, List<Pair>> pairsAtLocation = new HashMap<>();
+
+    @Override
+    public void added(Pair pair) {
+        if (pair.getParticipant1() != null)
+            pairOfParticipant.put(pair.getParticipant1(), pair);
+        if (pair.getParticipant2() != null)
+            pairOfParticipant.put(pair.getParticipant2(), pair);
+        Location location = findKitchenLocation(pair);
+        if (location != null && locationOfPair.putIfAbsent(pair, location) == null)
+            pairsAtLocation.computeIfAbsent(location, k -> new ArrayList<>(1)).add(pair);
+    }
+
+    @Override
+    public void removed(Pair pair) {
+        if (pair.getParticipant1() != null)
+            pairOfParticipant.remove(pair.getParticipant1(), pair);
+        if (pair.getParticipant2() != null)
+            pairOfParticipant.remove(pair.getParticipant2(), pair);
+        Location location = locationOfPair.remove(pair);
+        if (location != null) {
+            List<Pair> atLocation = pairsAtLocation.get(location);
+            atLocation.removeIf(other -> other == pair);
+            if (atLocation.isEmpty())
+                pairsAtLocation.remove(location);
+        }
+    }
+
+    /**
+     * Replaces the content of the index with the given pairs.
+     * @param pairs the pairs of the event, may be null
+     */
+    void rebuild(Collection<Pair> pairs) {
+        pairOfParticipant.clear();
+        locationOfPair.clear();
+        pairsAtLocation.clear();
+        if (pairs != null)
+            for (Pair pair : pairs)
+                added(pair);
+    }
+
+    boolean isPaired(Participant participant) {
+        return pairOfParticipant.containsKey(participant);
+    }
+
+    Pair findPair(Participant participant) {
+        return pairOfParticipant.get(participant);
+    }
+
+    /**
+     * @param participants the participants of the event
+     * @return all participants from the given list who do not belong to any pair, in the order of the list
+     */
+    List<Participant> findUnpaired(List<Participant> participants) {
+        List<Participant> result = new ArrayList<>();
+        if (participants != null)
+            for (Participant participant : participants)
+                if (!pairOfParticipant.containsKey(participant))
+                    result.add(participant);
+        return result;
+    }
+
+    /**
+     * @param location a kitchen location
+     * @return the pairs of the event whose kitchen is at the given location, as an unmodifiable view
+     */
+    List<Pair> findPairsAt(Location location) {
+        List<Pair> atLocation = pairsAtLocation.get(location);
+        return atLocation == null ? List.of() : Collections.unmodifiableList(atLocation);
+    }
+
+    private static Location findKitchenLocation(Pair pair) {
+        Participant kitchenOwner = pair.getKitchenOwner();
+        if (kitchenOwner == null || kitchenOwner.getKitchen() == null)
+            return null;
+        return kitchenOwner.getKitchen().getLocation();
+    }
+}
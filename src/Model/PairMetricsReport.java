@@ -0,0 +1,46 @@
+package Model;
+
+/**
+ * The metrics of the pairs of an event (Pärchenkennzahlen), computed in one pass over the pairs
+ * by SpinfoodEvent.getPairMetricsReport. The report does not change, so it can be kept and shown by any thread.
+ * The averages are NaN if there are no pairs to average over.
+ *
+ * @param pairCount the number of pairs
+ * @param successorCount the number of participants without partner
+ * @param averageGenderDiversity the average female proportion of the pairs
+ * @param averageAgeDifference the average age group difference of the pairs
+ * @param averagePreferenceDeviation the average food preference deviation of the pairs
+ * @param algorithmPairCount the number of pairs created by the algorithm, i.e. not registered as pair
+ * @param algorithmAverageGenderDiversity the average female proportion of the pairs created by the algorithm
+ * @param algorithmAverageAgeDifference the average age group difference of the pairs created by the algorithm
+ * @param algorithmAveragePreferenceDeviation the average food preference deviation of the pairs created by the algorithm
+ */
+public record PairMetricsReport(int pairCount, int successorCount,
+                                double averageGenderDiversity, double averageAgeDifference, double averagePreferenceDeviation,
+                                int algorithmPairCount, double algorithmAverageGenderDiversity,
+                                double algorithmAverageAgeDifference, double algorithmAveragePreferenceDeviation) {
+
+    /**
+     * @return the text of the report, as printed by SpinfoodEvent.showMetricsOfPairs
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        line(text, "====================Metrics of Pairs=====================");
+        line(text, " Number of Pairs: " + pairCount);
+        line(text, " Number of Successors(Nachrückende): " + successorCount);
+        line(text, " Average Gender Diversity: " + averageGenderDiversity);
+        line(text, " Average Age Difference: " + averageAgeDifference);
+        line(text, " Average Food Preference deviation: " + averagePreferenceDeviation);
+        line(text, "\n ---Only those created by algorithm---");
+        line(text, " Number of Pairs created by algorithm: " + algorithmPairCount);
+        line(text, " Average Gender Diversity: " + algorithmAverageGenderDiversity);
+        line(text, " Average Age Difference: " + algorithmAverageAgeDifference);
+        line(text, " Average Food Preference deviation: " + algorithmAveragePreferenceDeviation);
+        line(text, "=========================================================");
+        return text.toString();
+    }
+
+    private static void line(StringBuilder text, String line) {
+        text.append(line).append(System.lineSeparator());
+    }
+}
@@ -16,6 +16,7 @@ public class Participant {
     private Gender gender;
     private Kitchen kitchen;
     private boolean cancelled = false;
+    private int changeCount; // see getChangeCount
 
 
 
@@ -50,6 +51,7 @@ public class Participant {
 
     public void setFoodPreference(FoodPreference foodPreference) {
         this.foodPreference = foodPreference;
+        countChange();
     }
 
     public Integer getAge() {
@@ -58,6 +60,7 @@ public class Participant {
 
     public void setAge(Integer age) {
         this.age = age;
+        countChange();
     }
 
     public Gender getGender() {
@@ -66,16 +69,30 @@ public class Participant {
 
     public void setGender(Gender gender) {
         this.gender = gender;
+        countChange();
     }
 
     public void setKitchen(Kitchen kitchen) {
         this.kitchen = kitchen;
+        countChange();
     }
 
     public Kitchen getKitchen() {
         return kitchen;
     }
 
+    /**
+     * @return how often the age, food preference, gender or kitchen has been changed,
+     * so the participant tables of the events can tell whether their row of the participant is still up to date
+     */
+    int getChangeCount() {
+        return changeCount;
+    }
+
+    private void countChange() {
+        changeCount++;
+    }
+
     public int getAgeGroup() {
         if (this.age <= 17)
             return 0;
@@ -0,0 +1,225 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the attributes of the participants of an event which the pair matching compares over and over again
+ * (age group, food preference, gender, kitchen and its coordinates) in primitive columns, one row per participant.
+ *
+ * The table is informed by the participants list of the SpinfoodEvent whenever a participant is added or removed,
+ * so the columns are computed once at the import. The matching looks up the row of each participant once
+ * (see CandidatePool) and then reads the columns by row, without touching the participant objects.
+ * The rows are found in a map of the table itself, so the same participant can be in the tables of several events
+ * (e.g. of the working copies of an EventSnapshot) at once. A row remembers the change count of its participant
+ * (see Participant.getChangeCount) and of its kitchen location, and is read again by rowOf when one of them has changed.
+ * Each kitchen gets its own kitchen id, which is given up when no row uses the kitchen any more.
+ */
+class ParticipantTable implements TrackedList.Listener<Participant> {
+    static final byte NO_VALUE = -1;
+    private static final FoodPreference[] FOOD_PREFERENCES = FoodPreference.values();
+    private static final Gender[] GENDERS = Gender.values();
+
+    private static final class KitchenId {
+        private final int id;
+        private int rows; // the number of rows with the kitchen
+
+        private KitchenId(int id) {
+            this.id = id;
+        }
+    }
+
+    private final Map<Participant, Integer> rows = new IdentityHashMap<>();
+    private Participant[] participants = new Participant[16];
+    private int[] occurrences = new int[16]; // how often the participant is in the participants list
+    private int[] changeCount = new int[16];
+    private Kitchen[] kitchens = new Kitchen[16];
+    private Location[] locations = new Location[16];
+    private int[] locationChangeCount = new int[16];
+    private byte[] ageGroup = new byte[16];
+    private byte[] foodPreference = new byte[16];
+    private byte[] gender = new byte[16];
+    private int[] kitchenId = new int[16];
+    private double[] longitude = new double[16];
+    private double[] latitude = new double[16];
+    private int size;
+    private final Map<Kitchen, KitchenId> kitchenIds = new IdentityHashMap<>();
+    private int nextKitchenId;
+
+    @Override
+    public void added(Participant participant) {
+        Integer row = rows.get(participant);
+        if (row != null) {
+            occurrences[row]++;
+            return;
+        }
+        if (size == participants.length)
+            grow();
+        participants[size] = participant;
+        occurrences[size] = 1;
+        rows.put(participant, size);
+        update(size, participant);
+        size++;
+    }
+
+    @Override
+    public void removed(Participant participant) {
+        Integer row = rows.get(participant);
+        if (row == null || --occurrences[row] > 0)
+            return;
+        rows.remove(participant);
+        releaseKitchen(kitchens[row]);
+        // the last row fills the gap, so the rows stay without holes
+        int last = --size;
+        if (row != last) {
+            participants[row] = participants[last];
+            occurrences[row] = occurrences[last];
+            changeCount[row] = changeCount[last];
+            kitchens[row] = kitchens[last];
+            locations[row] = locations[last];
+            locationChangeCount[row] = locationChangeCount[last];
+            ageGroup[row] = ageGroup[last];
+            foodPreference[row] = foodPreference[last];
+            gender[row] = gender[last];
+            kitchenId[row] = kitchenId[last];
+            longitude[row] = longitude[last];
+            latitude[row] = latitude[last];
+            rows.put(participants[row], row);
+        }
+        participants[last] = null;
+        kitchens[last] = null;
+        locations[last] = null;
+    }
+
+    /**
+     * Removes all participants from the table.
+     */
+    void clear() {
+        Arrays.fill(participants, 0, size, null);
+        Arrays.fill(kitchens, 0, size, null);
+        Arrays.fill(locations, 0, size, null);
+        size = 0;
+        rows.clear();
+        kitchenIds.clear();
+        nextKitchenId = 0;
+    }
+
+    /**
+     * Reads the attributes of the participant into its row again.
+     */
+    private void update(int row, Participant participant) {
+        changeCount[row] = participant.getChangeCount();
+        ageGroup[row] = participant.getAge() == null ? NO_VALUE : (byte) participant.getAgeGroup();
+        foodPreference[row] = participant.getFoodPreference() == null ? NO_VALUE : (byte) participant.getFoodPreference().ordinal();
+        gender[row] = participant.getGender() == null ? NO_VALUE : (byte) participant.getGender().ordinal();
+        Kitchen kitchen = participant.getKitchen();
+        if (kitchen != kitchens[row]) {
+            releaseKitchen(kitchens[row]);
+            kitchens[row] = kitchen;
+            if (kitchen != null)
+                kitchenIds.computeIfAbsent(kitchen, k -> new KitchenId(nextKitchenId++)).rows++;
+        }
+        kitchenId[row] = kitchen == null ? NO_VALUE : kitchenIds.get(kitchen).id;
+        Location location = kitchen == null ? null : kitchen.getLocation();
+        locations[row] = location;
+        locationChangeCount[row] = location == null ? 0 : location.getChangeCount();
+        longitude[row] = location == null || location.getLongitude() == null ? Double.NaN : location.getLongitude();
+        latitude[row] = location == null || location.getLatitude() == null ? Double.NaN : location.getLatitude();
+    }
+
+    private void releaseKitchen(Kitchen kitchen) {
+        if (kitchen == null)
+            return;
+        KitchenId id = kitchenIds.get(kitchen);
+        if (id != null && --id.rows == 0)
+            kitchenIds.remove(kitchen);
+    }
+
+    private void grow() {
+        int capacity = participants.length * 2;
+        participants = Arrays.copyOf(participants, capacity);
+        occurrences = Arrays.copyOf(occurrences, capacity);
+        changeCount = Arrays.copyOf(changeCount, capacity);
+        kitchens = Arrays.copyOf(kitchens, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        locationChangeCount = Arrays.copyOf(locationChangeCount, capacity);
+        ageGroup = Arrays.copyOf(ageGroup, capacity);
+        foodPreference = Arrays.copyOf(foodPreference, capacity);
+        gender = Arrays.copyOf(gender, capacity);
+        kitchenId = Arrays.copyOf(kitchenId, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+    }
+
+    /**
+     * @return the number of participants in the table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of kitchens which have a kitchen id
+     */
+    int kitchenCount() {
+        return kitchenIds.size();
+    }
+
+    /**
+     * Finds the row of the participant and reads it again if the participant or the location of its kitchen
+     * has been changed since. The row stays the same until a participant leaves the table.
+     * @return the row of the participant, or -1 if the participant is not in this table
+     */
+    int rowOf(Participant participant) {
+        Integer row = rows.get(participant);
+        if (row == null)
+            return -1;
+        Location location = kitchens[row] == null ? null : kitchens[row].getLocation();
+        if (changeCount[row] != participant.getChangeCount() || location != locations[row]
+                || location != null && location.getChangeCount() != locationChangeCount[row])
+            update(row, participant);
+        return row;
+    }
+
+    /**
+     * @return the age group of the participant in the row, or NO_VALUE if it has no age
+     */
+    int getAgeGroup(int row) {
+        return ageGroup[row];
+    }
+
+    /**
+     * @return the food preference of the participant in the row, or null if it has none
+     */
+    FoodPreference getFoodPreference(int row) {
+        return foodPreference[row] == NO_VALUE ? null : FOOD_PREFERENCES[foodPreference[row]];
+    }
+
+    /**
+     * @return the gender of the participant in the row, or null if it has none
+     */
+    Gender getGender(int row) {
+        return gender[row] == NO_VALUE ? null : GENDERS[gender[row]];
+    }
+
+    /**
+     * @return the kitchen id of the participant in the row, which is the same for participants with the same kitchen,
+     *         or NO_VALUE if the participant has no kitchen
+     */
+    int getKitchenId(int row) {
+        return kitchenId[row];
+    }
+
+    /**
+     * Calculates the air distance between the kitchen of the participant in the row and a location,
+     * like SpinfoodEvent.findDistance, from the coordinates in the table.
+     * @param row the row of a participant with a kitchen
+     * @param location the location to measure the distance to
+     */
+    double findKitchenDistance(int row, Location location) {
+        double latitudeDifference = location.getLatitude() - latitude[row];
+        double longitudeDifference = location.getLongitude() - longitude[row];
+        return Math.sqrt(latitudeDifference * latitudeDifference + longitudeDifference * longitudeDifference);
+    }
+}
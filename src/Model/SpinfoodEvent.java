@@ -4,7 +4,7 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Represents the SpinFood Event where participants can be registered and organized into pairs and groups.
@@ -18,17 +18,35 @@ public class SpinfoodEvent {
     private List<Pair> pairs;
     private List<Group> groups;
     private final Location afterDinnerPartyLocation;
-    private List<Pair> successorPairs;
-    private List<Participant> successorParticipants;
+    private final PairMembershipIndex pairMembership = new PairMembershipIndex();
+    private final SuccessorPool successorPool = new SuccessorPool(
+            participant -> this.pairMembership.isPaired(participant), pair -> this.groupMembership.isGrouped(pair));
+    private final PairGroupIndex groupMembership = new PairGroupIndex(successorPool.groupedPairListener());
+    private final KitchenIndex kitchenIndex = new KitchenIndex();
+    private final ParticipantTable participantTable = new ParticipantTable();
+    // the listeners of the participants and pairs lists, which keep the indexes and the successor pool up to date
+    private final TrackedList.Listener<Participant> participantListener =
+            participantTable.andThen(successorPool.participantListener());
+    private final TrackedList.Listener<Pair> pairListener = pairMembership.andThen(successorPool.pairListener());
+    private Long seed; // null if the runs should differ from each other
+    private DistanceModel distanceModel = DistanceModel.EUCLIDEAN;
+    private AlgorithmProgress progress = new AlgorithmProgress();
+    // the number of pairs with the closest kitchens which createGroups tries first for a cluster
+    private static final int NEAREST_CLUSTER_CANDIDATES = 32;
+
+    /**
+     * Orders events by the number of pairs without groups, then by the average path length of the pairs with groups.
+     */
+    public static final Comparator<SpinfoodEvent> FEWEST_PAIRS_WITHOUT_GROUPS =
+            Comparator.comparingInt(SpinfoodEvent::getSuccessorPairCount)
+                    .thenComparingDouble(SpinfoodEvent::measureAveragePathLength);
 
     public SpinfoodEvent(Location location) {
-        this.participants = new ArrayList<>();
-        this.kitchens = new ArrayList<>();
-        this.pairs = new ArrayList<>();
-        this.groups = new ArrayList<>();
+        this.participants = new TrackedList<>(participantListener);
+        this.kitchens = new TrackedList<>(kitchenIndex);
+        this.pairs = new TrackedList<>(pairListener);
+        this.groups = new TrackedList<>(groupMembership);
         this.afterDinnerPartyLocation = location;
-        this.successorPairs = new ArrayList<>();
-        this.successorParticipants = new ArrayList<>();
     }
 
 
@@ -36,62 +54,217 @@ public class SpinfoodEvent {
         return participants;
     }
 
+    /**
+     * Replaces the participants of the event. The given participants are copied into a list which keeps
+     * the participant table of the event up to date.
+     * @param participants the new participants of the event
+     */
     public void setParticipants(List<Participant> participants) {
-        this.participants = participants;
+        if (participants == this.participants)
+            return;
+        if (this.participants instanceof TrackedList<Participant> oldParticipants)
+            oldParticipants.detach();
+        participantTable.clear();
+        this.participants = (participants == null) ? null : new TrackedList<>(participants, participantListener);
+        successorPool.rebuild(this.participants, this.pairs);
+    }
+
+    /**
+     * @return the columns of age group, food preference, gender, kitchen and kitchen coordinates of the participants of the event,
+     *         which the pair matching reads by row
+     */
+    ParticipantTable getParticipantTable() {
+        return participantTable;
     }
 
     public List<Kitchen> getKitchens() {
         return kitchens;
     }
 
+    /**
+     * Replaces the kitchens of the event. The given kitchens are copied into a list which keeps
+     * the kitchen index of the event up to date.
+     * @param kitchens the new kitchens of the event
+     */
     public void setKitchens(List<Kitchen> kitchens) {
-        this.kitchens = kitchens;
+        if (kitchens == this.kitchens)
+            return;
+        if (this.kitchens instanceof TrackedList<Kitchen> oldKitchens)
+            oldKitchens.detach();
+        kitchenIndex.clear();
+        this.kitchens = (kitchens == null) ? null : new TrackedList<>(kitchens, kitchenIndex);
     }
 
     public List<Pair> getPairs() {
         return pairs;
     }
 
+    /**
+     * Replaces the pairs of the event. The given pairs are copied into a list which keeps
+     * the participant-to-pair index of the event up to date.
+     * @param pairs the new pairs of the event
+     */
     public void setPairs(List<Pair> pairs) {
-        this.pairs = pairs;
+        if (pairs == this.pairs)
+            return;
+        if (this.pairs instanceof TrackedList<Pair> oldPairs)
+            oldPairs.detach();
+        pairMembership.rebuild(null);
+        this.pairs = (pairs == null) ? null : new TrackedList<>(pairs, pairListener);
+        successorPool.rebuild(this.participants, this.pairs);
     }
 
     public List<Group> getGroups() {
         return groups;
     }
 
+    /**
+     * Replaces the groups of the event. The given groups are copied into a list which keeps
+     * the pair-to-group index of the event up to date.
+     * @param groups the new groups of the event
+     */
     public void setGroups(List<Group> groups) {
-        this.groups = groups;
+        if (groups == this.groups)
+            return;
+        if (this.groups instanceof TrackedList<Group> oldGroups) {
+            oldGroups.detach();
+            for (Group group : oldGroups)
+                groupMembership.removed(group);
+        }
+        groupMembership.clear();
+        this.groups = (groups == null) ? null : new TrackedList<>(groups, groupMembership);
     }
 
     public Location getAfterDinnerPartyLocation() {
         return afterDinnerPartyLocation;
     }
 
-    public List<Participant> getSuccessorParticipants() { return PairAlgorithm.findParticipantsWithoutPartner(participants, pairs); }
-    public void setSuccessorParticipants(List<Participant> successorParticipants) { this.successorParticipants = successorParticipants; }
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed for the random decisions of createGroups and optimizeGroups. Every run starts again from the seed,
+     * so the same input and the same seed give the same groups. If the seed is null, every run decides differently.
+     * Note that optimizeGroups still depends on the speed of the machine because of its time budget, unlike optimizeGroupsForMoves.
+     * @param seed the seed, or null
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public DistanceModel getDistanceModel() {
+        return distanceModel;
+    }
+
+    /**
+     * Sets the way the distances between kitchens and to the after dinner party are measured by createGroups,
+     * optimizeGroups and the path length metrics. The default is the euclidean distance of the coordinates
+     * (see findDistance); DistanceModel.equirectangular and DistanceModel.HAVERSINE measure in metres.
+     * @param distanceModel the distance model
+     */
+    public void setDistanceModel(DistanceModel distanceModel) {
+        this.distanceModel = distanceModel;
+    }
+
+    public AlgorithmProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Sets where createPairs, createGroups, createGroupsMultiStart and optimizeGroups report how far they are,
+     * and where they check whether they should stop. The default reports nothing and is never cancelled.
+     * @param progress the progress of the next runs
+     */
+    public void setProgress(AlgorithmProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * @return a new source of randomness for one run, starting from the seed if one is set
+     */
+    private Random newRandom() {
+        return seed == null ? new Random() : new Random(seed);
+    }
+
+    /**
+     * @return a new list of the participants without partner, in the order of the participants; read from the successor pool
+     */
+    public List<Participant> getSuccessorParticipants() { return successorPool.getParticipants(); }
+
+    /**
+     * Makes the given participants the successor participants, e.g. for the replacements of cancelling participants.
+     * The successor pool keeps following the pairs of the event afterwards.
+     */
+    public void setSuccessorParticipants(List<Participant> successorParticipants) { successorPool.setParticipants(successorParticipants); }
+
+    /**
+     * @return a new list of the pairs without groups, in the order of the pairs; read from the successor pool
+     */
+    public List<Pair> getSuccessorPairs() { return successorPool.getPairs(); }
+
+    /**
+     * Makes the given pairs the successor pairs, e.g. for the replacements of cancelling pairs.
+     * The successor pool keeps following the pairs and groups of the event afterwards.
+     */
+    public void setSuccessorPairs(List<Pair> successorPairs) { successorPool.setPairs(successorPairs); }
+
+    /**
+     * @return the number of participants without partner, in constant time
+     */
+    public int getSuccessorParticipantCount() { return successorPool.getParticipantCount(); }
+
+    /**
+     * @return the number of pairs without groups, in constant time
+     */
+    public int getSuccessorPairCount() { return successorPool.getPairCount(); }
+
+    /**
+     * Checks in constant time whether a participant already belongs to one of the pairs of the event.
+     * @param participant the participant to check
+     * @return true if the participant has a partner, false otherwise
+     */
+    public boolean hasPartner(Participant participant) {
+        return pairMembership.isPaired(participant);
+    }
+
+    /**
+     * @param participant the participant to look up
+     * @return the pair of the event which contains the participant, or null if the participant has no partner
+     */
+    public Pair findPairOf(Participant participant) {
+        return pairMembership.findPair(participant);
+    }
 
-    public List<Pair> getSuccessorPairs() { return GroupAlgorithm.findPairsWithoutGroups(this.pairs, this.groups); }
-    public void setSuccessorPairs(List<Pair> successorPairs) { this.successorPairs = successorPairs; }
+    /**
+     * Checks in constant time whether a pair already takes part in one of the groups of the event.
+     * @param pair the pair to check
+     * @return true if the pair is in a group, false otherwise
+     */
+    public boolean isInGroup(Pair pair) {
+        return groupMembership.isGrouped(pair);
+    }
+
+    /**
+     * @param pair the pair to look up
+     * @param course the course of the group
+     * @return the group of the event for the given course which the pair takes part in, or null if there is none
+     */
+    public Group findGroupOf(Pair pair, Course course) {
+        return groupMembership.findGroup(pair, course);
+    }
 
     /**
      * This function takes in parameters of a potential new kitchen and compares with the existing kitchens list.
      * If a kitchen with the same story, longitude and latitude exists already, the function returns this kitchen object.
+     * The kitchens are looked up in a hash index, so the import stays linear in the number of registrations.
      * @param story story of the potential new kitchen
      * @param longitude longitude of the potential new kitchen
      * @param latitude latitude of the potential new kitchen
      * @return the kitchen object if the same kitchen already exists; null if no kitchen is found
      */
     public Kitchen findExistingKitchen(Integer story, Double longitude, Double latitude) {
-        Kitchen tempKitchen = null;
-        for (Kitchen kitchen : kitchens) {
-            if (kitchen.getStory().equals(story)
-                    && kitchen.getLocation().getLongitude().equals(longitude)
-                    && kitchen.getLocation().getLatitude().equals(latitude)) {
-                tempKitchen = kitchen;
-            }
-        }
-        return tempKitchen;
+        return kitchenIndex.find(story, longitude, latitude);
     }
 
     /**
@@ -132,33 +305,52 @@ public class SpinfoodEvent {
             // create the first participant object with all the available attributes
             Participant participant1 = new Participant(id, name, foodPreference, age, gender, null);
 
-            // if the participant defines the registered kitchen as unavailable ("NO"), the kitchen object of the participant stays null.
-            if (!kitchenExists.equals(KitchenExists.NO)) {
-                // if the kitchen is available ("YES"/"MAYBE"), find if a duplicated kitchen already exists.
-                // use the same kitchen object if duplication is found
-                Kitchen kitchen = findExistingKitchen(kitchenStory, kitchenLongitude, kitchenLatitude);
-                if (kitchen == null){
-                    kitchen = new Kitchen(kitchenExists, kitchenStory, kitchenLongitude, kitchenLatitude);
-                    this.kitchens.add(kitchen);
-                }
-                participant1.setKitchen(kitchen);
-            }
-            this.participants.add(participant1);
-
             // read the attributes of the 2nd participant, if available
+            Participant participant2 = null;
             if (sublist.size() == 14) {
                 String id2 = sublist.get(10);
                 String name2 = sublist.get(11);
                 Integer age2 = (int) Double.parseDouble(sublist.get(12));
                 Gender gender2 = Gender.valueOf(sublist.get(13).toUpperCase());
-                Participant participant2 = new Participant(id2, name2, foodPreference, age2, gender2, null); // registered kitchen will be only linked to the first participant
-                this.participants.add(participant2);
-                // the 2 participants form a pair upon registration
-                // & participant 1 owns the kitchen (Spezifikation Seite 5: die Küche nur der ersten Person zugeordnet)
-                Pair pair = new Pair(participant1, participant2, foodPreference, false);
-                pair.setRegisteredAsPair(true);
-                this.pairs.add(pair);
+                participant2 = new Participant(id2, name2, foodPreference, age2, gender2, null); // registered kitchen will be only linked to the first participant
+            }
+            addRegistration(participant1, participant2, kitchenExists, kitchenStory, kitchenLongitude, kitchenLatitude);
+        }
+    }
+
+    /**
+     * Adds a single registration to the event: the participant, its kitchen (if available)
+     * and, if two participants registered together, the second participant and their pair.
+     * Kitchens which are already known to the event are shared instead of being created again.
+     * @param participant1 the (first) registered participant, without kitchen
+     * @param participant2 the second participant if the registration is a pair, otherwise null
+     * @param kitchenExists whether the kitchen of the registration is available
+     * @param kitchenStory story of the kitchen
+     * @param kitchenLongitude longitude of the kitchen
+     * @param kitchenLatitude latitude of the kitchen
+     */
+    public void addRegistration(Participant participant1, Participant participant2, KitchenExists kitchenExists,
+                                Integer kitchenStory, Double kitchenLongitude, Double kitchenLatitude) {
+        // if the participant defines the registered kitchen as unavailable ("NO"), the kitchen object of the participant stays null.
+        if (!kitchenExists.equals(KitchenExists.NO)) {
+            // if the kitchen is available ("YES"/"MAYBE"), find if a duplicated kitchen already exists.
+            // use the same kitchen object if duplication is found
+            Kitchen kitchen = findExistingKitchen(kitchenStory, kitchenLongitude, kitchenLatitude);
+            if (kitchen == null){
+                kitchen = new Kitchen(kitchenExists, kitchenStory, kitchenLongitude, kitchenLatitude);
+                this.kitchens.add(kitchen);
             }
+            participant1.setKitchen(kitchen);
+        }
+        this.participants.add(participant1);
+
+        if (participant2 != null) {
+            this.participants.add(participant2);
+            // the 2 participants form a pair upon registration
+            // & participant 1 owns the kitchen (Spezifikation Seite 5: die Küche nur der ersten Person zugeordnet)
+            Pair pair = new Pair(participant1, participant2, participant1.getFoodPreference(), false);
+            pair.setRegisteredAsPair(true);
+            this.pairs.add(pair);
         }
     }
 
@@ -183,72 +375,74 @@ public class SpinfoodEvent {
      * @param genderDiversity the priority for gender diversity
      */
     public void  createPairs(int foodPreference, int ageDifference, int genderDiversity) {
+        createPairs(foodPreference, ageDifference, genderDiversity, PairMatchingStrategy.GREEDY);
+    }
+
+    /**
+     * Creates pairs for the event with the given matching strategy.
+     * There should be only 1 parameter for each priority (1/2/3).
+     * @param foodPreference the priority for food preference
+     * @param ageDifference the priority for age difference
+     * @param genderDiversity the priority for gender diversity
+     * @param strategy the way the pairs are chosen, e.g. PairMatchingStrategy.GREEDY or PairMatchingStrategy.WEIGHTED
+     */
+    public void createPairs(int foodPreference, int ageDifference, int genderDiversity, PairMatchingStrategy strategy) {
         System.out.println("\n** start createPairs **");
-        final List<Participant> participantsWithoutPartner = PairAlgorithm.findParticipantsWithoutPartner(this.participants, this.pairs);
+        final List<Participant> participantsWithoutPartner = getSuccessorParticipants();
         System.out.println("BEFORE Number of participants without partner: " + participantsWithoutPartner.size());
 
-        // since a kitchen is essential for a pair, we start with classifying participants with/has maybe/without kitchen
-        List<Participant> participantsWithYesKitchen = PairAlgorithm.findParticipantsWithSpecificKitchenExists(participantsWithoutPartner, KitchenExists.YES);
-        List<Participant> participantsWithMaybeKitchen = PairAlgorithm.findParticipantsWithSpecificKitchenExists(participantsWithoutPartner, KitchenExists.MAYBE);
-        List<Participant> participantsWithNoKitchen = PairAlgorithm.findParticipantsWithSpecificKitchenExists(participantsWithoutPartner, KitchenExists.NO);
-
-        // criteria 6.3: avoid waste of kitchens => we match those who have kitchen with those who do not have kitchen, if possible
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithYesKitchen, participantsWithNoKitchen, foodPreference, ageDifference, genderDiversity, true, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithYesKitchen, participantsWithMaybeKitchen, foodPreference, ageDifference, genderDiversity, true, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithYesKitchen, participantsWithYesKitchen, foodPreference, ageDifference, genderDiversity, true, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithMaybeKitchen, participantsWithNoKitchen, foodPreference, ageDifference, genderDiversity, true, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithMaybeKitchen, participantsWithMaybeKitchen, foodPreference, ageDifference, genderDiversity, true, this);
-
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithYesKitchen, participantsWithNoKitchen, foodPreference, ageDifference, genderDiversity, false, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithYesKitchen, participantsWithMaybeKitchen, foodPreference, ageDifference, genderDiversity, false, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithYesKitchen, participantsWithYesKitchen, foodPreference, ageDifference, genderDiversity, false, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithMaybeKitchen, participantsWithNoKitchen, foodPreference, ageDifference, genderDiversity, false, this);
-        PairAlgorithm.handlePairMatchingWithPreference(participantsWithMaybeKitchen, participantsWithMaybeKitchen, foodPreference, ageDifference, genderDiversity, false, this);
-
-        System.out.println("AFTER Number of participants without partner: " + PairAlgorithm.findParticipantsWithoutPartner(this.participants, this.pairs).size());
+        progress.begin(AlgorithmProgress.Step.MATCHING_PAIRS, participantsWithoutPartner.size() / 2);
+        strategy.matchPairs(this, participantsWithoutPartner, foodPreference, ageDifference, genderDiversity);
+
+        System.out.println("AFTER Number of participants without partner: " + getSuccessorParticipantCount());
         System.out.println("** end createPairs **");
         System.out.println();
     }
 
 
     /**
-     * Displays the metrics of all the pairs (Pärchenkennzahlen).
+     * Displays the metrics of all the pairs (Pärchenkennzahlen), see getPairMetricsReport.
      */
     public void showMetricsOfPairs() {
-        System.out.println("====================Metrics of Pairs=====================");
-        System.out.println(" Number of Pairs: " + this.pairs.size());
-        System.out.println(" Number of Successors(Nachrückende): " + PairAlgorithm.findParticipantsWithoutPartner(this.participants, this.pairs).size());
+        System.out.print(getPairMetricsReport().format());
+    }
+
+    /**
+     * Returns the metrics of all the pairs (Pärchenkennzahlen), of all pairs and of the pairs created by the algorithm.
+     * The report is computed in one pass over the pairs on each call, so it also shows changes made to the pairs
+     * and participants themselves; the returned report does not change and can be shown by the console and the screens.
+     * @return the report
+     */
+    public PairMetricsReport getPairMetricsReport() {
         double sumFemaleProportion = 0.0;
         int sumAgeDifference = 0;
         int sumFoodPreferenceDifference = 0;
+        int algorithmPairCount = 0;
+        double algorithmSumFemaleProportion = 0.0;
+        int algorithmSumAgeDifference = 0;
+        int algorithmSumFoodPreferenceDifference = 0;
         for (Pair pair : this.pairs) {
-            sumFemaleProportion += Metrics.measurePairFemaleProportion(pair);
-            sumAgeDifference += Metrics.measurePairAgeGroupDifference(pair);
-            sumFoodPreferenceDifference += Metrics.measurePairPreferenceDeviation(pair);
-        }
-        System.out.println(" Average Gender Diversity: " + (double) sumFemaleProportion/this.pairs.size());
-        System.out.println(" Average Age Difference: " + (double) sumAgeDifference/this.pairs.size());
-        System.out.println(" Average Food Preference deviation: " + (double) sumFoodPreferenceDifference/this.pairs.size());
-
-        System.out.println("\n ---Only those created by algorithm---");
-        List<Pair> pairList = new ArrayList<>();
-        for (Pair pair : this.pairs)
-            if (!pair.isRegisteredAsPair())
-                pairList.add(pair);
-        System.out.println(" Number of Pairs created by algorithm: " + pairList.size());
-
-        sumFemaleProportion = 0.0;
-        sumAgeDifference = 0;
-        sumFoodPreferenceDifference = 0;
-        for (Pair pair : pairList) {
-            sumFemaleProportion += pair.getFemaleProportion();
-            sumAgeDifference += pair.getAgeDifference();
-            sumFoodPreferenceDifference += pair.getPreferenceDeviation();
+            double femaleProportion = Metrics.measurePairFemaleProportion(pair);
+            int ageDifference = Metrics.measurePairAgeGroupDifference(pair);
+            int foodPreferenceDifference = Metrics.measurePairPreferenceDeviation(pair);
+            sumFemaleProportion += femaleProportion;
+            sumAgeDifference += ageDifference;
+            sumFoodPreferenceDifference += foodPreferenceDifference;
+            if (!pair.isRegisteredAsPair()) {
+                algorithmPairCount++;
+                algorithmSumFemaleProportion += femaleProportion;
+                algorithmSumAgeDifference += ageDifference;
+                algorithmSumFoodPreferenceDifference += foodPreferenceDifference;
+            }
         }
-        System.out.println(" Average Gender Diversity: " + (double) sumFemaleProportion/pairList.size());
-        System.out.println(" Average Age Difference: " + (double) sumAgeDifference/pairList.size());
-        System.out.println(" Average Food Preference deviation: " + (double) sumFoodPreferenceDifference/pairList.size());
-        System.out.println("=========================================================");
+        return new PairMetricsReport(this.pairs.size(), getSuccessorParticipantCount(),
+                sumFemaleProportion / this.pairs.size(),
+                (double) sumAgeDifference / this.pairs.size(),
+                (double) sumFoodPreferenceDifference / this.pairs.size(),
+                algorithmPairCount,
+                algorithmSumFemaleProportion / algorithmPairCount,
+                (double) algorithmSumAgeDifference / algorithmPairCount,
+                (double) algorithmSumFoodPreferenceDifference / algorithmPairCount);
     }
 
     /**
@@ -269,20 +463,12 @@ public class SpinfoodEvent {
             BufferedWriter bw = new BufferedWriter(new FileWriter(filepath));
             StringBuilder content = new StringBuilder();
             for (Pair pair:this.pairs) {
-                Integer appetizerGroupNumber = null;
-                Integer mainGroupNumber = null;
-                Integer dessertGroupNumber = null;
-                for (Group group : this.groups) {
-                    if (group.getGroupPairs().contains(pair)) {
-                        if (group.getCourse() == Course.APPETIZER) {
-                            appetizerGroupNumber = group.getNumber();
-                        } else if (group.getCourse() == Course.MAIN) {
-                            mainGroupNumber = group.getNumber();
-                        } else if (group.getCourse() == Course.DESSERT) {
-                            dessertGroupNumber = group.getNumber();
-                        }
-                    }
-                }
+                Group appetizerGroup = groupMembership.findGroup(pair, Course.APPETIZER);
+                Group mainGroup = groupMembership.findGroup(pair, Course.MAIN);
+                Group dessertGroup = groupMembership.findGroup(pair, Course.DESSERT);
+                Integer appetizerGroupNumber = appetizerGroup != null ? appetizerGroup.getNumber() : null;
+                Integer mainGroupNumber = mainGroup != null ? mainGroup.getNumber() : null;
+                Integer dessertGroupNumber = dessertGroup != null ? dessertGroup.getNumber() : null;
                 if (appetizerGroupNumber != null){
                     content.append(pair.getParticipant1().getName()).append(";");
                     content.append(pair.getParticipant2().getName()).append(";");
@@ -296,10 +482,8 @@ public class SpinfoodEvent {
                     content.append(dessertGroupNumber != null ? dessertGroupNumber : "").append(";");
                     content.append(pair.getPariticipant2IsKitchenOwner()).append(";");
 
-                    for (Group group : groups) {
-                        if (group.getKitchenOwner() != null && group.getKitchenOwner().equals(pair))
-                            content.append(GroupAlgorithm.findWhichCourse(pair, this.groups));
-                    }
+                    for (Group hostedGroup : groupMembership.findHostedGroups(pair))
+                        content.append(GroupAlgorithm.getCourseNumber(hostedGroup.getCourse()));
                     content.append("\n");
                 }
             }
@@ -327,6 +511,9 @@ public class SpinfoodEvent {
      * then attempts to form groups by evaluating their compatibility in terms of food preference,
      * age difference, gender diversity, and path length to an after-dinner location.
      *
+     * The pairs of a cluster are first looked for among the pairs whose kitchens are closest to the kitchen of the first pair
+     * of the cluster (see KitchenGrid), and among all pairs only if those do not complete the cluster.
+     * The pairs of a cluster which cook each course are chosen so that their paths are as short as possible (see ClusterRoutePlanner).
      * Groups are formed to maximize the number of elements while maintaining the set criteria.
      * The grouping process continues until it either runs out of viable pairs or exceeds
      * a set number of unsuccessful attempts to form a new group.
@@ -339,7 +526,15 @@ public class SpinfoodEvent {
      * @param numberOfElements      The desired number of elements (pairs) in each group to be formed.
      */
     public void createGroups(int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements) {
-        List<Pair> pairsWithoutGroups = GroupAlgorithm.findPairsWithoutGroups(this.pairs, this.groups);
+        progress.begin(AlgorithmProgress.Step.FORMING_CLUSTERS, getSuccessorPairCount() / 9);
+        formGroups(foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements);
+    }
+
+    /**
+     * Forms the groups of createGroups, reporting each cluster to the current step of the progress.
+     */
+    private void formGroups(int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements) {
+        List<Pair> pairsWithoutGroups = getSuccessorPairs();
         List<Pair> availablePairs = new ArrayList<>();
         Map<Kitchen, Integer> kitchenCounter = new HashMap<>();
 
@@ -354,52 +549,173 @@ public class SpinfoodEvent {
 
 
 
+        KitchenLedger ledger = new KitchenLedger(this.pairs, this.groups);
+        PairCompatibility compatibility = new PairCompatibility(availablePairs);
+        KitchenGrid grid = new KitchenGrid(availablePairs, this.afterDinnerPartyLocation, this.distanceModel);
+        Random random = newRandom();
         int countUnsuccessful = 0;
-        while ((availablePairs.size() >= 9) && countUnsuccessful <= 1000) { // we always maximize the numberOfElements
+        while ((availablePairs.size() >= 9) && countUnsuccessful <= 1000 && !progress.isCancelled()) { // we always maximize the numberOfElements
             List<Pair> cluster = new ArrayList<>();
             Pair p = availablePairs.remove(0);
+            grid.remove(p);
             cluster.add(p);
 
-            List<Pair> validCandidates = GroupAlgorithm.findValidCandidatesForGroups(p, availablePairs, this.pairs);
-
-            // find pairs for the cluster
-            GroupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, this.pairs, foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements, this.afterDinnerPartyLocation);
-
-            List<Group> result = new ArrayList<>();
-            boolean successful = true;
-            if (cluster.size() != 9)
-                successful = false;
-            else {
-                List<Pair> sortedPairs = cluster.stream()
-                        .sorted(Comparator.comparing(pair -> findDistance(pair.getKitchenLocation(), afterDinnerPartyLocation)))
-                        .collect(Collectors.toList());
-                Map<Pair, Course> pairCourseMap = GroupAlgorithm.assignCourses(sortedPairs);
-
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(6), sortedPairs.get(0), sortedPairs.get(3), Course.APPETIZER, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(7), sortedPairs.get(1), sortedPairs.get(4), Course.APPETIZER, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(8), sortedPairs.get(2), sortedPairs.get(5), Course.APPETIZER, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(3), sortedPairs.get(1), sortedPairs.get(8), Course.MAIN, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(4), sortedPairs.get(2), sortedPairs.get(6), Course.MAIN, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(5), sortedPairs.get(0), sortedPairs.get(7), Course.MAIN, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(0), sortedPairs.get(4), sortedPairs.get(8), Course.DESSERT, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(1), sortedPairs.get(6), sortedPairs.get(5), Course.DESSERT, this.pairs, this.groups);
-                GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(2), sortedPairs.get(3), sortedPairs.get(7), Course.DESSERT, this.pairs, this.groups);
-
-                for (Group group : result)
-                    if (group.getKitchenOwner() == null)
-                        successful = false;
+            // find pairs for the cluster among the pairs with the closest kitchens first, then among all pairs
+            List<Pair> nearestPairs = grid.findNearest(p.getKitchenLocation(), NEAREST_CLUSTER_CANDIDATES);
+            List<Pair> validCandidates = GroupAlgorithm.findValidCandidatesForGroups(p, nearestPairs, ledger, compatibility);
+            GroupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, ledger, compatibility,
+                    foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements,
+                    this.afterDinnerPartyLocation, this.distanceModel, random);
+            if (cluster.size() != 9 && nearestPairs.size() < availablePairs.size()) {
+                cluster.subList(1, cluster.size()).clear();
+                validCandidates = GroupAlgorithm.findValidCandidatesForGroups(p, availablePairs, ledger, compatibility);
+                GroupAlgorithm.findPairsForCluster(validCandidates, cluster, availablePairs, ledger, compatibility,
+                        foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements,
+                        this.afterDinnerPartyLocation, this.distanceModel, random);
             }
 
-            if (successful) {
+            // the cooks of the courses are chosen for the shortest paths, null if the pairs cannot cook all groups
+            List<Group> result = cluster.size() != 9 ? null
+                    : GroupAlgorithm.createClusterGroups(cluster, ledger, this.afterDinnerPartyLocation, this.distanceModel);
+
+            if (result != null) {
                 availablePairs.removeAll(cluster);
+                for (Pair pair : cluster)
+                    grid.remove(pair);
                 this.groups.addAll(result);
+                for (Group group : result)
+                    ledger.commit(group);
                 countUnsuccessful = 0;
+                progress.advance();
             } else {
                 countUnsuccessful++;
             }
         }
     }
 
+    /**
+     * Improves the groups formed by createGroups by local search for the given time: pairs are swapped between
+     * the clusters of nine pairs and with the pairs without groups, and new clusters are formed from the pairs
+     * without groups, so that fewer pairs remain without groups and the groups fit the criteria better.
+     * Groups which do not form a complete cluster are kept as they are. See GroupOptimizer.
+     *
+     * @param foodPreference        Weight or priority given to matching food preferences within the group.
+     * @param ageDifference         Weight or priority given to minimizing age differences within the group.
+     * @param genderDiversity       Weight or priority given to achieving gender diversity within the group.
+     * @param pathLength            Weight or priority given to minimizing the path length to a common destination.
+     * @param numberOfElements      Weight or priority given to the number of elements (pairs) in the groups.
+     * @param timeBudgetMillis      The time for the search in milliseconds.
+     */
+    public void optimizeGroups(int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements,
+                               long timeBudgetMillis) {
+        new GroupOptimizer(this, foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements, newRandom())
+                .optimize(timeBudgetMillis, 0);
+    }
+
+    /**
+     * Improves the groups like {@link #optimizeGroups(int, int, int, int, int, long)}, but for a fixed number of moves
+     * instead of a time budget, so that the result only depends on the seed (see setSeed) and not on the speed of the machine.
+     *
+     * @param foodPreference        Weight or priority given to matching food preferences within the group.
+     * @param ageDifference         Weight or priority given to minimizing age differences within the group.
+     * @param genderDiversity       Weight or priority given to achieving gender diversity within the group.
+     * @param pathLength            Weight or priority given to minimizing the path length to a common destination.
+     * @param numberOfElements      Weight or priority given to the number of elements (pairs) in the groups.
+     * @param moves                 The number of moves which are tried, the groups stay as they are if it is 0.
+     */
+    public void optimizeGroupsForMoves(int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements,
+                                       int moves) {
+        if (moves <= 0) // GroupOptimizer would search without end
+            return;
+        new GroupOptimizer(this, foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements, newRandom())
+                .optimize(Long.MAX_VALUE / 1_000_000, moves);
+    }
+
+    /**
+     * Runs createGroups several times in parallel and keeps the groups of the best run.
+     * Every run works on its own working copy of the pairs and groups of the event (see snapshot) and has its own seed: the seed of the event
+     * plus the number of the run if a seed is set (see setSeed), otherwise a random one. The runs are distributed over
+     * the common fork/join pool, so that they take about as long as a single run if there are enough cores.
+     * Of equally good runs, the one with the lowest number is kept. If the progress is cancelled, the groups of the event stay as they are.
+     *
+     * @param foodPreference        Weight or priority given to matching food preferences within the group.
+     * @param ageDifference         Weight or priority given to minimizing age differences within the group.
+     * @param genderDiversity       Weight or priority given to achieving gender diversity within the group.
+     * @param pathLength            Weight or priority given to minimizing the path length to a common destination.
+     * @param numberOfElements      The desired number of elements (pairs) in each group to be formed.
+     * @param runs                  The number of runs.
+     * @param objective             Orders the results of the runs, the best first, e.g. FEWEST_PAIRS_WITHOUT_GROUPS.
+     */
+    public void createGroupsMultiStart(int foodPreference, int ageDifference, int genderDiversity, int pathLength, int numberOfElements,
+                                       int runs, Comparator<SpinfoodEvent> objective) {
+        Random random = newRandom();
+        long[] seeds = new long[runs];
+        for (int run = 0; run < runs; run++)
+            seeds[run] = seed == null ? random.nextLong() : seed + run;
+
+        EventSnapshot snapshot = snapshot();
+        List<SpinfoodEvent> copies = new ArrayList<>();
+        for (int run = 0; run < runs; run++)
+            copies.add(snapshot.newWorkingCopy());
+        // the runs share the progress, so the clusters of all runs are counted together
+        progress.begin(AlgorithmProgress.Step.FORMING_CLUSTERS, runs * (getSuccessorPairCount() / 9));
+        IntStream.range(0, runs).parallel().forEach(run -> {
+            copies.get(run).setSeed(seeds[run]);
+            copies.get(run).setProgress(progress);
+            copies.get(run).formGroups(foodPreference, ageDifference, genderDiversity, pathLength, numberOfElements);
+        });
+
+        int best = -1;
+        for (int run = 0; run < runs; run++)
+            if (best < 0 || objective.compare(copies.get(run), copies.get(best)) < 0)
+                best = run;
+        if (best >= 0 && !progress.isCancelled())
+            takeNewGroups(copies.get(best), snapshot);
+    }
+
+    /**
+     * @return an unchangeable state of the pairs and groups of this event, from which working copies for runs
+     *         in other threads can be created (see EventSnapshot)
+     */
+    public EventSnapshot snapshot() {
+        return new EventSnapshot(this);
+    }
+
+    /**
+     * Adds the groups which were formed in a working copy of this event to this event, with the original pairs,
+     * and takes over which pairs have cooked. The pairs of this event must not have changed since the snapshot was taken.
+     */
+    private void takeNewGroups(SpinfoodEvent copy, EventSnapshot snapshot) {
+        Map<Pair, Pair> originals = new IdentityHashMap<>();
+        for (int i = 0; i < snapshot.getPairCount(); i++)
+            originals.put(copy.getPairs().get(i), pairs.get(i));
+        List<Group> newGroups = new ArrayList<>();
+        for (Group group : copy.getGroups().subList(snapshot.getGroupCount(), copy.getGroups().size())) {
+            Group newGroup = new Group(null, group.getFoodPreference(), group.getCourse(), originals.get(group.getKitchenOwner()));
+            for (Pair pair : group.getGroupPairs())
+                newGroup.getGroupPairs().add(originals.get(pair));
+            newGroups.add(newGroup);
+        }
+        for (int i = 0; i < snapshot.getPairCount(); i++)
+            pairs.get(i).setHasCooked(copy.getPairs().get(i).hasCooked());
+        groups.addAll(newGroups);
+    }
+
+    /**
+     * @return the average path length of the pairs with groups (see Metrics.measurePathLength), 0.0 if there are none
+     */
+    public double measureAveragePathLength() {
+        List<Pair> pairsWithGroups = groupMembership.findGrouped(this.pairs);
+        double totalPathLength = 0.0;
+        for (Pair pair : pairsWithGroups) {
+            Metrics.measurePathLength(pair, groupMembership.findGroup(pair, Course.APPETIZER),
+                    groupMembership.findGroup(pair, Course.MAIN), groupMembership.findGroup(pair, Course.DESSERT),
+                    this.afterDinnerPartyLocation, this.distanceModel);
+            totalPathLength += pair.getPathLength();
+        }
+        return pairsWithGroups.isEmpty() ? 0.0 : totalPathLength / pairsWithGroups.size();
+    }
+
 
     /**
      * Prints metrics related to groups and their characteristics. Metrics include:
@@ -413,19 +729,25 @@ public class SpinfoodEvent {
      * and gender diversity values. It also calculates path length metrics for pairs within groups,
      * including total path length, average path length, and the standard deviation of path lengths.
      *
-     * Outputs are printed directly to the console.
+     * Outputs are printed directly to the console, see getGroupMetricsReport.
      */
     public void showMetricsOfGroups() {
-        System.out.println("====================Metrics of Groups=====================");
+        System.out.print(getGroupMetricsReport().format());
+    }
 
+    /**
+     * Returns the metrics of the groups which showMetricsOfGroups prints. The report is computed in one pass over the groups
+     * and the pairs with groups on each call, so it also shows changes made to the pairs and participants themselves;
+     * the returned report does not change and can be shown by the console and the screens.
+     * @return the report
+     */
+    public GroupMetricsReport getGroupMetricsReport() {
         int appetizerCount = 0;
         int mainCount = 0;
         int dessertCount = 0;
-        double totalPathLength = 0.0;
         double totalAgeDifference = 0.0;
         double totalPreferenceDeviation = 0.0;
         double totalGenderDiversity = 0.0;
-
         for (Group group : this.groups) {
             if (group.getCourse().equals(Course.APPETIZER)) {
                 appetizerCount++;
@@ -439,41 +761,27 @@ public class SpinfoodEvent {
             totalGenderDiversity += Metrics.measureGenderDiversityInGroup(group);
         }
 
-        System.out.println("Number of groups for appetizer: " + appetizerCount);
-        System.out.println("Number of groups for main: " + mainCount);
-        System.out.println("Number of groups for dessert: " + dessertCount);
-        System.out.println("Number of groups: " + this.groups.size());
-        System.out.println("Number of pairs without groups: " + GroupAlgorithm.findPairsWithoutGroups(this.pairs, this.groups).size());
-
-        List<Pair> pairsWithGroups = GroupAlgorithm.findPairsWithGroups(this.pairs, this.groups);
-        double sumOfSquares = 0;
+        List<Pair> pairsWithGroups = groupMembership.findGrouped(this.pairs);
+        double totalPathLength = 0.0;
         for (Pair pair : pairsWithGroups) {
-            Metrics.measurePathLength(pair, this.groups, this.afterDinnerPartyLocation);
+            Metrics.measurePathLength(pair, groupMembership.findGroup(pair, Course.APPETIZER),
+                    groupMembership.findGroup(pair, Course.MAIN), groupMembership.findGroup(pair, Course.DESSERT),
+                    this.afterDinnerPartyLocation, this.distanceModel);
             totalPathLength += pair.getPathLength();
         }
         int totalPairsWithGroups = pairsWithGroups.size();
         double avgPathLength = totalPathLength / totalPairsWithGroups;
-        System.out.println("Path length of all groups: " + totalPathLength);
-        System.out.println("Average Path Length: " + avgPathLength);
-
+        double sumOfSquares = 0;
         for (Pair pair : pairsWithGroups) {
             double deviation = pair.getPathLength() - avgPathLength;
             sumOfSquares += deviation * deviation;
         }
-        double variance = sumOfSquares / totalPairsWithGroups;
-        double standardDeviation = Math.sqrt(variance);
-        System.out.println("Standard Deviation Of Path Length: " + standardDeviation);
+        double standardDeviation = Math.sqrt(sumOfSquares / totalPairsWithGroups);
 
-//        int totalAgeDifferencePairs = 0;
-//        int totalPreferenceDeviationPairs = 0;
-//        for (Pair pair : this.pairs) {
-//            totalAgeDifferencePairs += pair.getAgeDifference();
-//            totalPreferenceDeviationPairs += pair.getPreferenceDeviation();
-//        }
-        System.out.println("Average Age Difference: " + totalAgeDifference / this.groups.size());
-        System.out.println("Average Food Preference Deviation: " + totalPreferenceDeviation / this.groups.size());
-        System.out.println("Average Gender Diversity: " + totalGenderDiversity / this.groups.size());
-        System.out.println("==========================================================");
+        return new GroupMetricsReport(appetizerCount, mainCount, dessertCount, this.groups.size(),
+                getSuccessorPairCount(), totalPairsWithGroups, totalPathLength, avgPathLength, standardDeviation,
+                totalAgeDifference / this.groups.size(), totalPreferenceDeviation / this.groups.size(),
+                totalGenderDiversity / this.groups.size());
     }
 
     /**
@@ -482,27 +790,32 @@ public class SpinfoodEvent {
      * Depending on the registration status of the pair and whether other participants
      * in the pair are also cancelling, it either schedules the pair for removal
      * or schedules the participant in the pair to be replaced.
+     * The cancelling participants leave the event, and pairs whose participants all cancel are removed from it,
+     * so none of them becomes a successor. The pairs of the cancelling participants are looked up in the participant
+     * index and the replacements are taken from the successor pool of the event, so each cancellation
+     * only touches the groups of the affected pair.
      *
      * @param cancelling The list of participants that are cancelling.
      */
     public void handleCancellingParticipant(List<Participant> cancelling) {
-        List<Pair> pairsToRemove = new ArrayList<>();
-        Map<Pair, Participant> participantsToReplace = new HashMap<>();
+        Set<Participant> cancellingSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        cancellingSet.addAll(cancelling);
+        Set<Pair> pairsToRemove = new LinkedHashSet<>();
+        Map<Pair, Participant> participantsToReplace = new LinkedHashMap<>();
 
         for (Participant par : cancelling) {
-            for (Pair pair : pairs) {
-                if (pair.getParticipants().contains(par)) {
-                    if (cancelling.containsAll(pair.getParticipants())) {
-                        if(!pairsToRemove.contains(pair)) pairsToRemove.add(pair);
-                    } else {
-                        if (cancelling.contains(pair.getParticipant1()) || cancelling.contains(pair.getParticipant2())) {
-                            participantsToReplace.put(pair, par);
-                        }
-                    }
-                }
-            }
+            Pair pair = pairMembership.findPair(par);
+            if (pair == null)
+                continue;
+            if (cancellingSet.containsAll(pair.getParticipants()))
+                pairsToRemove.add(pair);
+            else
+                participantsToReplace.put(pair, par);
         }
 
+        if (participants != null)
+            participants.removeIf(cancellingSet::contains);
+        pairs.removeAll(pairsToRemove);
         // Remove pairs
         for (Pair pair : pairsToRemove) {
             replacePair(pair);
@@ -515,62 +828,269 @@ public class SpinfoodEvent {
     }
 
 
+    /**
+     * Handles a batch of cancellations in one pass, instead of one cancellation after the other like
+     * handleCancellingParticipant. The cancelling participants leave the event. First all pairs hit by the batch
+     * are found: pairs whose participants all cancel are removed from the event, and pairs with one cancelling
+     * participant get a successor participant.
+     * The open places of all pairs are filled together as one matching of pairs and successor participants,
+     * and pairs which get no successor are removed from the event as well.
+     * Then the places of the removed pairs in their groups are filled together as one matching of the removed pairs
+     * and the successor pairs, so that as many groups as possible are kept. The groups of a removed pair
+     * which gets no successor are dissolved together with the other groups of their pairs, as in replacePair;
+     * successors are not given to pairs whose groups are dissolved anyway. The groups are only changed
+     * once the successors of all removed pairs are chosen.
+     *
+     * @param cancelling The participants that are cancelling.
+     */
+    public void handleCancellationBatch(Collection<Participant> cancelling) {
+        Set<Participant> cancellingSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        cancellingSet.addAll(cancelling);
+        Set<Pair> brokenPairs = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Pair> brokenInOrder = new ArrayList<>();
+        Set<Pair> hitPairs = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Pair> halfCancelled = new ArrayList<>();
+        for (Participant par : cancelling) {
+            Pair pair = pairMembership.findPair(par);
+            if (pair == null || !hitPairs.add(pair))
+                continue;
+            if (cancellingSet.containsAll(pair.getParticipants())) {
+                brokenPairs.add(pair);
+                brokenInOrder.add(pair);
+            } else {
+                halfCancelled.add(pair);
+            }
+        }
+
+        if (participants != null)
+            participants.removeIf(cancellingSet::contains);
+        for (Pair pair : refillPairs(halfCancelled, cancellingSet)) {
+            brokenPairs.add(pair);
+            brokenInOrder.add(pair);
+        }
+        pairs.removeAll(brokenPairs);
+        // the remaining participants of the removed pairs become successors, also if they are not participants of the event
+        for (Pair pair : brokenInOrder)
+            for (Participant par : pair.getParticipants())
+                if (par != null && !cancellingSet.contains(par))
+                    successorPool.addParticipant(par);
+        replaceRemovedPairs(brokenInOrder, brokenPairs);
+    }
+
+    /**
+     * Gives the pairs with one cancelling participant successor participants, chosen together as one matching.
+     * @return the pairs which get no successor participant; their remaining participants become successors
+     */
+    private List<Pair> refillPairs(List<Pair> halfCancelled, Set<Participant> cancellingSet) {
+        List<Participant> freeParticipants = new ArrayList<>();
+        Set<Participant> freeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Participant par : successorPool.getParticipants())
+            if (!cancellingSet.contains(par) && freeSet.add(par))
+                freeParticipants.add(par);
+        Map<Participant, Integer> participantPositions = new IdentityHashMap<>();
+        for (int i = 0; i < freeParticipants.size(); i++)
+            participantPositions.put(freeParticipants.get(i), i);
+        List<int[]> participantCandidates = new ArrayList<>();
+        for (Pair pair : halfCancelled) {
+            Participant remainingPar = cancellingSet.contains(pair.getParticipant1()) ? pair.getParticipant2() : pair.getParticipant1();
+            // the pair has to keep a kitchen, either the one of the remaining participant or the one of the successor
+            boolean needsKitchen = remainingPar.getKitchen() == null;
+            participantCandidates.add(PairAlgorithm.findValidCandidates(remainingPar, freeParticipants).stream()
+                    .filter(candidate -> !needsKitchen || candidate.getKitchen() != null)
+                    .mapToInt(participantPositions::get).toArray());
+        }
+        int[] newParticipants = SuccessorAssignment.assign(participantCandidates, freeParticipants.size());
+        List<Pair> unfilled = new ArrayList<>();
+        for (int i = 0; i < halfCancelled.size(); i++) {
+            Pair pair = halfCancelled.get(i);
+            boolean firstCancels = cancellingSet.contains(pair.getParticipant1());
+            if (newParticipants[i] < 0) {
+                unfilled.add(pair);
+                continue;
+            }
+            Participant newParticipant = freeParticipants.get(newParticipants[i]);
+            successorPool.removeParticipant(newParticipant);
+            // the pair is changed in place, so it has to leave the participant index before and re-enter it afterwards
+            pairListener.removed(pair);
+            if (firstCancels)
+                pair.setParticipant1(newParticipant);
+            else
+                pair.setParticipant2(newParticipant);
+            if (pair.getKitchen() == null)
+                pair.setPariticipant2IsKitchenOwner(!pair.getPariticipant2IsKitchenOwner());
+            pairListener.added(pair);
+        }
+        return unfilled;
+    }
+
+    /**
+     * Fills the places of the removed pairs in their groups with successor pairs, chosen together as one matching,
+     * or dissolves the groups; see handleCancellationBatch.
+     * @param brokenInOrder the removed pairs in the order of the cancellations
+     * @param brokenPairs the same pairs, for lookups
+     */
+    private void replaceRemovedPairs(List<Pair> brokenInOrder, Set<Pair> brokenPairs) {
+        List<Pair> freePairs = new ArrayList<>();
+        Set<Pair> freeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Pair pair : successorPool.getPairs())
+            if (!brokenPairs.contains(pair) && freeSet.add(pair))
+                freePairs.add(pair);
+        List<Pair> grouped = new ArrayList<>();
+        List<List<Group>> groupsOfBroken = new ArrayList<>();
+        List<List<Pair>> remainingOfBroken = new ArrayList<>();
+        List<List<Integer>> pairCandidates = new ArrayList<>();
+        for (Pair pair : brokenInOrder) {
+            List<Group> pairGroups = groupMembership.findGroups(pair);
+            if (pairGroups.isEmpty())
+                continue;
+            List<Pair> remainingPairs = new ArrayList<>();
+            for (Group group : pairGroups)
+                for (Pair other : group.getGroupPairs())
+                    if (!brokenPairs.contains(other))
+                        remainingPairs.add(other);
+            grouped.add(pair);
+            groupsOfBroken.add(pairGroups);
+            remainingOfBroken.add(remainingPairs);
+            pairCandidates.add(new ArrayList<>());
+        }
+
+        // a removed pair without successor dissolves its groups and the other groups of their pairs, as in replacePair,
+        // and its remaining pairs become successors for the others; pairs whose groups are dissolved get no successor,
+        // and two successors in one group must fit each other
+        boolean[] dissolving = new boolean[grouped.size()];
+        Set<Group> dissolvedGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] newPairs;
+        int checkedFreePairs = 0;
+        while (true) {
+            for (; checkedFreePairs < freePairs.size(); checkedFreePairs++) {
+                Pair candidate = freePairs.get(checkedFreePairs);
+                if (!GroupAlgorithm.canJoinGroup(candidate, new KitchenLedger(pairMembership.findPairsAt(candidate.getKitchenLocation()), List.of())))
+                    continue;
+                for (int i = 0; i < grouped.size(); i++)
+                    if (remainingOfBroken.get(i).stream().allMatch(other -> other != candidate && GroupAlgorithm.arePairsCompatible(other, candidate)))
+                        pairCandidates.get(i).add(checkedFreePairs);
+            }
+            List<int[]> activeCandidates = new ArrayList<>();
+            for (int i = 0; i < grouped.size(); i++)
+                activeCandidates.add(dissolving[i] ? new int[0] : pairCandidates.get(i).stream().mapToInt(Integer::intValue).toArray());
+            newPairs = SuccessorAssignment.assign(activeCandidates, freePairs.size());
+            int conflict = findConflictingSuccessor(groupsOfBroken, newPairs, freePairs);
+            if (conflict >= 0) {
+                pairCandidates.get(conflict).remove(Integer.valueOf(newPairs[conflict]));
+                continue;
+            }
+
+            // one pair without successor is given up at a time, as its remaining pairs may be the successors of the others
+            boolean changed = false;
+            for (int i = 0; i < grouped.size(); i++) {
+                if (!dissolving[i] && groupsOfBroken.get(i).stream().anyMatch(dissolvedGroups::contains)) {
+                    dissolving[i] = true;
+                    changed = true;
+                }
+            }
+            for (int i = 0; i < grouped.size() && !changed; i++) {
+                if (!dissolving[i] && newPairs[i] < 0) {
+                    dissolving[i] = true;
+                    changed = true;
+                }
+            }
+            dissolvedGroups.clear();
+            for (int i = 0; i < grouped.size(); i++) {
+                if (!dissolving[i])
+                    continue;
+                newPairs[i] = -1;
+                dissolvedGroups.addAll(groupsOfBroken.get(i));
+                for (Pair other : remainingOfBroken.get(i)) {
+                    dissolvedGroups.addAll(groupMembership.findGroups(other));
+                    if (freeSet.add(other))
+                        freePairs.add(other);
+                }
+            }
+            if (!changed)
+                break;
+        }
+
+        // the successor pool follows the groups: used successors join groups, the pairs of dissolved groups leave them
+        for (int i = 0; i < grouped.size(); i++) {
+            if (newPairs[i] < 0)
+                continue;
+            Pair newPair = freePairs.get(newPairs[i]);
+            for (Group group : groupsOfBroken.get(i)) {
+                List<Pair> groupPairs = group.getGroupPairs();
+                groupPairs.set(groupPairs.indexOf(grouped.get(i)), newPair);
+                if (group.getKitchenOwner() == grouped.get(i))
+                    group.setKitchenOwner(newPair);
+            }
+        }
+        groups.removeAll(dissolvedGroups);
+        for (Group group : dissolvedGroups)
+            group.getGroupPairs().removeIf(brokenPairs::contains);
+    }
+
+    /**
+     * @return the position of a removed pair whose successor does not fit the successor of an earlier removed pair
+     *         in one of their common groups, or -1 if all successors fit each other
+     */
+    private static int findConflictingSuccessor(List<List<Group>> groupsOfBroken, int[] newPairs, List<Pair> freePairs) {
+        Map<Group, List<Pair>> successorsInGroup = new IdentityHashMap<>();
+        for (int i = 0; i < groupsOfBroken.size(); i++) {
+            if (newPairs[i] < 0)
+                continue;
+            Pair newPair = freePairs.get(newPairs[i]);
+            for (Group group : groupsOfBroken.get(i)) {
+                List<Pair> successors = successorsInGroup.computeIfAbsent(group, k -> new ArrayList<>(2));
+                for (Pair other : successors)
+                    if (!GroupAlgorithm.arePairsCompatible(other, newPair))
+                        return i;
+                successors.add(newPair);
+            }
+        }
+        return -1;
+    }
+
     /**
      * Replaces a specified pair with another pair from the successor pairs list if possible.
      * If no suitable replacement is found, the pair is removed from the group it belongs to,
      * and all related pairs are added to the successor pairs list.
      * This method modifies the group and pair structure based on the availability of successor pairs.
      *
+     * The groups of the pair are found in the group index and the replacement in the successor pool of the event;
+     * the kitchen usage of a successor is counted from the pairs at its kitchen location only.
+     * Nothing is changed until the replacement is chosen: then the successor takes the place of the pair
+     * in each of its groups, or the groups are dissolved.
+     *
      * @param cancellingPair The pair that needs to be replaced due to cancellation.
      */
     protected void replacePair(Pair cancellingPair) {
-        boolean solved = false;
-        List<Pair> toRemovePair = new ArrayList<>();
-        List<Group> toRemoveGroup = new ArrayList<>();
+        List<Group> remainingGroups = groupMembership.findGroups(cancellingPair);
+        if (remainingGroups.isEmpty())
+            return;
         List<Pair> remainingPairs = new ArrayList<>();
-        List<Group> remainingGroups = new ArrayList<>();
-        Pair newPair;
-        for (Group group : groups) {
-            if (group.getGroupPairs().contains(cancellingPair)) {
-                group.getGroupPairs().remove(cancellingPair);
-                remainingPairs.addAll(group.getGroupPairs());
-                remainingGroups.add(group);
+        for (Group group : remainingGroups)
+            for (Pair pair : group.getGroupPairs())
+                if (pair != cancellingPair)
+                    remainingPairs.add(pair);
+
+        Pair newPair = successorPool.findPairReplacement(remainingPairs, candidate -> candidate != cancellingPair
+                && GroupAlgorithm.canJoinGroup(candidate, new KitchenLedger(pairMembership.findPairsAt(candidate.getKitchenLocation()), List.of())));
+        if (newPair != null) {
+            for (Group group : remainingGroups) {
+                List<Pair> groupPairs = group.getGroupPairs();
+                groupPairs.set(groupPairs.indexOf(cancellingPair), newPair);
+                if (group.getKitchenOwner() == cancellingPair)
+                    group.setKitchenOwner(newPair);
             }
+            return;
         }
 
-        if(!successorPairs.isEmpty()) {
-            List<Pair> candidatePairs = GroupAlgorithm.findValidCandidatesForGroups(remainingPairs.getFirst(), successorPairs, this.pairs);
-            for (Pair pair : remainingPairs) {
-                candidatePairs.retainAll(GroupAlgorithm.findValidCandidatesForGroups(pair, successorPairs, this.pairs));
-            }
-            if (!candidatePairs.isEmpty()) {
-                newPair = candidatePairs.getFirst();
-                for (Group group : remainingGroups) {
-                    group.getGroupPairs().add(newPair);
-                    if(group.getKitchenOwner().equals(cancellingPair)) group.setKitchenOwner(newPair);
-                }
-                successorPairs.remove(newPair);
-                solved = true;
-            } else {
-                toRemovePair.addAll(remainingPairs);
-                toRemoveGroup.addAll(remainingGroups);
-            }
-        }else {
-            toRemovePair.addAll(remainingPairs);
-            toRemoveGroup.addAll(remainingGroups);
-        }
-        if(!solved) {
-            for (Pair pair : toRemovePair) {
-                for (Group group : groups) {
-                    if (group.getGroupPairs().contains(pair)) {
-                        toRemoveGroup.add(group);
-                        group.getGroupPairs().addAll(remainingPairs);
-                    }
-                }
-            }
-            groups.removeAll(toRemoveGroup);
-            successorPairs.addAll(remainingPairs);
-        }
+        Set<Group> dissolvedGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        dissolvedGroups.addAll(remainingGroups);
+        for (Pair pair : remainingPairs)
+            dissolvedGroups.addAll(groupMembership.findGroups(pair));
+        for (Group group : remainingGroups)
+            group.getGroupPairs().remove(cancellingPair);
+        // the pairs of the dissolved groups which are still in the event become successors through the group index
+        groups.removeAll(dissolvedGroups);
     }
 
     /**
@@ -578,37 +1098,41 @@ public class SpinfoodEvent {
      * from the list of successor participants if available. If no replacement is available,
      * the pair is removed entirely. The method adjusts the participants within the pair
      * based on which participant is cancelling and updates the list of successor participants.
+     * The cancelling participant leaves the event, and the replacement is taken from the successor pool of the event.
      *
      * @param pair The pair containing the participant to be replaced.
      * @param cancellingPar The participant within the pair that is cancelling.
      */
     public void replaceParticipant(Pair pair, Participant cancellingPar) {
-        boolean remainingParIsFirstPar = false;
-        Participant remainingPar;
+        boolean remainingParIsFirstPar = !pair.getParticipant1().equals(cancellingPar);
+        Participant remainingPar = remainingParIsFirstPar ? pair.getParticipant1() : pair.getParticipant2();
         Participant newParticipant;
-        if (!pair.getParticipant1().equals(cancellingPar)) {
-            remainingPar = pair.getParticipant1();
-            pair.setParticipant2(null);
-            remainingParIsFirstPar = true;
-        } else {
-            remainingPar = pair.getParticipant2();
-            pair.setParticipant1(null);
-        }
+        boolean isEventPair = pairMembership.findPair(pair.getParticipant1()) == pair || pairMembership.findPair(pair.getParticipant2()) == pair;
+        if (participants != null)
+            participants.remove(cancellingPar);
+        successorPool.removeParticipant(cancellingPar);
 
+        newParticipant = successorPool.findReplacement(remainingPar);
 
-        List<Participant> availableSuccPar = PairAlgorithm.findValidCandidates(remainingPar, successorParticipants);
+        if (newParticipant == null) {
+            // the pair leaves the event while it still has both participants, so the indexes are informed once
+            pairs.remove(pair);
+            successorPool.addParticipant(remainingPar);
+        } else if (isEventPair) {
+            // the pair is changed in place, so it has to leave the participant index before and re-enter it afterwards
+            pairListener.removed(pair);
+        }
+        if (remainingParIsFirstPar) {
+            pair.setParticipant2(newParticipant);
+        } else {
+            pair.setParticipant1(newParticipant);
+        }
 
-        if (!availableSuccPar.isEmpty()) {
-            newParticipant = availableSuccPar.getFirst();
-            if(remainingParIsFirstPar) {
-                pair.setParticipant2(newParticipant);
-            } else {
-                pair.setParticipant1(newParticipant);
-            }
-            successorParticipants.remove(newParticipant);
+        if (newParticipant != null) {
+            successorPool.removeParticipant(newParticipant);
+            if (isEventPair)
+                pairListener.added(pair);
         } else {
-            pairs.remove(pair);
-            successorParticipants.add(remainingPar);
             replacePair(pair);
         }
 
@@ -0,0 +1,53 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns successors to the places which a batch of cancellations has left open (e.g. the places of cancelled pairs
+ * in their groups), all places at once: as many places as possible are filled, and among those assignments
+ * the successors which come first in the successor list are used.
+ *
+ * The places and the successors form a bipartite graph which is solved by MaximumWeightMatching. Every edge weighs
+ * so much more than the differences between the positions of the successors that a larger matching always weighs more.
+ */
+class SuccessorAssignment {
+
+    private SuccessorAssignment() {
+    }
+
+    /**
+     * @param candidates for each place, the positions of the successors which may fill it
+     * @param successorCount the number of successors
+     * @return for each place the position of its successor, or -1 if the place stays open
+     */
+    static int[] assign(List<int[]> candidates, int successorCount) {
+        int places = candidates.size();
+        int numberOfEdges = 0;
+        for (int[] successors : candidates)
+            numberOfEdges += successors.length;
+        int[] result = new int[places];
+        Arrays.fill(result, -1);
+        if (numberOfEdges == 0)
+            return result;
+
+        int[] edgeFrom = new int[numberOfEdges];
+        int[] edgeTo = new int[numberOfEdges];
+        long[] edgeWeight = new long[numberOfEdges];
+        long base = (long) (places + 1) * (successorCount + 1);
+        int k = 0;
+        for (int place = 0; place < places; place++) {
+            for (int successor : candidates.get(place)) {
+                edgeFrom[k] = place;
+                edgeTo[k] = places + successor;
+                edgeWeight[k] = base - successor;
+                k++;
+            }
+        }
+        int[] mate = new MaximumWeightMatching(places + successorCount, edgeFrom, edgeTo, edgeWeight).solve();
+        for (int place = 0; place < places; place++)
+            if (mate[place] >= places)
+                result[place] = mate[place] - places;
+        return result;
+    }
+}
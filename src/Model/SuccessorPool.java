@@ -0,0 +1,334 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * The successors (Nachrückende) of an event: the participants without partner and the pairs without groups.
+ *
+ * SpinfoodEvent keeps a pool up to date through the listeners of its participants, pairs and groups, so the successors
+ * are listed without a walk over all participants or pairs, and their numbers are known at any time.
+ * The successors can also be given by hand (see setParticipants and setPairs); from then on, the pool follows the event again.
+ *
+ * The participants are kept in buckets by food preference, age group, gender and kitchen, and the pairs by food preference,
+ * so the replacement for a cancelling participant or pair is searched in the fitting buckets only.
+ * The bucket of a participant is read when it becomes a successor. Successors are listed in the order
+ * in which they entered the event (or the given lists), which is the order of the participants and pairs of the event.
+ */
+class SuccessorPool {
+    private record ParticipantClass(FoodPreference foodPreference, int ageGroup, Gender gender, KitchenExists kitchenExists) {
+        ParticipantClass(Participant participant) {
+            this(participant.getFoodPreference(), participant.getAge() == null ? -1 : participant.getAgeGroup(),
+                    participant.getGender(), participant.getKitchen() == null ? KitchenExists.NO : participant.getKitchen().getExists());
+        }
+    }
+
+    private final Predicate<Participant> isPaired;
+    private final Predicate<Pair> isGrouped;
+    // the participants and pairs of the event with their positions; a pair keeps its position while it is changed in place
+    private final Set<Participant> eventParticipants = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Pair> eventPairs = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Object, Long> positions = new IdentityHashMap<>();
+    private long nextPosition;
+
+    private final TreeMap<Long, Participant> participants = new TreeMap<>();
+    private final Map<Participant, ParticipantClass> classOfParticipant = new IdentityHashMap<>();
+    private final Map<ParticipantClass, TreeMap<Long, Participant>> participantBuckets = new HashMap<>();
+    private final TreeMap<Long, Pair> pairs = new TreeMap<>();
+    private final Map<Pair, FoodPreference> foodPreferenceOfPair = new IdentityHashMap<>();
+    private final Map<FoodPreference, TreeMap<Long, Pair>> pairBuckets = new HashMap<>();
+
+    /**
+     * Creates an empty pool for an event.
+     * @param isPaired whether a participant of the event has a partner
+     * @param isGrouped whether a pair of the event takes part in a group
+     */
+    SuccessorPool(Predicate<Participant> isPaired, Predicate<Pair> isGrouped) {
+        this.isPaired = isPaired;
+        this.isGrouped = isGrouped;
+    }
+
+    /**
+     * Replaces the content of the pool with the successors of the given participants and pairs.
+     * @param eventParticipants the participants of the event, may be null
+     * @param eventPairs the pairs of the event, may be null
+     */
+    void rebuild(List<Participant> eventParticipants, List<Pair> eventPairs) {
+        this.eventParticipants.clear();
+        this.eventPairs.clear();
+        positions.clear();
+        participants.clear();
+        classOfParticipant.clear();
+        participantBuckets.clear();
+        pairs.clear();
+        foodPreferenceOfPair.clear();
+        pairBuckets.clear();
+        if (eventParticipants != null)
+            for (Participant participant : eventParticipants)
+                participantEntered(participant);
+        if (eventPairs != null)
+            for (Pair pair : eventPairs)
+                pairEntered(pair);
+    }
+
+    /**
+     * @return informs the pool about the participants entering and leaving the event
+     */
+    TrackedList.Listener<Participant> participantListener() {
+        return new TrackedList.Listener<>() {
+            @Override
+            public void added(Participant participant) {
+                participantEntered(participant);
+            }
+
+            @Override
+            public void removed(Participant participant) {
+                eventParticipants.remove(participant);
+                removeParticipant(participant);
+            }
+        };
+    }
+
+    /**
+     * @return informs the pool about the pairs entering and leaving the event, including pairs changed in place
+     */
+    TrackedList.Listener<Pair> pairListener() {
+        return new TrackedList.Listener<>() {
+            @Override
+            public void added(Pair pair) {
+                pairEntered(pair);
+            }
+
+            @Override
+            public void removed(Pair pair) {
+                eventPairs.remove(pair);
+                removePair(pair);
+                for (Participant participant : pair.getParticipants())
+                    if (participant != null && eventParticipants.contains(participant) && !isPaired.test(participant))
+                        addParticipant(participant);
+            }
+        };
+    }
+
+    /**
+     * @return informs the pool when a pair gets its first group (added) and when it leaves its last group (removed)
+     */
+    TrackedList.Listener<Pair> groupedPairListener() {
+        return new TrackedList.Listener<>() {
+            @Override
+            public void added(Pair pair) {
+                removePair(pair);
+            }
+
+            @Override
+            public void removed(Pair pair) {
+                if (eventPairs.contains(pair))
+                    addPair(pair);
+            }
+        };
+    }
+
+    private void participantEntered(Participant participant) {
+        eventParticipants.add(participant);
+        if (!isPaired.test(participant))
+            addParticipant(participant);
+    }
+
+    private void pairEntered(Pair pair) {
+        eventPairs.add(pair);
+        for (Participant participant : pair.getParticipants())
+            if (participant != null)
+                removeParticipant(participant);
+        if (!isGrouped.test(pair))
+            addPair(pair);
+    }
+
+    /**
+     * Replaces the successor participants by the given participants.
+     * @param successors the successor participants, may be null
+     */
+    void setParticipants(List<Participant> successors) {
+        for (Participant participant : new ArrayList<>(participants.values()))
+            removeParticipant(participant);
+        if (successors != null)
+            for (Participant participant : successors)
+                addParticipant(participant);
+    }
+
+    /**
+     * Replaces the successor pairs by the given pairs.
+     * @param successors the successor pairs, may be null
+     */
+    void setPairs(List<Pair> successors) {
+        for (Pair pair : new ArrayList<>(pairs.values()))
+            removePair(pair);
+        if (successors != null)
+            for (Pair pair : successors)
+                addPair(pair);
+    }
+
+    /**
+     * Adds a successor participant. A participant which has been in the pool before keeps its place in the order,
+     * others are put after all participants of the pool.
+     */
+    void addParticipant(Participant participant) {
+        if (classOfParticipant.containsKey(participant))
+            return;
+        long position = positionOf(participant);
+        ParticipantClass participantClass = new ParticipantClass(participant);
+        classOfParticipant.put(participant, participantClass);
+        participants.put(position, participant);
+        participantBuckets.computeIfAbsent(participantClass, k -> new TreeMap<>()).put(position, participant);
+    }
+
+    void removeParticipant(Participant participant) {
+        ParticipantClass participantClass = classOfParticipant.remove(participant);
+        if (participantClass == null)
+            return;
+        long position = positions.get(participant);
+        participants.remove(position);
+        TreeMap<Long, Participant> bucket = participantBuckets.get(participantClass);
+        bucket.remove(position);
+        if (bucket.isEmpty())
+            participantBuckets.remove(participantClass);
+    }
+
+    /**
+     * Adds a successor pair. A pair which has been in the pool before keeps its place in the order,
+     * others are put after all pairs of the pool.
+     */
+    void addPair(Pair pair) {
+        if (foodPreferenceOfPair.containsKey(pair))
+            return;
+        long position = positionOf(pair);
+        foodPreferenceOfPair.put(pair, pair.getFoodPreference());
+        pairs.put(position, pair);
+        pairBuckets.computeIfAbsent(pair.getFoodPreference(), k -> new TreeMap<>()).put(position, pair);
+    }
+
+    void removePair(Pair pair) {
+        if (!foodPreferenceOfPair.containsKey(pair))
+            return;
+        FoodPreference foodPreference = foodPreferenceOfPair.remove(pair);
+        long position = positions.get(pair);
+        pairs.remove(position);
+        TreeMap<Long, Pair> bucket = pairBuckets.get(foodPreference);
+        bucket.remove(position);
+        if (bucket.isEmpty())
+            pairBuckets.remove(foodPreference);
+    }
+
+    private long positionOf(Object participantOrPair) {
+        return positions.computeIfAbsent(participantOrPair, k -> nextPosition++);
+    }
+
+    /**
+     * @return a new list of the successor participants, in their order
+     */
+    List<Participant> getParticipants() {
+        return new ArrayList<>(participants.values());
+    }
+
+    int getParticipantCount() {
+        return participants.size();
+    }
+
+    /**
+     * @return a new list of the successor pairs, in their order
+     */
+    List<Pair> getPairs() {
+        return new ArrayList<>(pairs.values());
+    }
+
+    int getPairCount() {
+        return pairs.size();
+    }
+
+    /**
+     * Finds the best partner for the remaining participant of a pair whose other participant cancels.
+     * The partner must be a valid candidate like in PairAlgorithm.findValidCandidates, and must have a kitchen
+     * if the remaining participant has none. Of these, the partners with the same food preference come first,
+     * then the partners with the closest age group, then the partners of another gender, then the earlier ones.
+     * @param remaining the remaining participant of the pair
+     * @return the partner, or null if no successor fits
+     */
+    Participant findReplacement(Participant remaining) {
+        boolean needsKitchen = remaining.getKitchen() == null;
+        int remainingAgeGroup = remaining.getAge() == null ? -1 : remaining.getAgeGroup();
+        Participant best = null;
+        long bestRank = Long.MAX_VALUE;
+        for (Map.Entry<ParticipantClass, TreeMap<Long, Participant>> entry : participantBuckets.entrySet()) {
+            ParticipantClass participantClass = entry.getKey();
+            if (isMeatWithVeggie(participantClass.foodPreference(), remaining.getFoodPreference())
+                    || needsKitchen && participantClass.kitchenExists() == KitchenExists.NO)
+                continue;
+            long rank = (participantClass.foodPreference() == remaining.getFoodPreference() ? 0 : 1) * 100
+                    + Math.abs(participantClass.ageGroup() - remainingAgeGroup) * 2
+                    + (participantClass.gender() == remaining.getGender() ? 1 : 0);
+            if (rank > bestRank)
+                continue;
+            for (Map.Entry<Long, Participant> candidate : entry.getValue().entrySet()) {
+                if (rank == bestRank && candidate.getKey() > positions.get(best))
+                    break;
+                Participant participant = candidate.getValue();
+                if (participant == remaining || needsKitchen && participant.getKitchen() == null
+                        || participant.getKitchen() != null && participant.getKitchen().equals(remaining.getKitchen()))
+                    continue;
+                best = participant;
+                bestRank = rank;
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param groupPairs the pairs the successor has to join
+     * @param canJoin the checks of the successor which do not depend on the group pairs, e.g. the kitchen usage
+     * @return the first successor pair which is not one of the group pairs, may be in a group with each of them
+     *         (see GroupAlgorithm.arePairsCompatible) and passes the checks; null if there is none
+     */
+    Pair findPairReplacement(List<Pair> groupPairs, Predicate<Pair> canJoin) {
+        Pair first = null;
+        for (Map.Entry<FoodPreference, TreeMap<Long, Pair>> entry : pairBuckets.entrySet()) {
+            if (!fitsFoodPreferences(entry.getKey(), groupPairs))
+                continue;
+            for (Map.Entry<Long, Pair> candidate : entry.getValue().entrySet()) {
+                if (first != null && candidate.getKey() > positions.get(first))
+                    break;
+                if (fitsGroupPairs(candidate.getValue(), groupPairs) && canJoin.test(candidate.getValue())) {
+                    first = candidate.getValue();
+                    break;
+                }
+            }
+        }
+        return first;
+    }
+
+    private static boolean fitsFoodPreferences(FoodPreference foodPreference, List<Pair> groupPairs) {
+        for (Pair pair : groupPairs)
+            if (isMeatWithVeggie(foodPreference, pair.getFoodPreference()))
+                return false;
+        return true;
+    }
+
+    private static boolean isMeatWithVeggie(FoodPreference foodPreference1, FoodPreference foodPreference2) {
+        boolean veggie1 = foodPreference1 == FoodPreference.VEGGIE || foodPreference1 == FoodPreference.VEGAN;
+        boolean veggie2 = foodPreference2 == FoodPreference.VEGGIE || foodPreference2 == FoodPreference.VEGAN;
+        return foodPreference1 == FoodPreference.MEAT && veggie2 || foodPreference2 == FoodPreference.MEAT && veggie1;
+    }
+
+    private static boolean fitsGroupPairs(Pair candidate, List<Pair> groupPairs) {
+        for (Pair pair : groupPairs)
+            if (pair == candidate || !GroupAlgorithm.arePairsCompatible(pair, candidate))
+                return false;
+        return true;
+    }
+}
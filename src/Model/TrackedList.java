@@ -0,0 +1,175 @@
+package Model;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A list which reports to a listener whenever an element enters or leaves it.
+ * SpinfoodEvent uses it for its pairs and groups, so that its indexes stay correct no matter
+ * whether the lists are changed by the algorithms, by the GUI (including undo/redo) or directly by a caller.
+ *
+ * The list counts the occurrences of each element (by identity), so the listener is only informed
+ * when the first copy of an element is added or the last copy is removed.
+ * Reordering operations like sorting, shuffling or swapping therefore cause no notifications.
+ *
+ * @param <E> the type of the elements
+ */
+class TrackedList<E> extends AbstractList<E> implements RandomAccess {
+
+    /**
+     * Receives the elements which enter or leave a TrackedList.
+     */
+    interface Listener<E> {
+        void added(E element);
+        void removed(E element);
+
+        /**
+         * @return a listener which informs this listener first and then the given one
+         */
+        default Listener<E> andThen(Listener<E> next) {
+            Listener<E> first = this;
+            return new Listener<>() {
+                @Override
+                public void added(E element) {
+                    first.added(element);
+                    next.added(element);
+                }
+
+                @Override
+                public void removed(E element) {
+                    first.removed(element);
+                    next.removed(element);
+                }
+            };
+        }
+    }
+
+    private final ArrayList<E> elements;
+    private final IdentityHashMap<E, Integer> occurrences;
+    private Listener<E> listener;
+
+    TrackedList(Listener<E> listener) {
+        this.elements = new ArrayList<>();
+        this.occurrences = new IdentityHashMap<>();
+        this.listener = listener;
+    }
+
+    TrackedList(Collection<? extends E> initialElements, Listener<E> listener) {
+        this(listener);
+        addAll(initialElements);
+    }
+
+    /**
+     * Stops informing the listener, e.g. after the list has been replaced by a new one.
+     */
+    void detach() {
+        this.listener = null;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E old = elements.set(index, element);
+        enter(element);
+        leave(old);
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements.add(index, element);
+        modCount++;
+        enter(element);
+    }
+
+    @Override
+    public E remove(int index) {
+        E old = elements.remove(index);
+        modCount++;
+        leave(old);
+        return old;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        elements.ensureCapacity(elements.size() + collection.size());
+        for (E element : collection)
+            add(element);
+        return !collection.isEmpty();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        List<E> removed = new ArrayList<>();
+        boolean changed = elements.removeIf(element -> {
+            if (filter.test(element)) {
+                removed.add(element);
+                return true;
+            }
+            return false;
+        });
+        if (changed) {
+            modCount++;
+            for (E element : removed)
+                leave(element);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        return removeIf(collection::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        return removeIf(element -> !collection.contains(element));
+    }
+
+    @Override
+    public void clear() {
+        List<E> removed = new ArrayList<>(elements);
+        elements.clear();
+        modCount++;
+        for (E element : removed)
+            leave(element);
+    }
+
+    @Override
+    public void sort(Comparator<? super E> comparator) {
+        elements.sort(comparator);
+        modCount++;
+    }
+
+    private void enter(E element) {
+        if (element == null)
+            return;
+        int count = occurrences.merge(element, 1, Integer::sum);
+        if (count == 1 && listener != null)
+            listener.added(element);
+    }
+
+    private void leave(E element) {
+        if (element == null)
+            return;
+        Integer count = occurrences.get(element);
+        if (count == null)
+            return;
+        if (count > 1) {
+            occurrences.put(element, count - 1);
+        } else {
+            occurrences.remove(element);
+            if (listener != null)
+                listener.removed(element);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Forms pairs by maximum weight matching instead of matching one participant after another.
+ *
+ * Every allowed pair (see criteria 6.1 and 6.5, and at least one kitchen) becomes an edge whose weight encodes,
+ * in decreasing order of importance:
+ * - that a pair is formed at all, so that as few participants as possible remain successors
+ *   (one more pair outweighs the preferences of all other pairs),
+ * - whether the priority-1-preference is fulfilled strictly,
+ * - how well the pair uses the kitchens (criteria 6.3, in the order the greedy matching tries the kitchen combinations),
+ * - how well the pair fulfils the criteria 6.6 to 6.8, weighted by their priorities.
+ * To keep the graph small, each participant only keeps the edges to its best candidates, which are chosen among
+ * the candidates of the CandidatePool of the participants.
+ * The matching of maximum total weight is then computed with the blossom algorithm.
+ */
+class WeightedPairMatching implements PairMatchingStrategy {
+    private static final long STRICT_PREFERENCE_WEIGHT = 10_000_000L;
+    private static final long KITCHEN_WEIGHT = 1_000_000L;
+    private static final long[] PRIORITY_WEIGHTS = {0, 10_000, 100, 1}; // by priority 1/2/3
+    // more than the weight of a pair apart from the weight for forming it
+    private static final long MAX_PREFERENCE_WEIGHT = 20_000_000L;
+    // the number of best candidates with each kind of kitchen (YES/MAYBE/NO) which are kept for a participant
+    private static final int CANDIDATES_PER_KITCHEN = 24;
+
+    @Override
+    public void matchPairs(SpinfoodEvent event, List<Participant> participantsWithoutPartner,
+                           int foodPreference, int ageDifference, int genderDiversity) {
+        int n = participantsWithoutPartner.size();
+        // forming one more pair must outweigh the preferences of all other pairs, even along a long augmenting path
+        long pairWeight = (n / 2 + 1) * MAX_PREFERENCE_WEIGHT;
+
+        // keep the best edges of every participant to partners with each kind of kitchen, so that no kind of partner
+        // is crowded out by another; an edge is kept if it is among the best of one of its ends
+        Set<Long> keptEdges = new HashSet<>();
+        long[] candidates = new long[n];
+        // only the participants who may be matched at all are weighed (see CandidatePool.validCandidatesOf),
+        // and participants without a kitchen are only weighed with those who have one;
+        // the participants are read from their rows in the participant table
+        CandidatePool pool = new CandidatePool(participantsWithoutPartner, event.getParticipantTable(), event);
+        BitSet withKitchen = pool.select(KitchenExists.YES);
+        withKitchen.or(pool.select(KitchenExists.MAYBE));
+        BitSet everyone = new BitSet(n);
+        everyone.set(0, n);
+        for (int i = 0; i < n; i++) {
+            if (event.getProgress().isCancelled())
+                return;
+            if (!pool.isAvailable(i)) // a participant is only weighed once
+                continue;
+            int count = 0;
+            IntPredicate valid = pool.validCandidatesOf(i);
+            BitSet partners = pool.kitchenExists(i) == KitchenExists.NO ? withKitchen : everyone;
+            for (int j = partners.nextSetBit(0); j >= 0; j = partners.nextSetBit(j + 1)) {
+                if (!valid.test(j))
+                    continue;
+                long weight = findWeight(pool, i, j, foodPreference, ageDifference, genderDiversity);
+                if (weight > 0)
+                    weight -= MAX_PREFERENCE_WEIGHT; // only the preferences matter for choosing the best candidates
+                // negated to sort the best first; equally good candidates are taken starting after i,
+                // so that they do not all keep the same candidates
+                if (weight >= 0)
+                    candidates[count++] = -(weight << 20 | (n - 1 - (j - i + n) % n));
+            }
+            Arrays.sort(candidates, 0, count);
+            int[] keptPerKitchen = new int[3];
+            for (int c = 0; c < count; c++) {
+                int j = (i + n - 1 - (int) (-candidates[c] & ((1 << 20) - 1))) % n;
+                if (keptPerKitchen[certainty(pool.kitchenExists(j))]++ < CANDIDATES_PER_KITCHEN)
+                    keptEdges.add((long) Math.min(i, j) * n + Math.max(i, j));
+            }
+        }
+
+        int[] edgeFrom = new int[keptEdges.size()];
+        int[] edgeTo = new int[keptEdges.size()];
+        long[] edgeWeight = new long[keptEdges.size()];
+        int k = 0;
+        for (long edge : keptEdges) {
+            edgeFrom[k] = (int) (edge / n);
+            edgeTo[k] = (int) (edge % n);
+            edgeWeight[k] = pairWeight - MAX_PREFERENCE_WEIGHT
+                    + findWeight(pool, edgeFrom[k], edgeTo[k], foodPreference, ageDifference, genderDiversity);
+            k++;
+        }
+
+        int[] mate = new MaximumWeightMatching(n, edgeFrom, edgeTo, edgeWeight).solve();
+        if (event.getProgress().isCancelled())
+            return;
+        for (int i = 0; i < n; i++) {
+            if (mate[i] > i) {
+                addPair(pool, i, mate[i], event);
+                event.getProgress().advance();
+            }
+        }
+    }
+
+    /**
+     * @param position1 the position of the first participant in the pool
+     * @param position2 the position of the second participant in the pool
+     * @return the weight of matching the two participants (MAX_PREFERENCE_WEIGHT plus the weight of their preferences),
+     *         or 0 if they may not be matched
+     */
+    private static long findWeight(CandidatePool pool, int position1, int position2,
+                                   int foodPreference, int ageDifference, int genderDiversity) {
+        KitchenExists kitchen1 = pool.kitchenExists(position1);
+        KitchenExists kitchen2 = pool.kitchenExists(position2);
+        if (kitchen1 == KitchenExists.NO && kitchen2 == KitchenExists.NO)
+            return 0;
+        ParticipantTable table = pool.table();
+        int row1 = pool.row(position1);
+        int row2 = pool.row(position2);
+        FoodPreference preference1 = table.getFoodPreference(row1);
+        FoodPreference preference2 = table.getFoodPreference(row2);
+        if (preference1 == null || preference2 == null)
+            return 0;
+        boolean vegetarian1 = preference1 == FoodPreference.VEGGIE || preference1 == FoodPreference.VEGAN;
+        boolean vegetarian2 = preference2 == FoodPreference.VEGGIE || preference2 == FoodPreference.VEGAN;
+        if ((preference1 == FoodPreference.MEAT && vegetarian2) || (preference2 == FoodPreference.MEAT && vegetarian1)) // criteria 6.1
+            return 0;
+        if (table.getKitchenId(row1) != ParticipantTable.NO_VALUE && table.getKitchenId(row1) == table.getKitchenId(row2)) // criteria 6.5
+            return 0;
+
+        // criteria 6.6: 0 to 6, criteria 6.7: 0 to 8, criteria 6.8: 0 or 8
+        int foodScore = 8 - PairAlgorithm.getFoodPreferencePriority(preference1, preference2)
+                - PairAlgorithm.getFoodPreferencePriority(preference2, preference1);
+        int ageGroupDifference = Math.abs(table.getAgeGroup(row1) - table.getAgeGroup(row2));
+        int ageScore = Math.max(0, 8 - ageGroupDifference);
+        boolean diverse = (table.getGender(row1) == Gender.FEMALE) != (table.getGender(row2) == Gender.FEMALE);
+        int genderScore = diverse ? 8 : 0;
+
+        boolean strict;
+        if (foodPreference == 1)
+            strict = preference1 == preference2;
+        else if (ageDifference == 1)
+            strict = ageGroupDifference == 0;
+        else
+            strict = diverse;
+
+        return MAX_PREFERENCE_WEIGHT
+                + (strict ? STRICT_PREFERENCE_WEIGHT : 0)
+                + KITCHEN_WEIGHT * kitchenScore(kitchen1, kitchen2)
+                + PRIORITY_WEIGHTS[foodPreference] * foodScore
+                + PRIORITY_WEIGHTS[ageDifference] * ageScore
+                + PRIORITY_WEIGHTS[genderDiversity] * genderScore;
+    }
+
+    /**
+     * @return 5 to 1 in the order in which the greedy matching combines the kitchens (YES+NO first, MAYBE+MAYBE last)
+     */
+    private static int kitchenScore(KitchenExists kitchen1, KitchenExists kitchen2) {
+        if (certainty(kitchen1) < certainty(kitchen2))
+            return kitchenScore(kitchen2, kitchen1);
+        if (kitchen1 == KitchenExists.YES)
+            return kitchen2 == KitchenExists.NO ? 5 : kitchen2 == KitchenExists.MAYBE ? 4 : 3;
+        return kitchen2 == KitchenExists.NO ? 2 : 1;
+    }
+
+    /**
+     * @return 2 for YES, 1 for MAYBE and 0 for NO
+     */
+    private static int certainty(KitchenExists kitchenExists) {
+        return kitchenExists == KitchenExists.YES ? 2 : kitchenExists == KitchenExists.MAYBE ? 1 : 0;
+    }
+
+    /**
+     * Adds the pair to the event. Like in the greedy matching, the participant with the more certain kitchen comes first,
+     * and the kitchen closer to the after dinner party is used if both have one (criteria 6.3).
+     */
+    private static void addPair(CandidatePool pool, int position1, int position2, SpinfoodEvent event) {
+        if (certainty(pool.kitchenExists(position1)) < certainty(pool.kitchenExists(position2))) {
+            int swap = position1;
+            position1 = position2;
+            position2 = swap;
+        }
+        Participant participant1 = pool.get(position1);
+        Participant participant2 = pool.get(position2);
+        ParticipantTable table = pool.table();
+        boolean participant2IsKitchenOwner = participant2.getKitchen() != null
+                && table.findKitchenDistance(pool.row(position2), event.getAfterDinnerPartyLocation())
+                < table.findKitchenDistance(pool.row(position1), event.getAfterDinnerPartyLocation());
+        event.getPairs().add(new Pair(participant1, participant2, PairAlgorithm.findPairFoodPreference(participant1, participant2), participant2IsKitchenOwner));
+    }
+}
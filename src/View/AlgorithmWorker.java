@@ -0,0 +1,134 @@
+package View;
+
+import Model.AlgorithmProgress;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The AlgorithmWorker class runs a long task of the algorithms (e.g. the pair matching or the group building)
+ * in the background, so that the screens stay responsive. While the task runs, a dialog shows how far it is
+ * and lets the user cancel it; the result is handed to the screens on the event dispatch thread when the task is done.
+ * A cancelled task hands over no result, so the task should work on a copy of the event (see SpinfoodEvent.snapshot).
+ *
+ * @param <T> the type of the result of the task
+ */
+class AlgorithmWorker<T> extends SwingWorker<T, AlgorithmWorker.Update> {
+    record Update(AlgorithmProgress.Step step, int done, int total) {
+    }
+
+    private final JFrame frame;
+    private final String language;
+    private final Function<AlgorithmProgress, T> task;
+    private final Consumer<T> onDone;
+    private final AlgorithmProgress progress = new AlgorithmProgress((step, done, total) -> publish(new Update(step, done, total)));
+    private final JDialog dialog;
+    private final JLabel stepLabel;
+    private final JProgressBar progressBar;
+
+    /**
+     * Constructs an AlgorithmWorker with the specified parameters.
+     *
+     * @param frame the JFrame the progress dialog belongs to
+     * @param language the language selected by the user
+     * @param task the task, which reports to and checks the given progress (see SpinfoodEvent.setProgress)
+     * @param onDone receives the result of the task if it was not cancelled
+     */
+    AlgorithmWorker(JFrame frame, String language, Function<AlgorithmProgress, T> task, Consumer<T> onDone) {
+        this.frame = frame;
+        this.language = language;
+        this.task = task;
+        this.onDone = onDone;
+
+        dialog = new JDialog(frame, language.equals("Deutsch") ? "Bitte warten" : "Please wait", true);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelTask();
+            }
+        });
+
+        stepLabel = new JLabel(language.equals("Deutsch") ? "Algorithmus wird gestartet..." : "Starting the algorithm...", SwingConstants.CENTER);
+        stepLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        JButton cancelButton = new JButton(language.equals("Deutsch") ? "Abbrechen" : "Cancel");
+        cancelButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        cancelButton.addActionListener(e -> cancelTask());
+
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        panel.add(stepLabel);
+        panel.add(Box.createRigidArea(new Dimension(0, 10)));
+        panel.add(progressBar);
+        panel.add(Box.createRigidArea(new Dimension(0, 10)));
+        panel.add(cancelButton);
+        dialog.getContentPane().add(panel);
+        dialog.setSize(400, 160);
+        dialog.setLocationRelativeTo(frame);
+    }
+
+    /**
+     * Starts the task and shows the progress dialog until the task is done or cancelled.
+     */
+    void start() {
+        execute();
+        dialog.setVisible(true);
+    }
+
+    @Override
+    protected T doInBackground() {
+        return task.apply(progress);
+    }
+
+    @Override
+    protected void process(List<Update> updates) {
+        if (progress.isCancelled())
+            return;
+        Update update = updates.getLast();
+        stepLabel.setText(describe(update.step()));
+        progressBar.setIndeterminate(update.total() <= 0);
+        progressBar.setMaximum(Math.max(1, update.total()));
+        progressBar.setValue(Math.min(update.done(), update.total()));
+        progressBar.setString(update.step() == AlgorithmProgress.Step.IMPROVING_GROUPS ? null : update.done() + " / " + update.total());
+    }
+
+    @Override
+    protected void done() {
+        dialog.dispose();
+        if (progress.isCancelled())
+            return;
+        try {
+            onDone.accept(get());
+        } catch (InterruptedException | ExecutionException e) {
+            String message = language.equals("Deutsch") ? "Der Algorithmus ist fehlgeschlagen: " : "The algorithm failed: ";
+            String title = language.equals("Deutsch") ? "Fehler" : "Error";
+            JOptionPane.showMessageDialog(frame, message + e.getCause(), title, JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Asks the task to stop at its next check; the dialog closes when it has stopped.
+     */
+    private void cancelTask() {
+        progress.cancel();
+        stepLabel.setText(language.equals("Deutsch") ? "Wird abgebrochen..." : "Cancelling...");
+    }
+
+    private String describe(AlgorithmProgress.Step step) {
+        return switch (step) {
+            case MATCHING_PAIRS -> language.equals("Deutsch") ? "Gebildete Paare" : "Pairs matched";
+            case FORMING_CLUSTERS -> language.equals("Deutsch") ? "Gebildete Cluster" : "Clusters formed";
+            case IMPROVING_GROUPS -> language.equals("Deutsch") ? "Gruppen werden verbessert" : "Improving groups";
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package View;
 
+import Model.AlgorithmProgress;
+import Model.EventSnapshot;
 import Model.Pair;
-import Model.Participant;
+import Model.PairMatchingStrategy;
 import Model.SpinfoodEvent;
 
 import javax.swing.*;
@@ -17,9 +19,14 @@ public class CriteriaScreen {
     private JFrame frame;
     private String language;
     private SpinfoodEvent event1;
-    private List<List<String>> inputParticipantsList;
+    private String participantFilepath;
     private boolean change;
     private boolean pairMatching;
+    // the number of runs of the group matching by default; more runs run in parallel and the best of them is kept
+    private static final int DEFAULT_GROUP_MATCHING_RUNS = 1;
+    private int groupMatchingRuns = DEFAULT_GROUP_MATCHING_RUNS;
+    // the number of moves for improving the groups once the group matching is done, none by default
+    private int groupOptimizationMoves;
 
     /**
      * Constructs a CriteriaScreen with the specified parameters.
@@ -27,15 +34,15 @@ public class CriteriaScreen {
      * @param frame the JFrame used to display the screens
      * @param language the language selected by the user
      * @param event1 the current SpinfoodEvent
-     * @param inputParticipantsList the list of input participants
+     * @param participantFilepath the path of the participant file the event was imported from
      * @param change whether the criteria are being changed
      * @param pairMatching whether the criteria are for pair matching or group building
      */
-    public CriteriaScreen(JFrame frame, String language, SpinfoodEvent event1, List<List<String>> inputParticipantsList, boolean change, boolean pairMatching) {
+    public CriteriaScreen(JFrame frame, String language, SpinfoodEvent event1, String participantFilepath, boolean change, boolean pairMatching) {
         this.frame = frame;
         this.language = language;
         this.event1 = event1;
-        this.inputParticipantsList = inputParticipantsList;
+        this.participantFilepath = participantFilepath;
         this.change = change;
         this.pairMatching = pairMatching;
     }
@@ -46,13 +53,13 @@ public class CriteriaScreen {
      * @param frame the JFrame used to display the screens
      * @param language the language selected by the user
      * @param event1 the current SpinfoodEvent
-     * @param inputParticipantsList the list of input participants
+     * @param participantFilepath the path of the participant file the event was imported from
      */
-    public CriteriaScreen(JFrame frame, String language, SpinfoodEvent event1, List<List<String>> inputParticipantsList) {
+    public CriteriaScreen(JFrame frame, String language, SpinfoodEvent event1, String participantFilepath) {
         this.frame = frame;
         this.language = language;
         this.event1 = event1;
-        this.inputParticipantsList = inputParticipantsList;
+        this.participantFilepath = participantFilepath;
     }
 
     /**
@@ -73,6 +80,32 @@ public class CriteriaScreen {
         this.pairMatching = pairMatching;
     }
 
+    /**
+     * Sets the number of runs of the group matching, of which the best is kept (see SpinfoodEvent.createGroupsMultiStart).
+     * By default the group matching runs once.
+     * The runs do not depend on the number of cores, so the same number of runs gives the same groups on every machine
+     * if the event has a seed.
+     *
+     * @param groupMatchingRuns the number of runs, at least 1
+     */
+    public void setGroupMatchingRuns(int groupMatchingRuns) {
+        if (groupMatchingRuns < 1)
+            throw new IllegalArgumentException("The number of runs must be at least 1");
+        this.groupMatchingRuns = groupMatchingRuns;
+    }
+
+    /**
+     * Sets the number of moves for improving the groups once the group matching is done
+     * (see SpinfoodEvent.optimizeGroupsForMoves). 20000 moves take about a second.
+     *
+     * @param groupOptimizationMoves the number of moves, 0 to keep the groups of the group matching
+     */
+    public void setGroupOptimizationMoves(int groupOptimizationMoves) {
+        if (groupOptimizationMoves < 0)
+            throw new IllegalArgumentException("The number of moves must not be negative");
+        this.groupOptimizationMoves = groupOptimizationMoves;
+    }
+
     /**
      * Displays the criteria selection screen where users can set the importance of various criteria.
      */
@@ -136,6 +169,11 @@ public class CriteriaScreen {
         criteriaPanel.add(new JLabel(criteriaLabels[4]));
         criteriaPanel.add(elementsComboBox);
 
+        // the weighted matching leaves as few successors as possible, but takes longer than the greedy matching
+        JCheckBox weightedMatchingCheckBox = new JCheckBox(language.equals("Deutsch")
+                ? "Möglichst wenige Nachrücker (langsamer)" : "As few successors as possible (slower)");
+        weightedMatchingCheckBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+
         JButton startAlgorithmButton;
         if (!change)
             if (pairMatching)
@@ -160,7 +198,8 @@ public class CriteriaScreen {
                 int numberOfElements = Integer.parseInt((String) elementsComboBox.getSelectedItem());
 
                 if (pairMatching)
-                    handlePairMatching(foodPreference, ageDifference, genderDiversity);
+                    handlePairMatching(foodPreference, ageDifference, genderDiversity,
+                            weightedMatchingCheckBox.isSelected() ? PairMatchingStrategy.WEIGHTED : PairMatchingStrategy.GREEDY);
                 else
                     handleGroupMatching(foodPreference, ageDifference, genderDiversity, pathDistance, numberOfElements);
             } else {
@@ -173,6 +212,8 @@ public class CriteriaScreen {
         panel.add(titleLabel);
         panel.add(criteriaMessageLabel);
         panel.add(criteriaPanel);
+        if (pairMatching)
+            panel.add(weightedMatchingCheckBox);
         panel.add(Box.createRigidArea(new Dimension(0, 20)));
         panel.add(startAlgorithmButton);
         panel.add(Box.createVerticalGlue());
@@ -187,34 +228,56 @@ public class CriteriaScreen {
      * Build participants into pairs based on the importance of criteria. (1 - most important, 5 - least important)
      * The smallest number among the three would become 1, the biggest would become 3, and the middle would become 2.
      * Path distance and number of elements are irrelevant to pair matching.
+     * The pairs are formed in the background (see AlgorithmWorker) on a copy of the event, which is shown when the matching is done.
      * @param foodPreference how important similar food preference is
      * @param ageDifference how important similar age is
      * @param genderDiversity how important diverse gender is
+     * @param strategy the way the pairs are chosen
      */
-    private void handlePairMatching(int foodPreference, int ageDifference, int genderDiversity) {
+    private void handlePairMatching(int foodPreference, int ageDifference, int genderDiversity, PairMatchingStrategy strategy) {
         int[] criteriaImportance = new int[]{foodPreference, ageDifference, genderDiversity};
         int[] adjustedCriteria;
         adjustedCriteria = adjustCriteriaForPairs(criteriaImportance);
         if (!change) {
-            event1.createPairs(adjustedCriteria[0], adjustedCriteria[1], adjustedCriteria[2]);
-            event1.numberThePairs();
-            System.out.println("Original Criteria "+ adjustedCriteria[0]+" "+ adjustedCriteria[1]+ " "+adjustedCriteria[2]);
-            PairScreen pairScreen = new PairScreen(this.frame, this.language, this.event1, this.inputParticipantsList);
-            pairScreen.showPairingResultsScreen();
+            EventSnapshot snapshot = event1.snapshot();
+            new AlgorithmWorker<>(frame, language, progress -> {
+                SpinfoodEvent newEvent = snapshot.newWorkingCopy();
+                newEvent.setProgress(progress);
+                newEvent.createPairs(adjustedCriteria[0], adjustedCriteria[1], adjustedCriteria[2], strategy);
+                newEvent.numberThePairs();
+                System.out.println("Original Criteria "+ adjustedCriteria[0]+" "+ adjustedCriteria[1]+ " "+adjustedCriteria[2]);
+                return newEvent;
+            }, newEvent -> {
+                this.event1 = newEvent;
+                PairScreen pairScreen = new PairScreen(this.frame, this.language, this.event1, this.participantFilepath);
+                pairScreen.showPairingResultsScreen();
+            }).start();
         } else {
-            SpinfoodEvent newEvent = new SpinfoodEvent(event1.getAfterDinnerPartyLocation());
-            newEvent.createInitialParticipantsAndPairs(inputParticipantsList);
-            System.out.println("New Criteria "+ adjustedCriteria[0]+" "+ adjustedCriteria[1]+ " "+adjustedCriteria[2]);
-            newEvent.createPairs(adjustedCriteria[0], adjustedCriteria[1], adjustedCriteria[2]);
-            newEvent.numberThePairs();
-            PairScreen pairScreen = new PairScreen(this.frame, this.language, this.event1, this.inputParticipantsList);
-            pairScreen.setTempNewEvent(newEvent);
-            pairScreen.showDoublePairingResultsScreen();
+            EventSnapshot snapshot = event1.snapshot();
+            new AlgorithmWorker<>(frame, language, progress -> {
+                // only the pairs which registered together are kept, the others are matched again
+                SpinfoodEvent newEvent = snapshot.newWorkingCopy(false);
+                List<Pair> registeredPairs = new ArrayList<>();
+                for (Pair pair : newEvent.getPairs())
+                    if (pair.isRegisteredAsPair())
+                        registeredPairs.add(pair);
+                newEvent.setPairs(registeredPairs);
+                newEvent.setProgress(progress);
+                System.out.println("New Criteria "+ adjustedCriteria[0]+" "+ adjustedCriteria[1]+ " "+adjustedCriteria[2]);
+                newEvent.createPairs(adjustedCriteria[0], adjustedCriteria[1], adjustedCriteria[2], strategy);
+                newEvent.numberThePairs();
+                return newEvent;
+            }, newEvent -> {
+                PairScreen pairScreen = new PairScreen(this.frame, this.language, this.event1, this.participantFilepath);
+                pairScreen.setTempNewEvent(newEvent);
+                pairScreen.showDoublePairingResultsScreen();
+            }).start();
         }
     }
 
     /**
      * Build pairs into groups based on the importance of criteria. (1 - most important, 5 - least important)
+     * The groups are built in the background (see AlgorithmWorker) on copies of the event, and shown when the building is done.
      * @param foodPreference how important similar food preference is
      * @param ageDifference how important similar age is
      * @param genderDiversity how important diverse gender is
@@ -222,41 +285,59 @@ public class CriteriaScreen {
      * @param numberOfElements how important number of elements is
      */
     private void handleGroupMatching(int foodPreference, int ageDifference, int genderDiversity, int pathDistance, int numberOfElements) {
+        EventSnapshot snapshot = event1.snapshot();
+        int runs = groupMatchingRuns;
+        int moves = groupOptimizationMoves;
+        new AlgorithmWorker<>(frame, language,
+                progress -> buildGroups(snapshot, progress, runs, moves, foodPreference, ageDifference, genderDiversity,
+                        pathDistance, numberOfElements),
+                this::showGroupingResults).start();
+    }
+
+    /**
+     * Builds the groups on copies of the snapshot until enough pairs have groups or the progress is cancelled,
+     * and then improves the groups of the last copy once for the given number of moves.
+     * @param runs the number of runs of the group matching for each copy
+     * @param moves the number of moves for improving the groups, 0 for none
+     * @return the copy with the groups
+     */
+    private static SpinfoodEvent buildGroups(EventSnapshot snapshot, AlgorithmProgress progress, int runs, int moves,
+                                             int foodPreference, int ageDifference, int genderDiversity, int pathDistance,
+                                             int numberOfElements) {
         boolean done = false;
-        SpinfoodEvent newEvent = new SpinfoodEvent(event1.getAfterDinnerPartyLocation());
-        ;
-        while (!done) {
-            newEvent = new SpinfoodEvent(event1.getAfterDinnerPartyLocation());
-            newEvent.createInitialParticipantsAndPairs(inputParticipantsList);
-            newEvent.setPairs(new ArrayList<>());
-            for (Pair pair : event1.getPairs()) {
-                Participant participant1 = null;
-                Participant participant2 = null;
-                for (Participant p : newEvent.getParticipants()) {
-                    if (pair.getParticipant1().getId().equals(p.getId()))
-                        participant1 = p;
-                    if (pair.getParticipant2().getId().equals(p.getId()))
-                        participant2 = p;
-                }
-                List<Pair> updatedPairs = newEvent.getPairs();
-                updatedPairs.add(new Pair(participant1, participant2, pair.getFoodPreference(), pair.getPariticipant2IsKitchenOwner()));
-                newEvent.setPairs(updatedPairs);
-            }
+        SpinfoodEvent newEvent = null;
+        while (!done && !progress.isCancelled()) {
+            newEvent = snapshot.newWorkingCopy(false);
+            newEvent.setProgress(progress);
             newEvent.numberThePairs();
-            newEvent.createGroups(foodPreference, ageDifference, genderDiversity, pathDistance, numberOfElements);
+            if (runs == 1)
+                newEvent.createGroups(foodPreference, ageDifference, genderDiversity, pathDistance, numberOfElements);
+            else
+                newEvent.createGroupsMultiStart(foodPreference, ageDifference, genderDiversity, pathDistance, numberOfElements,
+                        runs, SpinfoodEvent.FEWEST_PAIRS_WITHOUT_GROUPS);
             int numPairsInEvent = newEvent.getPairs().size();
             if (numberOfElements < 3 && newEvent.getGroups().size() >= numPairsInEvent-10)
                 done = true;
             if (numberOfElements >= 3 && newEvent.getGroups().size() >= numPairsInEvent-28)
                 done = true;
         }
+        if (newEvent != null)
+            newEvent.optimizeGroupsForMoves(foodPreference, ageDifference, genderDiversity, pathDistance, numberOfElements,
+                    moves);
+        return newEvent;
+    }
 
+    /**
+     * Shows the groups of the new event, alone or next to the current groups if the criteria are being changed.
+     * @param newEvent the event with the new groups
+     */
+    private void showGroupingResults(SpinfoodEvent newEvent) {
         if (!change) {
             this.event1 = newEvent;
-            GroupScreen groupScreen = new GroupScreen(this.frame, this.language, this.event1, this.inputParticipantsList);
+            GroupScreen groupScreen = new GroupScreen(this.frame, this.language, this.event1, this.participantFilepath);
             groupScreen.showGroupingResultsScreen();
         } else {
-            GroupScreen groupScreen = new GroupScreen(this.frame, this.language, this.event1, this.inputParticipantsList);
+            GroupScreen groupScreen = new GroupScreen(this.frame, this.language, this.event1, this.participantFilepath);
             groupScreen.setTempNewEvent(newEvent);
             groupScreen.showDoubleGroupingResultsScreen();
         }
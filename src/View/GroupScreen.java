@@ -7,8 +7,6 @@ import javax.swing.*;
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.UndoManager;
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,7 +23,7 @@ public class GroupScreen {
     private String language;
     private SpinfoodEvent event1;
     private SpinfoodEvent tempNewEvent;
-    private List<List<String>> inputParticipantsList;
+    private String participantFilepath;
     private UndoManager undoManager;
 
     /**
@@ -34,13 +32,13 @@ public class GroupScreen {
      * @param frame the JFrame used to display the screen
      * @param language the language selected by the user
      * @param event1 the current SpinfoodEvent containing the groups
-     * @param inputParticipantsList the list of input participants
+     * @param participantFilepath the path of the participant file the event was imported from
      */
-    public GroupScreen(JFrame frame, String language, SpinfoodEvent event1, List<List<String>> inputParticipantsList) {
+    public GroupScreen(JFrame frame, String language, SpinfoodEvent event1, String participantFilepath) {
         this.frame = frame;
         this.language = language;
         this.event1 = event1;
-        this.inputParticipantsList = inputParticipantsList;
+        this.participantFilepath = participantFilepath;
         this.undoManager = new UndoManager();
     }
 
@@ -76,7 +74,7 @@ public class GroupScreen {
         JButton exportButton = new JButton(language.equals("Deutsch") ? "Gruppenliste exportieren" : "Export Groups List");
 
         changeImportanceButton.addActionListener(e -> {
-            CriteriaScreen criteriaScreen = new CriteriaScreen(frame, language, event1, inputParticipantsList, true, false);
+            CriteriaScreen criteriaScreen = new CriteriaScreen(frame, language, event1, participantFilepath, true, false);
             criteriaScreen.showCriteriaScreen();
         });
         adjustManuallyButton.addActionListener(e -> showGroupManualAdjustmentScreen());
@@ -110,15 +108,8 @@ public class GroupScreen {
         JTextArea metricsArea = new JTextArea();
         metricsArea.setEditable(false);
         metricsArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalPrintStream = System.out;
-        PrintStream newPrintStream = new PrintStream(outputStream);
-        System.setOut(newPrintStream);
-        event.showMetricsOfGroups();
+        metricsArea.setText(event.getGroupMetricsReport().format());
         event.numberTheGroups();
-        System.setOut(originalPrintStream);
-        String metricsOutput = outputStream.toString();
-        metricsArea.setText(metricsOutput);
 
         JScrollPane tableScrollPane = getGroupsListScrollPane(event);
         JScrollPane successorsScrollPane = getPairsSuccessorsScrollPane(event);
@@ -475,16 +466,17 @@ public class GroupScreen {
                 .sorted(Comparator.comparing(pair -> findDistance(pair.getKitchenLocation(), event1.getAfterDinnerPartyLocation())))
                 .collect(Collectors.toList());
         Map<Pair, Course> pairCourseMap = GroupAlgorithm.assignCourses(sortedPairs);
-
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(6), sortedPairs.get(0), sortedPairs.get(3), Course.APPETIZER, event1.getPairs() , event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(7), sortedPairs.get(1), sortedPairs.get(4), Course.APPETIZER, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(8), sortedPairs.get(2), sortedPairs.get(5), Course.APPETIZER, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(3), sortedPairs.get(1), sortedPairs.get(8), Course.MAIN, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(4), sortedPairs.get(2), sortedPairs.get(6), Course.MAIN, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(5), sortedPairs.get(0), sortedPairs.get(7), Course.MAIN, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(0), sortedPairs.get(4), sortedPairs.get(8), Course.DESSERT, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(1), sortedPairs.get(6), sortedPairs.get(5), Course.DESSERT, event1.getPairs(), event1.getGroups());
-        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(2), sortedPairs.get(3), sortedPairs.get(7), Course.DESSERT, event1.getPairs(), event1.getGroups());
+        KitchenLedger ledger = new KitchenLedger(event1.getPairs(), event1.getGroups());
+
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(6), sortedPairs.get(0), sortedPairs.get(3), Course.APPETIZER, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(7), sortedPairs.get(1), sortedPairs.get(4), Course.APPETIZER, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(8), sortedPairs.get(2), sortedPairs.get(5), Course.APPETIZER, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(3), sortedPairs.get(1), sortedPairs.get(8), Course.MAIN, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(4), sortedPairs.get(2), sortedPairs.get(6), Course.MAIN, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(5), sortedPairs.get(0), sortedPairs.get(7), Course.MAIN, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(0), sortedPairs.get(4), sortedPairs.get(8), Course.DESSERT, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(1), sortedPairs.get(6), sortedPairs.get(5), Course.DESSERT, ledger);
+        GroupAlgorithm.handleCreateGroup(result, pairCourseMap, sortedPairs.get(2), sortedPairs.get(3), sortedPairs.get(7), Course.DESSERT, ledger);
 
         for(Group g : result) {
             if(g.getKitchenOwner() == null) {
@@ -495,6 +487,9 @@ public class GroupScreen {
                 );
                 return;
             }
+        }
+        for(Group g : result) {
+            ledger.commit(g);
             g.setNumber(getNextGroupNumber());
             event1.getGroups().add(g);
         }
@@ -6,8 +6,6 @@ import javax.swing.*;
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.UndoManager;
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
 import java.util.List;
 
 import static Model.SpinfoodEvent.findDistance;
@@ -21,7 +19,7 @@ public class PairScreen {
     private String language;
     private SpinfoodEvent event1;
     private SpinfoodEvent tempNewEvent;
-    private List<List<String>> inputParticipantsList;
+    private String participantFilepath;
     private UndoManager undoManager;
 
     /**
@@ -30,13 +28,13 @@ public class PairScreen {
      * @param frame the JFrame used to display the screen
      * @param language the language selected by the user
      * @param event1 the current SpinfoodEvent containing the pairs
-     * @param inputParticipantsList the list of input participants
+     * @param participantFilepath the path of the participant file the event was imported from
      */
-    public PairScreen(JFrame frame, String language, SpinfoodEvent event1, List<List<String>> inputParticipantsList) {
+    public PairScreen(JFrame frame, String language, SpinfoodEvent event1, String participantFilepath) {
         this.frame = frame;
         this.language = language;
         this.event1 = event1;
-        this.inputParticipantsList = inputParticipantsList;
+        this.participantFilepath = participantFilepath;
         this.undoManager = new UndoManager();
     }
 
@@ -71,7 +69,7 @@ public class PairScreen {
         JButton adjustManuallyButton = new JButton(language.equals("Deutsch") ? "Manuell anpassen" : "Adjust Manually");
         JButton continueButton = new JButton(language.equals("Deutsch") ? "Weiter zur Gruppenerstellung" : "Continue with Building Groups");
 
-        CriteriaScreen criteriaScreen = new CriteriaScreen(this.frame, this.language, this.event1, this.inputParticipantsList);
+        CriteriaScreen criteriaScreen = new CriteriaScreen(this.frame, this.language, this.event1, this.participantFilepath);
         changeImportanceButton.addActionListener(e -> {
             criteriaScreen.setChange(true);
             criteriaScreen.setPairMatching(true);
@@ -108,14 +106,7 @@ public class PairScreen {
         JTextArea metricsArea = new JTextArea();
         metricsArea.setEditable(false);
         metricsArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalPrintStream = System.out;
-        PrintStream newPrintStream = new PrintStream(outputStream);
-        System.setOut(newPrintStream);
-        event.showMetricsOfPairs();
-        System.setOut(originalPrintStream);
-        String metricsOutput = outputStream.toString();
-        metricsArea.setText(metricsOutput);
+        metricsArea.setText(event.getPairMetricsReport().format());
 
         JScrollPane tableScrollPane = getPairsListScrollPane(event);
         JScrollPane successorsScrollPane = getParticipantsSuccessorsScrollPane(event);
@@ -18,7 +18,7 @@ public class StartScreen {
     private JPanel panel;
     private String language = "Deutsch";
     private SpinfoodEvent event1;
-    private List<List<String>> inputParticipantsList;
+    private String participantFilepath;
 
     /**
      * Constructs a StartScreen with the specified JFrame.
@@ -140,7 +140,6 @@ public class StartScreen {
      */
     private void readFiles(String filepathInputList, String filepathPartyLocation) {
         try {
-            inputParticipantsList = Main.readCsv(filepathInputList);
             List<String> partyLocationList = Main.readCsv(filepathPartyLocation).get(0);
 
             Location partyLocation = new Location(
@@ -148,7 +147,8 @@ public class StartScreen {
                     Double.parseDouble(partyLocationList.get(1))
             );
             event1 = new SpinfoodEvent(partyLocation);
-            event1.createInitialParticipantsAndPairs(inputParticipantsList);
+            Main.importParticipants(filepathInputList, event1);
+            participantFilepath = filepathInputList;
 
             showSuccessfulStartScreen(event1);
         } catch (Exception e) {
@@ -184,7 +184,7 @@ public class StartScreen {
 
         JButton startPairingButton = new JButton(language.equals("Deutsch") ? "Paarbildung fortfahren" : "Continue with pairing");
         startPairingButton.setAlignmentX(Component.CENTER_ALIGNMENT);
-        CriteriaScreen criteriaScreen = new CriteriaScreen(this.frame, this.language, this.event1, this.inputParticipantsList, false, true);
+        CriteriaScreen criteriaScreen = new CriteriaScreen(this.frame, this.language, this.event1, this.participantFilepath, false, true);
         startPairingButton.addActionListener(e -> criteriaScreen.showCriteriaScreen());
 
         panel.add(Box.createVerticalGlue());